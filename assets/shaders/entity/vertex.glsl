@@ -0,0 +1,17 @@
+#version 330 core
+layout (location=0) in vec3 aPos;
+layout (location=1) in vec2 aTextureCoords;
+
+//Posición de la instancia en coordenadas de pantalla. Avanza una vez por instancia, no por vértice.
+layout (location=2) in vec2 aInstancePosition;
+
+uniform mat4 uProjection;
+uniform mat4 uView;
+
+out vec2 fTextureCoords;
+
+void main()
+{
+    fTextureCoords = aTextureCoords;
+    gl_Position = uProjection * uView * vec4(aPos.xy + aInstancePosition, aPos.z, 1.0);
+}
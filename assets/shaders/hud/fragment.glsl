@@ -1,11 +1,15 @@
 #version 330 core
 
-in vec2 TexCoord; // Coordenadas de textura de entrada desde el vertex shader
+in vec2 fTextureCoords; // Coordenadas de textura de entrada desde el vertex shader
+in float fCoverage;
 out vec4 FragColor; // Color de salida
 
-uniform sampler2D hudTexture; // Textura del HUD
+uniform sampler2D texture_sampler; // Textura del rectángulo
 
 void main()
 {
-    FragColor = texture(hudTexture, TexCoord);
-}
\ No newline at end of file
+    vec4 textureColor = texture(texture_sampler, fTextureCoords);
+
+    // Los glifos sólo guardan la cobertura de cada pixel, que se utiliza como transparencia de un texto blanco.
+    FragColor = fCoverage > 0.5 ? vec4(1.0, 1.0, 1.0, textureColor.r) : textureColor;
+}
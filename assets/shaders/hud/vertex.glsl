@@ -1,19 +1,20 @@
 #version 330 core
 
-layout(location = 0) in vec2 inPosition; // Atributo de posición de los vértices
-out vec2 TexCoord; // Coordenadas de textura de salida para el fragment shader
+layout(location = 0) in vec2 aPos; // Posición del vértice en pantalla, en píxeles
+layout(location = 1) in vec2 aTextureCoords; // Coordenadas de textura del vértice
+layout(location = 2) in float aCoverage; // 1 si la textura es la cobertura de un glifo, 0 si es una imagen a color
+
+out vec2 fTextureCoords; // Coordenadas de textura de salida para el fragment shader
+out float fCoverage;
 
 uniform mat4 uProjection; // Matriz de proyección
 uniform mat4 uView; // Matriz de modelo-vista
-uniform vec2 hudPosition; // Posición del HUD en pantalla
-uniform vec2 hudSize; // Tamaño del HUD en pantalla
 
 void main()
 {
-    // Transforma la posición del vértice usando las matrices de proyección y modelo-vista
-    vec4 transformedPosition = uProjection * uView * vec4(inPosition.x * hudSize.x + hudPosition.x, inPosition.y * hudSize.y + hudPosition.y, 0.0, 1.0);
-    gl_Position = transformedPosition;
+    gl_Position = uProjection * uView * vec4(aPos, 0.0, 1.0);
 
     // Pasa las coordenadas de textura a través del shader
-    TexCoord = inPosition;
-}
\ No newline at end of file
+    fTextureCoords = aTextureCoords;
+    fCoverage = aCoverage;
+}
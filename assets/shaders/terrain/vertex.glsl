@@ -0,0 +1,19 @@
+#version 330 core
+layout (location=0) in vec3 aPos;
+layout (location=1) in vec2 aTextureCoords;
+layout (location=2) in float aTerrainType;
+
+uniform mat4 uProjection;
+uniform mat4 uView;
+
+//Región del atlas de cada tipo de terreno: esquina superior izquierda (xy) e inferior derecha (zw).
+uniform vec4 uRegions[16];
+
+out vec2 fTextureCoords;
+
+void main()
+{
+    vec4 region = uRegions[int(aTerrainType)];
+    fTextureCoords = mix(region.xy, region.zw, aTextureCoords);
+    gl_Position = uProjection * uView * vec4(aPos, 1.0);
+}
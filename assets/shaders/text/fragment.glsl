@@ -0,0 +1,13 @@
+#version 330 core
+
+uniform sampler2D texture_sampler;
+uniform vec3 uTextColor;
+
+in vec2 fTextureCoords;
+out vec4 color;
+
+void main()
+{
+    //El atlas de la fuente sólo guarda la cobertura de cada pixel, que se utiliza como transparencia.
+    color = vec4(uTextColor, texture(texture_sampler, fTextureCoords).r);
+}
@@ -0,0 +1,16 @@
+#version 330 core
+layout (location=0) in vec2 aPos;
+layout (location=1) in vec2 aTextureCoords;
+
+uniform mat4 uProjection;
+uniform mat4 uView;
+uniform vec2 uTextPosition; // Posición del texto en pantalla
+uniform float uTextScale; // Píxeles de pantalla por cada pixel de la fuente
+
+out vec2 fTextureCoords;
+
+void main()
+{
+    fTextureCoords = aTextureCoords;
+    gl_Position = uProjection * uView * vec4(aPos * uTextScale + uTextPosition, 0.0, 1.0);
+}
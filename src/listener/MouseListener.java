@@ -40,7 +40,7 @@ public class MouseListener {
     public static void updateInGameLocation() {
         if (Window.currentScene instanceof WorldScene worldScene) {
             MouseListener.inGameLocation = WorldScene.CAMERA.getInGameLocationMousePosition(new Vector2f((float) MouseListener.posX, (float) MouseListener.posY));
-            worldScene.updateSelection((int) MouseListener.inGameLocation.getX(), (int) MouseListener.inGameLocation.getY());
+            worldScene.updateSelection((int) Math.floor(MouseListener.inGameLocation.getX()), (int) Math.floor(MouseListener.inGameLocation.getY()));
         }
     }
 
@@ -77,6 +77,8 @@ public class MouseListener {
               if (MouseListener.inGameLocation.getFeature() == null) {
                   Main.WORLD.addFeature(new Tree(MouseListener.inGameLocation.clone().truncate()));
               }
+          } else if (button == GLFW.GLFW_MOUSE_BUTTON_2 && MouseListener.inGameLocation.getFeature() != null) {
+              Main.WORLD.removeFeature(MouseListener.inGameLocation.getFeature(), true);
           }
       } else if (action == GLFW.GLFW_RELEASE) {
           MouseListener.setIsMouseButtonPressed(button, false);
@@ -1,19 +1,83 @@
 package main;
 
 import org.joml.Random;
+import utils.Logger;
 import utils.render.Window;
 import world.World;
+import world.storage.WorldStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Main {
     //https://www.youtube.com/watch?v=88oZT7Aum6s&list=PLtrSb4XxIVbp8AKuEAlwNXDxr99e3woGE&index=3
 
-    public static final World WORLD = new World(new Random().nextInt(100000000), 500);
+    /**
+     * Radio, en chunks, que se mantiene cargado alrededor de la cámara. Si se indica con
+     * <code>-DloadRadius=&lt;radio&gt;</code> el mundo es infinito; si no, tiene un tamaño fijo.
+     */
+    private static final int LOAD_RADIUS = Integer.getInteger("loadRadius", 0);
+
+    /**
+     * Carpeta en la que se guarda el mundo, indicada con <code>-DsaveDirectory=&lt;ruta&gt;</code>. Si ya hay un mundo
+     * guardado en ella se carga con su semilla y su modo; si no se indica, el mundo no se guarda. Si el mundo guardado
+     * no se puede cargar, el nuevo se guarda en otra carpeta para no sobrescribirlo.
+     */
+    private static final String SAVE_DIRECTORY = System.getProperty("saveDirectory");
+
+    public static final World WORLD = Main.createWorld();
 
     /**
      * Si el juego está en modo debug o no.
      */
     public static boolean isDebugging = false;
 
+    private static World createWorld() {
+        WorldStorage storage = Main.SAVE_DIRECTORY == null ? null : new WorldStorage(Paths.get(Main.SAVE_DIRECTORY));
+        WorldStorage.Level level = null;
+        World world;
+
+        if (storage != null && storage.exists()) {
+            try {
+                level = storage.readLevel();
+            } catch (IOException exception) {
+                Path directory = Main.getFreeSaveDirectory(Paths.get(Main.SAVE_DIRECTORY));
+
+                Logger.sendMessage("No se ha podido cargar el mundo guardado en %s: %s. Se va a crear uno nuevo, que se guardará en %s sin tocar el anterior.",
+                        Logger.LogMessageType.FATAL, Main.SAVE_DIRECTORY, exception, directory);
+                storage = new WorldStorage(directory);
+            }
+        }
+
+        if (level != null) {
+            world = level.getLoadRadius() > 0
+                    ? World.createInfiniteWorld(level.getSeed(), level.getLoadRadius())
+                    : new World(level.getSeed(), level.getSize());
+        } else {
+            world = Main.LOAD_RADIUS > 0
+                    ? World.createInfiniteWorld(new Random().nextInt(100000000), Main.LOAD_RADIUS)
+                    : new World(new Random().nextInt(100000000), 500);
+        }
+        world.setStorage(storage);
+        return world;
+    }
+
+    /**
+     * @return La primera carpeta que todavía no existe con el nombre de la carpeta de guardado seguido de
+     * <code>-1</code>, <code>-2</code>...
+     */
+    private static Path getFreeSaveDirectory(Path directory) {
+        Path freeDirectory;
+        int suffix = 1;
+
+        do {
+            freeDirectory = directory.resolveSibling(directory.getFileName() + "-" + suffix++);
+        } while (Files.exists(freeDirectory));
+        return freeDirectory;
+    }
+
     public static void main(String[] args) {
         for (String argument: args) {
             if (argument.equals("--activeDebug")) {
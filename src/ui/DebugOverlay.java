@@ -0,0 +1,128 @@
+package ui;
+
+import listener.MouseListener;
+import main.Main;
+import org.lwjgl.opengl.GL20;
+import utils.Time;
+import utils.render.Shader;
+import utils.render.mesh.TextMesh;
+import utils.render.scene.WorldScene;
+import utils.render.texture.FontAtlas;
+import utils.render.texture.GlyphLayout;
+import utils.render.texture.Texture;
+
+/**
+ * Pantalla de debug, que muestra información del juego en la mitad izquierda de la ventana.
+ * <br>El texto se escribe con el atlas de la fuente de la interfaz, así que no se genera ninguna textura. Se regenera como
+ * mucho cada <code>REFRESH_INTERVAL</code> y los glifos sólo se vuelven a colocar y a subir si ha cambiado.
+ */
+public class DebugOverlay {
+    /**
+     * Tiempo mínimo entre dos actualizaciones del texto, en nanosegundos.
+     */
+    private static final long REFRESH_INTERVAL = 250_000_000L;
+
+    /**
+     * Distancia entre dos líneas de texto, en píxeles de pantalla.
+     */
+    private static final float LINE_HEIGHT = 16;
+
+    /**
+     * Mesh con el texto de la pantalla.
+     */
+    private final TextMesh TEXT = new TextMesh(FontAtlas.DEFAULT);
+
+    /**
+     * Tiempo y frames que han pasado desde la última actualización del texto, para calcular los fps medios.
+     */
+    private long timeSinceRefresh = 0;
+    private int framesSinceRefresh = 0;
+
+    /**
+     * Dibuja la pantalla de debug, actualizando antes su texto si ha pasado el tiempo suficiente. Al terminar deja en
+     * uso el shader del <code>HUD</code>.
+     * @param dTime Tiempo que ha durado el frame anterior, en nanosegundos.
+     */
+    public void draw(long dTime) {
+        GlyphLayout glyphLayout = FontAtlas.DEFAULT.getGlyphLayout();
+
+        this.timeSinceRefresh += dTime;
+        this.framesSinceRefresh++;
+
+        if (this.TEXT.getText().isEmpty() || this.timeSinceRefresh >= DebugOverlay.REFRESH_INTERVAL) {
+            this.TEXT.setText(this.buildText((int) (this.framesSinceRefresh / Time.nanosecondsToSeconds(this.timeSinceRefresh))));
+            this.timeSinceRefresh = 0;
+            this.framesSinceRefresh = 0;
+        }
+        if (glyphLayout == null) {
+            return;
+        }
+
+        Shader.TEXT.use();
+        Shader.TEXT.POSITION.upload2f(0, 0);
+        Shader.TEXT.SCALE.uploadFloat(DebugOverlay.LINE_HEIGHT / glyphLayout.getLineHeight());
+        Shader.TEXT.COLOR.upload3f(1, 1, 1);
+        Shader.TEXT.TEXTURE_SAMPLER.uploadInt(0);
+        GL20.glActiveTexture(GL20.GL_TEXTURE0);
+        FontAtlas.DEFAULT.bind();
+        this.TEXT.draw();
+        Texture.unbind();
+        Shader.HUD.use();
+    }
+
+    /**
+     * @param fps Frames por segundo medios desde la última actualización.
+     * @return El texto de la pantalla de debug.
+     */
+    private String buildText(int fps) {
+        return String.format("""
+                        game:
+                            fps=%d
+
+                        selection:
+                            x=%.2f, y=%.2f
+                        %s
+
+                        camera:
+                            x=%.2f, y=%.2f
+                            zoom=%s
+
+                        world:
+                            seed=%d
+                            daytime=%d
+                            features = %d, entities = %d
+                            chunks = %d
+                        """,
+                fps,
+                MouseListener.inGameLocation.getX(),
+                MouseListener.inGameLocation.getY(),
+                MouseListener.inGameLocation.isOutOfTheWorld() ? "    OutOfTheWorld" : String.format("""
+                                    terrain: %s type=%s
+                                    %s
+                                    biome=%s
+                                    wordBuilder: c=%.4f,w=%.4f,r=%.4f
+                                """,
+                        MouseListener.inGameLocation.getTerrain(),
+                        MouseListener.inGameLocation.getTerrain().getType(),
+                        MouseListener.inGameLocation.getFeature() == null ? "feature: null" : String.format("feature: %s type=%s",
+                                MouseListener.inGameLocation.getFeature(),
+                                MouseListener.inGameLocation.getFeature().getFeatureType()),
+                        MouseListener.inGameLocation.getTerrain().getBiome(),
+                        MouseListener.inGameLocation.getTerrain().getContinentalityNoise(),
+                        MouseListener.inGameLocation.getTerrain().getWeirdnessNoise(),
+                        MouseListener.inGameLocation.getTerrain().getRiversNoise()),
+                WorldScene.CAMERA.getCameraPosition().x(),
+                WorldScene.CAMERA.getCameraPosition().y(),
+                WorldScene.CAMERA.getZoom(),
+                Main.WORLD.getSeed(),
+                Main.WORLD.getDayTime(),
+                Main.WORLD.getFeaturesCount(),
+                Main.WORLD.getEntitiesCount(),
+                Main.WORLD.getChunksCount());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DebugOverlay(text=%s)", this.TEXT);
+    }
+}
@@ -1,18 +1,17 @@
 package ui;
 
 import org.joml.Vector4f;
-import org.lwjgl.opengl.ARBVertexArrayObject;
-import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
 import ui.widget.ClickableWidget;
 import ui.widget.CustomDrawWidget;
 import ui.widget.Widget;
 import utils.render.Shader;
 import utils.render.Window;
-import utils.render.mesh.Mesh;
+import utils.render.mesh.SpriteBatch;
 import utils.render.texture.StaticTexture;
 import utils.render.texture.Texture;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -25,6 +24,12 @@ public class Inventory {
      */
     public static final Texture CONTAINER = new StaticTexture("assets/textures/ui/inventory/container.png");
 
+    /**
+     * Capas del batch: el contenedor, los widgets encima y el render especial de los widgets encima de todo.
+     * @see SpriteBatch#setLayer(int)
+     */
+    private static final int CONTAINER_LAYER = 0, WIDGETS_LAYER = 1, CUSTOM_DRAW_LAYER = 2;
+
     /**
      * Dimensiones del inventario, en unidades in-game, no píxeles de pantalla.
      */
@@ -43,7 +48,7 @@ public class Inventory {
     /**
      * Widgets que contiene el inventario.
      */
-    private final List<Widget> WIDGETS = new LinkedList<>();
+    private final List<Widget> WIDGETS = new ArrayList<>();
 
     /**
      * Widsget que contiene el inventario y que se pueden clicar. También están en la lista  genérica de Widgets genéricos.
@@ -63,39 +68,31 @@ public class Inventory {
     }
 
     /**
-     * Dibuja el inventario según el <code>mesh</code> que se le pase. Siempre utiliza el shader <code>HUD</code>.
-     * @param mesh <code>Mesh</code> que se va a utilizar para dibujar el inventario.
+     * Añade el inventario al batch y lo dibuja. Siempre utiliza el shader <code>HUD</code>.
+     * <br>Se hace una llamada de dibujo por cada textura distinta de cada capa, así que el coste no depende del número
+     * de widgets.
+     * @param batch Batch de la interfaz, que se vacía al terminar.
      */
-    public void draw(Mesh mesh) {
-        Shader.HUD.uploadInt("texture_sampler", 0);
-
-        Shader.HUD.upload2f("uHudPosition", 0, this.posY);
-        Shader.HUD.upload2f("uHudSize", this.width, this.height);
-
-        Inventory.CONTAINER.bind();
-        ARBVertexArrayObject.glBindVertexArray(mesh.getVaoId());
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glDrawElements(GL20.GL_TRIANGLES, mesh.getElementArray().length, GL11.GL_UNSIGNED_INT, 0);
-        GL20.glDisableVertexAttribArray(0);
-        ARBVertexArrayObject.glBindVertexArray(0);
-        Inventory.CONTAINER.bind();
-
-        this.WIDGETS.forEach(widget -> {
-            Shader.HUD.upload2f("uHudPosition", this.pixelSizeInScreen * widget.getPosX(), this.pixelSizeInScreen * widget.getPosY() + this.posY);
-            Shader.HUD.upload2f("uHudSize", this.pixelSizeInScreen * widget.getWidth(), this.pixelSizeInScreen * widget.getHeight());
-
-            widget.getTexture().bind();
-            ARBVertexArrayObject.glBindVertexArray(mesh.getVaoId());
-            GL20.glEnableVertexAttribArray(0);
-            GL20.glDrawElements(GL20.GL_TRIANGLES, mesh.getElementArray().length, GL11.GL_UNSIGNED_INT, 0);
-            GL20.glDisableVertexAttribArray(0);
-            ARBVertexArrayObject.glBindVertexArray(0);
-            widget.getTexture().bind();
+    public void draw(SpriteBatch batch) {
+        Shader.HUD.TEXTURE_SAMPLER.uploadInt(0);
+        GL20.glActiveTexture(GL20.GL_TEXTURE0);
+
+        batch.setLayer(Inventory.CONTAINER_LAYER);
+        batch.add(Inventory.CONTAINER, 0, this.posY, this.width, this.height);
+
+        for (Widget widget: this.WIDGETS) {
+            float posX = this.pixelSizeInScreen * widget.getPosX(), posY = this.pixelSizeInScreen * widget.getPosY() + this.posY,
+                    width = this.pixelSizeInScreen * widget.getWidth(), height = this.pixelSizeInScreen * widget.getHeight();
+
+            batch.setLayer(Inventory.WIDGETS_LAYER);
+            batch.add(widget.getTexture(), posX, posY, width, height);
 
             if (widget instanceof CustomDrawWidget customDrawWidget) {
-                customDrawWidget.draw(mesh, this.pixelSizeInScreen, this.pixelSizeInScreen * widget.getPosX(), this.pixelSizeInScreen * widget.getPosY() + this.posY, this.pixelSizeInScreen * widget.getWidth(), this.pixelSizeInScreen * widget.getHeight());
+                batch.setLayer(Inventory.CUSTOM_DRAW_LAYER);
+                customDrawWidget.draw(batch, this.pixelSizeInScreen, posX, posY, width, height);
             }
-        });
+        }
+        batch.flush();
     }
 
     /**
@@ -1,6 +1,6 @@
 package ui.widget;
 
-import utils.render.mesh.Mesh;
+import utils.render.mesh.SpriteBatch;
 
 /**
  * Interfaz que represeneta los Widgets con un render extra (ademása del render del propio Widget), por ejemplo,
@@ -9,13 +9,13 @@ import utils.render.mesh.Mesh;
 public interface CustomDrawWidget {
 
     /**
-     * Dibuja el render especial del Widget.
-     * @param mesh <code>Mesh</code> que se utiliza para dibujar el widget.
+     * Añade al batch los rectángulos del render especial del Widget. Se dibujan encima de todos los widgets.
+     * @param batch Batch de la interfaz.
      * @param pixelSizeInScreen Tamaño de un pixel de la interfaz in-game en píxeles de pantalla.
      * @param posX Posición del widget en el eje X, en coordenadas de pantalla.
      * @param posY Posición del widget en el eje Y, en coordenadas de pantalla.
      * @param width Ancho del widget en coordenadas de pantalla.
      * @param height Alto del widget en coordenadas de pantalla.
      */
-    void draw(Mesh mesh, float pixelSizeInScreen, float posX, float posY, float width, float height);
+    void draw(SpriteBatch batch, float pixelSizeInScreen, float posX, float posY, float width, float height);
 }
@@ -1,11 +1,7 @@
 package ui.widget;
 
 import org.joml.Vector4f;
-import org.lwjgl.opengl.ARBVertexArrayObject;
-import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL20;
-import utils.render.Shader;
-import utils.render.mesh.Mesh;
+import utils.render.mesh.SpriteBatch;
 import utils.render.texture.StaticTexture;
 import utils.render.texture.Texture;
 
@@ -38,17 +34,9 @@ public class SlotWidget extends Widget implements CustomDrawWidget, ClickableWid
     }
 
     @Override
-    public void draw(Mesh mesh, float pixelSizeInScreen, float posX, float posY, float width, float height) {
-        Shader.HUD.upload2f("uHudPosition", posX + 2.5f * pixelSizeInScreen, posY + 2.5f * pixelSizeInScreen);
-        Shader.HUD.upload2f("uHudSize", (this.getWidth() -5) * pixelSizeInScreen, (this.getHeight() -5) * pixelSizeInScreen);
-
-        this.CONTENT.bind();
-        ARBVertexArrayObject.glBindVertexArray(mesh.getVaoId());
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glDrawElements(GL20.GL_TRIANGLES, mesh.getElementArray().length, GL11.GL_UNSIGNED_INT, 0);
-        GL20.glDisableVertexAttribArray(0);
-        ARBVertexArrayObject.glBindVertexArray(0);
-        this.CONTENT.bind();
+    public void draw(SpriteBatch batch, float pixelSizeInScreen, float posX, float posY, float width, float height) {
+        batch.add(this.CONTENT, posX + 2.5f * pixelSizeInScreen, posY + 2.5f * pixelSizeInScreen,
+                (this.getWidth() -5) * pixelSizeInScreen, (this.getHeight() -5) * pixelSizeInScreen);
     }
 
     @Override
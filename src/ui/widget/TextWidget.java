@@ -1,29 +1,44 @@
 package ui.widget;
 
-import org.lwjgl.opengl.ARBVertexArrayObject;
-import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL20;
-import utils.render.Shader;
-import utils.render.mesh.Mesh;
-import utils.render.texture.Graphics2dTexture;
+import utils.render.mesh.SpriteBatch;
+import utils.render.texture.FontAtlas;
+import utils.render.texture.GlyphLayout;
 import utils.render.texture.StaticTexture;
 import utils.render.texture.Texture;
 
-import java.awt.*;
-
 public class TextWidget extends Widget implements CustomDrawWidget {
     private final static Texture TEXTURE = new StaticTexture("assets/textures/ui/inventory/text_field.png");
 
-    private final Graphics2dTexture TEXT;
+    /**
+     * Texto del widget, escrito con la fuente de la interfaz.
+     */
+    private String text;
+
+    /**
+     * Vértices de los glifos del texto, colocados con <code>GlyphLayout</code>, y número de glifos. Los glifos se
+     * colocan la primera vez que se dibuja el texto, cuando la fuente ya se ha horneado.
+     */
+    private float[] glyphVertices = new float[0];
+    private int glyphsCount = -1;
+
+    /**
+     * Dimensiones del texto, en píxeles de la fuente.
+     */
+    private float textWidth, textHeight;
 
     public TextWidget(float posX, float posY, String text) {
         super(posX, posY);
-        this.TEXT = new Graphics2dTexture((int) (this.getWidth() *100), (int) (this.getHeight() *100));
+        this.text = text;
+    }
 
-        Graphics2D graphics2D = this.TEXT.getGraphics();
-        graphics2D.setFont(new Font(Font.DIALOG, Font.BOLD, 1000));
-        graphics2D.drawString(text, 0, this.getHeight() *100);
-        this.TEXT.convert();
+    /**
+     * Cambia el texto del widget. No vuelve a generar ninguna textura.
+     */
+    public void setText(String text) {
+        if (!this.text.equals(text)) {
+            this.text = text;
+            this.glyphsCount = -1;
+        }
     }
 
     @Override
@@ -42,16 +57,28 @@ public class TextWidget extends Widget implements CustomDrawWidget {
     }
 
     @Override
-    public void draw(Mesh mesh, float pixelSizeInScreen, float posX, float posY, float width, float height) {
-        Shader.HUD.upload2f("uHudPosition", posX + 2.5f * pixelSizeInScreen, posY + 2.5f * pixelSizeInScreen);
-        Shader.HUD.upload2f("uHudSize", (this.getWidth() -5) * pixelSizeInScreen, (this.getHeight() -5) * pixelSizeInScreen);
-
-        this.TEXT.bind();
-        ARBVertexArrayObject.glBindVertexArray(mesh.getVaoId());
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glDrawElements(GL20.GL_TRIANGLES, mesh.getElementArray().length, GL11.GL_UNSIGNED_INT, 0);
-        GL20.glDisableVertexAttribArray(0);
-        ARBVertexArrayObject.glBindVertexArray(0);
-        this.TEXT.bind();
+    public void draw(SpriteBatch batch, float pixelSizeInScreen, float posX, float posY, float width, float height) {
+        GlyphLayout glyphLayout = FontAtlas.DEFAULT.getGlyphLayout();
+
+        if (glyphLayout == null) {
+            return;
+        }
+        if (this.glyphsCount < 0) {
+            int quadsCount = glyphLayout.getQuadsCount(this.text);
+            if (quadsCount * GlyphLayout.QUAD_VERTEX_VALUES > this.glyphVertices.length) {
+                this.glyphVertices = new float[quadsCount * GlyphLayout.QUAD_VERTEX_VALUES];
+            }
+            this.glyphsCount = glyphLayout.layout(this.text, this.glyphVertices, null);
+            this.textWidth = glyphLayout.getWidth(this.text);
+            this.textHeight = glyphLayout.getHeight(this.text);
+        }
+        if (this.glyphsCount == 0 || this.textWidth == 0) {
+            return;
+        }
+
+        //El texto se escala para que quepa dentro del campo, sin deformarlo.
+        batch.addGlyphs(FontAtlas.DEFAULT, this.glyphVertices, this.glyphsCount,
+                posX + 2.5f * pixelSizeInScreen, posY + 2.5f * pixelSizeInScreen,
+                Math.min((this.getWidth() -5) * pixelSizeInScreen / this.textWidth, (this.getHeight() -5) * pixelSizeInScreen / this.textHeight));
     }
 }
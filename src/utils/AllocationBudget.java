@@ -0,0 +1,97 @@
+package utils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Comprueba que los frames no reservan memoria, para que el recolector de basura no provoque tirones.
+ * <br>Se activa con <code>-DallocationBudget=&lt;bytes&gt;</code>: después de unos frames de calentamiento mide los bytes
+ * que reserva el hilo principal en cada frame con <code>ThreadMXBean.getCurrentThreadAllocatedBytes</code> y, cada
+ * <code>SAMPLE_FRAMES</code> frames, falla si la media supera el presupuesto.
+ * <br>Los frames con el modo debug activado no se miden, ya que la pantalla de debug genera su texto con <code>String.format</code>.
+ */
+public class AllocationBudget {
+    /**
+     * Frames que se ignoran al empezar, mientras se cargan las clases y el JIT compila el bucle.
+     */
+    private static final int WARMUP_FRAMES = 600;
+
+    /**
+     * Número de frames de cada medida.
+     */
+    private static final int SAMPLE_FRAMES = 600;
+
+    private final com.sun.management.ThreadMXBean THREAD_MX_BEAN;
+    private final long BUDGET;
+
+    private long frameStartBytes, sampleBytes;
+    private int frames = 0, sampleFrames = 0;
+
+    /**
+     * @param budget Bytes que puede reservar un frame, de media.
+     */
+    public AllocationBudget(long budget) {
+        this.THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+        this.BUDGET = budget;
+    }
+
+    /**
+     * @return El comprobador indicado con <code>-DallocationBudget</code>, o <code>null</code> si no se ha indicado o la
+     * máquina virtual no puede medir la memoria reservada por cada hilo.
+     */
+    public static AllocationBudget fromSystemProperty() {
+        Long budget = Long.getLong("allocationBudget");
+
+        if (budget == null) {
+            return null;
+        }
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean)
+                || !threadMXBean.isThreadAllocatedMemorySupported()) {
+            Logger.sendMessage("La máquina virtual no permite medir la memoria reservada por cada hilo.", Logger.LogMessageType.WARNING);
+            return null;
+        }
+        return new AllocationBudget(budget);
+    }
+
+    /**
+     * Empieza a medir un frame. Se tiene que llamar desde el mismo hilo que <code>endFrame</code>.
+     */
+    public void startFrame() {
+        this.frameStartBytes = this.THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Termina de medir un frame y, si se ha completado una medida, comprueba el presupuesto.
+     * @param measured Si el frame cuenta para la medida.
+     * @throws IllegalStateException Si los frames de la medida reservan, de media, más bytes que el presupuesto.
+     */
+    public void endFrame(boolean measured) {
+        long allocatedBytes = this.THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - this.frameStartBytes;
+
+        if (!measured || ++this.frames <= AllocationBudget.WARMUP_FRAMES) {
+            return;
+        }
+
+        this.sampleBytes += allocatedBytes;
+        if (++this.sampleFrames < AllocationBudget.SAMPLE_FRAMES) {
+            return;
+        }
+
+        long bytesPerFrame = this.sampleBytes / this.sampleFrames;
+        if (bytesPerFrame > this.BUDGET) {
+            Logger.sendMessage("Los frames reservan %d bytes de media, más que el presupuesto de %d bytes.",
+                    Logger.LogMessageType.FATAL, bytesPerFrame, this.BUDGET);
+            throw new IllegalStateException(String.format("Se ha superado el presupuesto de memoria por frame (%d > %d bytes)",
+                    bytesPerFrame, this.BUDGET));
+        }
+        Logger.sendMessage("Los frames reservan %d bytes de media (presupuesto: %d bytes).",
+                Logger.LogMessageType.DEBUG, bytesPerFrame, this.BUDGET);
+        this.sampleBytes = 0;
+        this.sampleFrames = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AllocationBudget(budget=%d,frames=%d)", this.BUDGET, this.frames);
+    }
+}
@@ -36,6 +36,13 @@ public class Camera {
      */
     private double zoom = 1;
 
+    /**
+     * Objetos que se reutilizan en cada frame, para no crear objetos nuevos al dibujar.
+     */
+    private final Matrix4f INVERSE_TRANSFORM = new Matrix4f();
+    private final Vector4f CURSOR = new Vector4f();
+    private final VisibleChunks VISIBLE_CHUNKS = new VisibleChunks(0, 0, 0, 0);
+
     /**
      * @param cameraPosition Posición inicial de la cámara.
      */
@@ -49,7 +56,14 @@ public class Camera {
      * @param movement Unidades que se va a mover la cámara.
      */
     public void moveCamera(Vector2f movement) {
-        cameraPosition.add(movement);
+        this.moveCamera(movement.x(), movement.y());
+    }
+
+    /**
+     * Mueve la cámara y actualiza la posición del ratón in-game, sin crear un vector.
+     */
+    public void moveCamera(float movementX, float movementY) {
+        this.cameraPosition.add(movementX, movementY);
         MouseListener.updateInGameLocation();
     }
 
@@ -82,12 +96,9 @@ public class Camera {
      * @see Camera#viewMatrix
      */
     public Matrix4f getViewMatrix() {
-        Vector3f cameraFront = new Vector3f(0f, 0f, -1f), cameraUp = new Vector3f(0f, 1f, 0f);
-
-        this.viewMatrix.identity();
-        this.viewMatrix = this.viewMatrix.lookAt(new Vector3f(this.cameraPosition.x, this.cameraPosition.y, 20f), //Donde está la camara
-                cameraFront.add(this.cameraPosition.x, this.cameraPosition.y, 0f), //A donde mira la cámara
-                cameraUp);
+        this.viewMatrix.setLookAt(this.cameraPosition.x, this.cameraPosition.y, 20f, //Donde está la camara
+                this.cameraPosition.x, this.cameraPosition.y, -1f, //A donde mira la cámara
+                0f, 1f, 0f);
 
         return this.viewMatrix;
     }
@@ -105,13 +116,12 @@ public class Camera {
         float normalizedY = 1.0f - (2.0f * (mousePosition.y()) / Window.getHeight());
 
         //Vector 4D con las coordenadas normalizadas y profundidad entre -1 y 1
-        Vector4f cursorClip = new Vector4f(normalizedX, normalizedY, -1.0f, 1.0f);
+        this.CURSOR.set(normalizedX, normalizedY, -1.0f, 1.0f);
 
         //Calculamos las coordenadas in-game
-        Matrix4f inverseTransform = projectionMatrix.mul(viewMatrix, new Matrix4f()).invert();
-        Vector4f cursorView = inverseTransform.transform(cursorClip, new Vector4f());
-        cursorView.div(cursorView.w);
-        return new Location(cursorView.x() / WorldScene.SPRITE_SIZE, cursorView.y() / WorldScene.SPRITE_SIZE);
+        this.projectionMatrix.mul(this.viewMatrix, this.INVERSE_TRANSFORM).invert().transform(this.CURSOR);
+        this.CURSOR.div(this.CURSOR.w);
+        return new Location(this.CURSOR.x() / WorldScene.SPRITE_SIZE, this.CURSOR.y() / WorldScene.SPRITE_SIZE);
     }
 
     /**
@@ -144,6 +154,29 @@ public class Camera {
         return this.projectionMatrix;
     }
 
+    /**
+     * @return Chunks que se ven en pantalla con la posición y el zoom actuales. Se devuelve siempre el mismo objeto,
+     * actualizado, así que no hay que guardarlo entre frames.
+     */
+    public VisibleChunks getVisibleChunks() {
+        return this.VISIBLE_CHUNKS.update(this.projectionMatrix, this.getViewMatrix(), WorldScene.SPRITE_SIZE);
+    }
+
+    /**
+     * @return Posición in-game del centro de la pantalla.
+     */
+    public Location getInGameCenter() {
+        return new Location(this.getInGameCenterX(), this.getInGameCenterY());
+    }
+
+    public float getInGameCenterX() {
+        return (this.cameraPosition.x() + 8f * (float) this.zoom * Camera.RIGHT_ORTHO_CONST) / WorldScene.SPRITE_SIZE;
+    }
+
+    public float getInGameCenterY() {
+        return (this.cameraPosition.y() + 8f * (float) this.zoom * Camera.TOP_ORTHO_CONST) / WorldScene.SPRITE_SIZE;
+    }
+
     /**
      * @return Posición de la cámara en coordenadas de pantalla.
      */
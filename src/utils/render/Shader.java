@@ -1,14 +1,16 @@
 package utils.render;
 
 import org.joml.Matrix4f;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.system.MemoryStack;
 import utils.Logger;
 
 import java.io.IOException;
-import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Un shader es el programa utilizado para controlar la apariencia visual de los objetos en la escena 2D.
@@ -26,6 +28,12 @@ public enum Shader {
      */
     WORLD("assets/shaders/world/vertex.glsl", "assets/shaders/fog.glsl"),
 
+    /**
+     * Shader utilizado para renderizar el terreno. Cada vértice lleva el tipo de terreno, con el que se elige su región
+     * del atlas de texturas.
+     */
+    TERRAIN("assets/shaders/terrain/vertex.glsl", "assets/shaders/fog.glsl"),
+
     /**
      * Shader utilizado para renderizar entidades instanciables dentro del mundo, cuya posición en pantalla depende de la posición de la cámara.
      */
@@ -33,8 +41,34 @@ public enum Shader {
 
     /**
      * Shader utilizado para renderizar objetos sobre la pantalla. La posición de estos objetos siempre será la misma, sin importar la posición de la cámara.
+     * Dibuja los rectángulos de un <code>SpriteBatch</code>, con su posición en píxeles de pantalla.
+     */
+    HUD("assets/shaders/hud"),
+
+    /**
+     * Shader utilizado para escribir texto sobre la pantalla con el atlas de una fuente. Utiliza las mismas matrices que
+     * el <code>HUD</code>.
+     */
+    TEXT("assets/shaders/text");
+
+    /**
+     * Uniforms del programa, por nombre. Sus posiciones se obtienen una sola vez, al compilar.
+     */
+    private final Map<String, Uniform> UNIFORMS = new HashMap<>();
+
+    /**
+     * Uniforms que utilizan todos los shaders. Si un shader no declara alguno, subirlo no hace nada.
+     */
+    public final Uniform PROJECTION = this.getUniform("uProjection"), VIEW = this.getUniform("uView"),
+            DAYLIGHT = this.getUniform("uDaylight"), TEXTURE_SAMPLER = this.getUniform("texture_sampler");
+
+    /**
+     * Uniforms propios de un solo shader: <code>REGIONS</code> del <code>TERRAIN</code> y <code>POSITION</code>,
+     * <code>SCALE</code> y <code>COLOR</code> del <code>TEXT</code>. Se piden igual que los comunes, así que en el resto
+     * de shaders subirlos no hace nada.
      */
-    HUD("assets/shaders/hud");
+    public final Uniform REGIONS = this.getUniform("uRegions"), POSITION = this.getUniform("uTextPosition"),
+            SCALE = this.getUniform("uTextScale"), COLOR = this.getUniform("uTextColor");
 
     /**
      * Contenido del archivo .glsl del shader de vértices.
@@ -123,6 +157,36 @@ public enum Shader {
         GL20.glAttachShader(this.shaderProgramID, this.vertexID);
         GL20.glAttachShader(this.shaderProgramID, this.fragmentID);
         GL20.glLinkProgram(this.shaderProgramID);
+
+        this.findUniforms();
+    }
+
+    /**
+     * Guarda la posición de todos los uniforms activos del programa. Los arrays se guardan por su nombre sin el
+     * <code>[0]</code> final.
+     */
+    private void findUniforms() {
+        int uniformsCount = GL20.glGetProgrami(this.shaderProgramID, GL20.GL_ACTIVE_UNIFORMS);
+        String name;
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer size = stack.mallocInt(1), type = stack.mallocInt(1);
+            for (int uniform = 0; uniform < uniformsCount; uniform++) {
+                name = GL20.glGetActiveUniform(this.shaderProgramID, uniform, size, type);
+                if (name.endsWith("[0]")) {
+                    name = name.substring(0, name.length() - 3);
+                }
+                this.getUniform(name).location = GL20.glGetUniformLocation(this.shaderProgramID, name);
+            }
+        }
+    }
+
+    /**
+     * @return El uniform con ese nombre. Se puede pedir antes de compilar el shader: su posición se rellena al compilar.
+     * Si el shader no lo declara, subirlo no hace nada.
+     */
+    public Uniform getUniform(String variableName) {
+        return this.UNIFORMS.computeIfAbsent(variableName, Uniform::new);
     }
 
     /**
@@ -144,50 +208,108 @@ public enum Shader {
      * Envía una matriz 4x4 de flotantes al shader.
      * @param variableName Nombre de la variable en el shader (declarada con <code>uniform</code> en el archivo <code>.glsl</code>).
      * @param matrix4f Matriz 4x4 de flotantes a enviar.
+     * @see Uniform#uploadMatrix4f(Matrix4f)
      */
     public void uploadMatrix4f(String variableName, Matrix4f matrix4f) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
-        FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
-        matrix4f.get(matrixBuffer);
-        GL20.glUniformMatrix4fv(variableLocation, false, matrixBuffer);
+        this.getUniform(variableName).uploadMatrix4f(matrix4f);
+    }
+
+    /**
+     * Envía un array de vectores de 4 flotantes al shader.
+     * @param variableName Nombre de la variable en el shader (declarada con <code>uniform</code> en el archivo <code>.glsl</code>).
+     * @param values Componentes de todos los vectores seguidos, 4 por vector.
+     */
+    public void upload4fv(String variableName, float[] values) {
+        this.getUniform(variableName).upload4fv(values);
     }
 
     /**
      * Envía un vector tridimensional de flotantes al shader.
      * @param variableName Nombre de la variable en el shader (declarada con <code>uniform</code> en el archivo <code>.glsl</code>).
-     * @param floatValue1 Primer componente del vector.
-     * @param floatValue2 Segundo componente del vector.
-     * @param floatValue3 Tercer componente del vector.
      */
     public void upload3f(String variableName, float floatValue1, float floatValue2, float floatValue3) {
-        GL20.glUniform3f(GL20.glGetUniformLocation(this.shaderProgramID, variableName), floatValue1, floatValue2, floatValue3);
+        this.getUniform(variableName).upload3f(floatValue1, floatValue2, floatValue3);
     }
 
     /**
      * Envía un vector bidimensional de flotantes al shader.
      * @param variableName Nombre de la variable en el shader (declarada con <code>uniform</code> en el archivo <code>.glsl</code>).
-     * @param floatValue1 Primer componente del vector.
-     * @param floatValue2 Segundo componente del vector.
      */
     public void upload2f(String variableName, float floatValue1, float floatValue2) {
-        GL20.glUniform2f(GL20.glGetUniformLocation(this.shaderProgramID, variableName), floatValue1, floatValue2);
+        this.getUniform(variableName).upload2f(floatValue1, floatValue2);
     }
 
     /**
      * Envía un valor flotante al shader.
      * @param variableName Nombre de la variable en el shader (declarada con <code>uniform</code> en el archivo <code>.glsl</code>).
-     * @param floatValue Valor flotante a enviar.
      */
     public void uploadFloat(String variableName, float floatValue) {
-        GL20.glUniform1f(GL20.glGetUniformLocation(this.shaderProgramID, variableName), floatValue);
+        this.getUniform(variableName).uploadFloat(floatValue);
     }
 
     /**
      * Envía un entero al shader.
      * @param variableName Nombre de la variable en el shader (declarada con <code>uniform</code> en el archivo <code>.glsl</code>).
-     * @param intValue Valor entero a enviar.
      */
     public void uploadInt(String variableName, int intValue) {
-        GL20.glUniform1i(GL20.glGetUniformLocation(this.shaderProgramID, variableName), intValue);
+        this.getUniform(variableName).uploadInt(intValue);
+    }
+
+    /**
+     * Variable <code>uniform</code> de un shader, con su posición ya resuelta. Subir un valor no busca la variable por
+     * nombre ni reserva memoria.
+     * <br>El shader tiene que estar en uso (<code>use</code>) para subir valores.
+     */
+    public static final class Uniform {
+        private final String NAME;
+
+        /**
+         * Posición de la variable en el programa, o <code>-1</code> si el shader no la declara o todavía no se ha compilado.
+         * <code>OpenGL</code> ignora los valores que se suben a la posición <code>-1</code>.
+         */
+        private int location = -1;
+
+        private Uniform(String name) {
+            this.NAME = name;
+        }
+
+        /**
+         * Envía una matriz 4x4 de flotantes. La matriz se copia en un buffer de la pila de <code>LWJGL</code>, así que
+         * no se reserva memoria.
+         */
+        public void uploadMatrix4f(Matrix4f matrix4f) {
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                GL20.glUniformMatrix4fv(this.location, false, matrix4f.get(stack.mallocFloat(16)));
+            }
+        }
+
+        /**
+         * Envía un array de vectores de 4 flotantes.
+         * @param values Componentes de todos los vectores seguidos, 4 por vector.
+         */
+        public void upload4fv(float[] values) {
+            GL20.glUniform4fv(this.location, values);
+        }
+
+        public void upload3f(float floatValue1, float floatValue2, float floatValue3) {
+            GL20.glUniform3f(this.location, floatValue1, floatValue2, floatValue3);
+        }
+
+        public void upload2f(float floatValue1, float floatValue2) {
+            GL20.glUniform2f(this.location, floatValue1, floatValue2);
+        }
+
+        public void uploadFloat(float floatValue) {
+            GL20.glUniform1f(this.location, floatValue);
+        }
+
+        public void uploadInt(int intValue) {
+            GL20.glUniform1i(this.location, intValue);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Uniform(name=%s,location=%d)", this.NAME, this.location);
+        }
     }
 }
@@ -0,0 +1,126 @@
+package utils.render;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import world.chunk.Chunk;
+
+/**
+ * Rectángulo de chunks que se ve en pantalla. Se calcula en la <code>CPU</code> a partir de las matrices de la cámara,
+ * sin utilizar <code>OpenGL</code>, para dibujar sólo los chunks visibles.
+ * <br>El rectángulo se amplía un chunk por abajo y por la izquierda, ya que las features se guardan en el chunk de su
+ * origen pero pueden sobresalir de él.
+ * <br>La cámara reutiliza el mismo objeto en cada frame con <code>update</code>, para no crear objetos al dibujar.
+ *
+ * @see Camera#getVisibleChunks()
+ */
+public class VisibleChunks {
+    /**
+     * Chunks que se añaden por abajo y por la izquierda del área visible.
+     */
+    private static final int MARGIN = 1;
+
+    private int minChunkX, minChunkY, maxChunkX, maxChunkY;
+
+    /**
+     * Matriz y vector que se reutilizan al calcular el rectángulo.
+     */
+    private final Matrix4f INVERSE_TRANSFORM = new Matrix4f();
+    private final Vector4f CORNER = new Vector4f();
+
+    /**
+     * @param minChunkX Primer chunk visible en el eje X, en coordenadas de chunk.
+     * @param minChunkY Primer chunk visible en el eje Y, en coordenadas de chunk.
+     * @param maxChunkX Último chunk visible en el eje X, incluido.
+     * @param maxChunkY Último chunk visible en el eje Y, incluido.
+     */
+    public VisibleChunks(int minChunkX, int minChunkY, int maxChunkX, int maxChunkY) {
+        this.minChunkX = minChunkX;
+        this.minChunkY = minChunkY;
+        this.maxChunkX = maxChunkX;
+        this.maxChunkY = maxChunkY;
+    }
+
+    /**
+     * Calcula los chunks visibles proyectando las esquinas de la pantalla al mundo.
+     * @param projection Matriz de proyección de la cámara.
+     * @param view Matriz de vista de la cámara.
+     * @param tileSize Tamaño de una casilla en coordenadas de pantalla, sin contar el zoom.
+     */
+    public static VisibleChunks fromMatrices(Matrix4f projection, Matrix4f view, float tileSize) {
+        return new VisibleChunks(0, 0, 0, 0).update(projection, view, tileSize);
+    }
+
+    /**
+     * Vuelve a calcular el rectángulo con las matrices actuales de la cámara, sin crear objetos.
+     * @return Este mismo objeto.
+     * @see VisibleChunks#fromMatrices(Matrix4f, Matrix4f, float)
+     */
+    public VisibleChunks update(Matrix4f projection, Matrix4f view, float tileSize) {
+        Matrix4f inverseTransform = projection.mul(view, this.INVERSE_TRANSFORM).invert();
+        Vector4f corner = this.CORNER;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+
+        for (int cornerX = -1; cornerX <= 1; cornerX += 2) for (int cornerY = -1; cornerY <= 1; cornerY += 2) {
+            inverseTransform.transform(corner.set(cornerX, cornerY, -1, 1));
+            corner.div(corner.w());
+            minX = Math.min(minX, corner.x());
+            minY = Math.min(minY, corner.y());
+            maxX = Math.max(maxX, corner.x());
+            maxY = Math.max(maxY, corner.y());
+        }
+
+        this.minChunkX = VisibleChunks.toChunkCoordinate(minX, tileSize) - VisibleChunks.MARGIN;
+        this.minChunkY = VisibleChunks.toChunkCoordinate(minY, tileSize) - VisibleChunks.MARGIN;
+        this.maxChunkX = VisibleChunks.toChunkCoordinate(maxX, tileSize);
+        this.maxChunkY = VisibleChunks.toChunkCoordinate(maxY, tileSize);
+        return this;
+    }
+
+    private static int toChunkCoordinate(float screenCoordinate, float tileSize) {
+        return Chunk.toChunkCoordinate((int) Math.floor(screenCoordinate / tileSize));
+    }
+
+    public boolean contains(int chunkX, int chunkY) {
+        return chunkX >= this.minChunkX && chunkX <= this.maxChunkX && chunkY >= this.minChunkY && chunkY <= this.maxChunkY;
+    }
+
+    /**
+     * @return Número de chunks del rectángulo.
+     */
+    public long getChunksCount() {
+        return (long) (this.maxChunkX - this.minChunkX +1) * (this.maxChunkY - this.minChunkY +1);
+    }
+
+    public int getMinChunkX() {
+        return this.minChunkX;
+    }
+
+    public int getMinChunkY() {
+        return this.minChunkY;
+    }
+
+    public int getMaxChunkX() {
+        return this.maxChunkX;
+    }
+
+    public int getMaxChunkY() {
+        return this.maxChunkY;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof VisibleChunks visibleChunks && this.minChunkX == visibleChunks.minChunkX &&
+                this.minChunkY == visibleChunks.minChunkY && this.maxChunkX == visibleChunks.maxChunkX &&
+                this.maxChunkY == visibleChunks.maxChunkY;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((this.minChunkX * 31 + this.minChunkY) * 31 + this.maxChunkX) * 31 + this.maxChunkY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VisibleChunks(x=%d..%d,y=%d..%d)", this.minChunkX, this.maxChunkX, this.minChunkY, this.maxChunkY);
+    }
+}
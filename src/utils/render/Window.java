@@ -4,13 +4,12 @@ import listener.KeyListener;
 import listener.MouseListener;
 import listener.WindowListener;
 import main.Main;
-import org.joml.Vector2f;
-import org.joml.Vector2i;
 import org.lwjgl.glfw.Callbacks;
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.system.MemoryUtil;
+import utils.AllocationBudget;
 import utils.Time;
 import utils.render.scene.Scene;
 import utils.render.scene.WorldScene;
@@ -30,6 +29,11 @@ public class Window {
      */
     private final static int WIDTH = 1920, HEIGHT = 1080;
 
+    /**
+     * Arrays en los que <code>GLFW</code> escribe el tamaño de la ventana. Se reutilizan en cada llamada.
+     */
+    private static final int[] FRAMEBUFFER_WIDTH = new int[1], FRAMEBUFFER_HEIGHT = new int[1];
+
     /**
      * Identificador numérico de la ventana.
      */
@@ -51,7 +55,11 @@ public class Window {
         //Cargamos las texturas a la caché de texuras
         Texture.initCacheTextures();
 
+        //La simulación avanza en su propio hilo, a un ritmo fijo que no depende de los fps.
+        Main.WORLD.start();
         loop();
+        Main.WORLD.stopSimulation();
+        Main.WORLD.save();
 
         //Liberamos memoria
         Callbacks.glfwFreeCallbacks(window);
@@ -118,70 +126,84 @@ public class Window {
      */
     private static void loop() {
         long beginTime = Time.getTimeInNanoseconds(), endTime, dTime = -1;
+        AllocationBudget allocationBudget = AllocationBudget.fromSystemProperty();
 
         while (!GLFW.glfwWindowShouldClose(window)) {
+            if (allocationBudget != null) {
+                allocationBudget.startFrame();
+            }
             GLFW.glfwPollEvents();
             GLFW.glfwSwapBuffers(window);
 
             if (dTime >= 0) {
-                Main.WORLD.onTick();
+                Main.WORLD.updateChunks();
                 Window.currentScene.update(dTime);
                 GLFW.glfwSetWindowTitle(window, "EL PATO JUEGO");
             }
 
             if (KeyListener.isKeyPressed(GLFW.GLFW_KEY_W)) {
-                WorldScene.CAMERA.moveCamera(new Vector2f(0, 10 * (float) WorldScene.CAMERA.getZoom()));
+                WorldScene.CAMERA.moveCamera(0, 10 * (float) WorldScene.CAMERA.getZoom());
             }
 
             if (KeyListener.isKeyPressed(GLFW.GLFW_KEY_A)) {
-                WorldScene.CAMERA.moveCamera(new Vector2f(-10 * (float) WorldScene.CAMERA.getZoom(), 0));
+                WorldScene.CAMERA.moveCamera(-10 * (float) WorldScene.CAMERA.getZoom(), 0);
             }
 
             if (KeyListener.isKeyPressed(GLFW.GLFW_KEY_S)) {
-                WorldScene.CAMERA.moveCamera(new Vector2f(0, -10 * (float) WorldScene.CAMERA.getZoom()));
+                WorldScene.CAMERA.moveCamera(0, -10 * (float) WorldScene.CAMERA.getZoom());
             }
 
             if (KeyListener.isKeyPressed(GLFW.GLFW_KEY_D)) {
-                WorldScene.CAMERA.moveCamera(new Vector2f(10 * (float) WorldScene.CAMERA.getZoom(), 0));
+                WorldScene.CAMERA.moveCamera(10 * (float) WorldScene.CAMERA.getZoom(), 0);
             }
 
             if (KeyListener.isKeyPressed(GLFW.GLFW_KEY_E)) {
-                Main.WORLD.spawnEntity(new Duck(MouseListener.inGameLocation));
+                Main.WORLD.spawnEntity(new Duck(MouseListener.inGameLocation.clone()));
             }
 
             endTime = Time.getTimeInNanoseconds();
             dTime = endTime - beginTime;
             beginTime = endTime;
+
+            if (allocationBudget != null) {
+                allocationBudget.endFrame(!Main.isDebugging);
+            }
         }
     }
 
     /**
-     * @return Vector de dos enteros con las dimensiones de la ventana.
+     * Lee las dimensiones de la ventana en <code>FRAMEBUFFER_WIDTH</code> y <code>FRAMEBUFFER_HEIGHT</code>. Si la
+     * ventana todavía no existe, utiliza el tamaño por defecto.
      *
      * @see Window#getWidth()
      * @see Window#getHeight()
      */
-    private static Vector2i getDimensions() {
+    private static void updateDimensions() {
         try {
-            int[] width = new int[1], height = new int[1];
-            GLFW.glfwGetFramebufferSize(Window.window, width, height);
-            return new Vector2i(width[0], height[0]);
+            if (Window.window != MemoryUtil.NULL) {
+                GLFW.glfwGetFramebufferSize(Window.window, Window.FRAMEBUFFER_WIDTH, Window.FRAMEBUFFER_HEIGHT);
+                return;
+            }
         } catch (NullPointerException exception) {
-            return new Vector2i(Window.WIDTH, Window.HEIGHT);
+            //GLFW todavía no se ha cargado.
         }
+        Window.FRAMEBUFFER_WIDTH[0] = Window.WIDTH;
+        Window.FRAMEBUFFER_HEIGHT[0] = Window.HEIGHT;
     }
 
     /**
      * @return Ancho de la ventana.
      */
     public static int getWidth() {
-        return Window.getDimensions().x();
+        Window.updateDimensions();
+        return Window.FRAMEBUFFER_WIDTH[0];
     }
 
     /**
      * @return Alto de la ventana.
      */
     public static int getHeight() {
-        return Window.getDimensions().y();
+        Window.updateDimensions();
+        return Window.FRAMEBUFFER_HEIGHT[0];
     }
 }
@@ -0,0 +1,235 @@
+package utils.render.mesh;
+
+import utils.render.VisibleChunks;
+import world.chunk.Chunk;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Conjunto de <code>WorldMesh</code>, uno por chunk, para un mismo tipo de objeto. Cada objeto se guarda en el mesh del
+ * chunk que contiene su origen.
+ * <br>Al dibujar sólo se recorren los chunks visibles, así que el coste de cada frame depende de lo que se ve en pantalla
+ * y no del tamaño del mundo. Los chunks se dibujan de arriba a abajo y de izquierda a derecha, el mismo orden que el de
+ * las features, para que las de abajo tapen a las de arriba aunque estén en chunks distintos.
+ * @see WorldMesh
+ * @see VisibleChunks
+ */
+public class ChunkedWorldMesh {
+    /**
+     * Meshes de cada chunk, ordenados como se dibujan: primero la fila de más arriba.
+     */
+    private final TreeMap<ChunkKey, WorldMesh> MESHES = new TreeMap<>();
+
+    /**
+     * Chunks cuyo mesh ha cambiado desde la última vez que se subió a la <code>GPU</code>.
+     */
+    private final Set<ChunkKey> DIRTY_CHUNKS = new HashSet<>();
+
+    /**
+     * Clave que se reutiliza para buscar meshes sin crear objetos. Nunca se guarda en los mapas.
+     */
+    private final ChunkKey SEARCH_KEY = new ChunkKey(0, 0);
+
+    private final int CHUNK_CAPACITY;
+    private final int[] ATTRIBUTES_SIZE;
+    private final WorldMesh.UVCoordsGenerator UV_COORDS_GENERATOR;
+
+    /**
+     * @param chunkCapacity Número de objetos que caben en el mesh de un chunk antes de tener que agrandarlo.
+     * @param attributesSize Array que almacena los tamaños de los atributos, en unidades.
+     * @param uvCoordsGenerator Generador de coordenadas UV.
+     */
+    public ChunkedWorldMesh(int chunkCapacity, int[] attributesSize, WorldMesh.UVCoordsGenerator uvCoordsGenerator) {
+        this.CHUNK_CAPACITY = chunkCapacity;
+        this.ATTRIBUTES_SIZE = attributesSize;
+        this.UV_COORDS_GENERATOR = uvCoordsGenerator;
+    }
+
+    /**
+     * Constructor que utiliza las coordenadas UV normales para todos los objetos.
+     */
+    public ChunkedWorldMesh(int chunkCapacity, int... attributesSize) {
+        this(chunkCapacity, attributesSize, () -> new int[]{1, 1, 0, 0, 1, 0, 0, 1});
+    }
+
+    /**
+     * Añade un objeto al mesh del chunk que contiene su origen.
+     * @return Hueco que ocupa el objeto dentro del mesh de su chunk.
+     * @see WorldMesh#addVertex(float, float, float, float, float...)
+     */
+    public int addVertex(float posX, float posY, float sizeX, float sizeY, float... attributes) {
+        return this.getChunkMesh(posX, posY).addVertex(posX, posY, sizeX, sizeY, attributes);
+    }
+
+    /**
+     * Añade un objeto al mesh del chunk que contiene su origen, con unas coordenadas UV concretas.
+     * @return Hueco que ocupa el objeto dentro del mesh de su chunk.
+     * @see WorldMesh#addVertex(float, float, float, float, int[], float...)
+     */
+    public int addVertex(float posX, float posY, float sizeX, float sizeY, int[] uvCoords, float... attributes) {
+        return this.getChunkMesh(posX, posY).addVertex(posX, posY, sizeX, sizeY, uvCoords, attributes);
+    }
+
+    /**
+     * @return El mesh del chunk que contiene la posición, que se crea si no existe y se marca como modificado.
+     */
+    private WorldMesh getChunkMesh(float posX, float posY) {
+        ChunkKey searchKey = this.getSearchKey(posX, posY);
+        WorldMesh mesh = this.MESHES.get(searchKey);
+
+        if (mesh == null) {
+            mesh = new WorldMesh(this.CHUNK_CAPACITY, this.ATTRIBUTES_SIZE, this.UV_COORDS_GENERATOR);
+            this.MESHES.put(new ChunkKey(searchKey.chunkX, searchKey.chunkY), mesh);
+        }
+        this.markDirty();
+        return mesh;
+    }
+
+    /**
+     * Marca como modificado el chunk de <code>SEARCH_KEY</code>. Sólo crea una clave si no estaba ya marcado.
+     */
+    private void markDirty() {
+        if (!this.DIRTY_CHUNKS.contains(this.SEARCH_KEY)) {
+            this.DIRTY_CHUNKS.add(new ChunkKey(this.SEARCH_KEY.chunkX, this.SEARCH_KEY.chunkY));
+        }
+    }
+
+    /**
+     * Quita un objeto del mesh de su chunk.
+     * @param posX Posición del objeto en el eje X, la misma con la que se añadió.
+     * @param posY Posición del objeto en el eje Y, la misma con la que se añadió.
+     * @param slot Hueco que devolvió <code>addVertex</code>.
+     */
+    public void removeVertex(float posX, float posY, int slot) {
+        WorldMesh mesh = this.MESHES.get(this.getSearchKey(posX, posY));
+
+        if (mesh != null) {
+            mesh.removeVertex(slot);
+            this.markDirty();
+        }
+    }
+
+    /**
+     * Sube a la <code>GPU</code> sólo los vértices de un objeto.
+     * @see WorldMesh#loadVertex(int)
+     */
+    public void loadVertex(float posX, float posY, int slot) {
+        WorldMesh mesh = this.MESHES.get(this.getSearchKey(posX, posY));
+
+        if (mesh != null) {
+            mesh.loadVertex(slot);
+        }
+    }
+
+    /**
+     * Quita todos los objetos de un chunk y libera su mesh de la <code>GPU</code>.
+     */
+    public void removeChunk(int chunkX, int chunkY) {
+        ChunkKey key = new ChunkKey(chunkX, chunkY);
+        WorldMesh mesh = this.MESHES.remove(key);
+
+        if (mesh != null) {
+            mesh.delete();
+        }
+        this.DIRTY_CHUNKS.remove(key);
+    }
+
+    /**
+     * Quita todos los objetos de todos los chunks y libera sus meshes de la <code>GPU</code>.
+     */
+    public void clear() {
+        this.MESHES.values().forEach(Mesh::delete);
+        this.MESHES.clear();
+        this.DIRTY_CHUNKS.clear();
+    }
+
+    /**
+     * Sube a la <code>GPU</code> los meshes de todos los chunks.
+     */
+    public void load() {
+        this.MESHES.values().forEach(Mesh::load);
+        this.DIRTY_CHUNKS.clear();
+    }
+
+    /**
+     * Sube a la <code>GPU</code> sólo los meshes de los chunks que han cambiado desde la última carga.
+     */
+    public void loadDirty() {
+        for (ChunkKey key: this.DIRTY_CHUNKS) {
+            WorldMesh mesh = this.MESHES.get(key);
+            if (mesh != null) {
+                mesh.load();
+            }
+        }
+        this.DIRTY_CHUNKS.clear();
+    }
+
+    /**
+     * Dibuja los meshes de los chunks visibles. Si hay menos meshes que chunks visibles (por ejemplo, con mucho zoom
+     * hacia fuera) se recorren los meshes en vez del área.
+     */
+    public void draw(VisibleChunks visibleChunks) {
+        WorldMesh mesh;
+
+        if (visibleChunks.getChunksCount() > this.MESHES.size()) {
+            for (Map.Entry<ChunkKey, WorldMesh> entry: this.MESHES.entrySet()) {
+                if (visibleChunks.contains(entry.getKey().chunkX, entry.getKey().chunkY)) {
+                    entry.getValue().draw();
+                }
+            }
+            return;
+        }
+
+        for (int chunkY = visibleChunks.getMaxChunkY(); chunkY >= visibleChunks.getMinChunkY(); chunkY--)
+            for (int chunkX = visibleChunks.getMinChunkX(); chunkX <= visibleChunks.getMaxChunkX(); chunkX++) {
+                mesh = this.MESHES.get(this.SEARCH_KEY.set(chunkX, chunkY));
+                if (mesh != null) {
+                    mesh.draw();
+                }
+            }
+    }
+
+    /**
+     * @return La clave de búsqueda, apuntando al chunk que contiene la posición.
+     */
+    private ChunkKey getSearchKey(float posX, float posY) {
+        return this.SEARCH_KEY.set(Chunk.toChunkCoordinate((int) Math.floor(posX)), Chunk.toChunkCoordinate((int) Math.floor(posY)));
+    }
+
+    /**
+     * Posición de un chunk, ordenada como se dibujan los chunks: de arriba a abajo y de izquierda a derecha.
+     * <br>Las claves guardadas en los mapas no se modifican; sólo se modifica <code>SEARCH_KEY</code>.
+     */
+    private static final class ChunkKey implements Comparable<ChunkKey> {
+        private int chunkX, chunkY;
+
+        private ChunkKey(int chunkX, int chunkY) {
+            this.set(chunkX, chunkY);
+        }
+
+        private ChunkKey set(int chunkX, int chunkY) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            return this;
+        }
+
+        @Override
+        public int compareTo(ChunkKey chunkKey) {
+            int compareY = Integer.compare(chunkKey.chunkY, this.chunkY);
+            return compareY != 0 ? compareY : Integer.compare(this.chunkX, chunkKey.chunkX);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof ChunkKey chunkKey && this.chunkX == chunkKey.chunkX && this.chunkY == chunkKey.chunkY;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(Chunk.getKey(this.chunkX, this.chunkY));
+        }
+    }
+}
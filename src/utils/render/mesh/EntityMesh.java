@@ -1,13 +1,46 @@
 package utils.render.mesh;
 
 import org.joml.Vector2i;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ARBVertexArrayObject;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
 import utils.render.scene.WorldScene;
 
+import java.nio.FloatBuffer;
+
 /**
  * Mesh que representa a una entidad instanciable. Este <code>mesh</code> se colocará encima de canda entidad por separado,
  * en vez de contener los vértices de todas las instancias.
+ * <br>Las posiciones de todas las instancias se guardan en un buffer aparte, que se rellena una vez por frame, y se
+ * dibujan todas con una sola llamada a <code>glDrawElementsInstanced</code>.
+ * <br>Las posiciones se interpolan entre los dos últimos ticks de la simulación, así que el movimiento es suave aunque
+ * haya más frames que ticks.
  */
 public class EntityMesh extends Mesh {
+    /**
+     * Atributo del shader que recibe la posición de cada instancia.
+     */
+    private static final int INSTANCE_POSITION_ATTRIBUTE = 2;
+
+    /**
+     * Posiciones de las instancias, en coordenadas de pantalla: 2 posiciones por instancia. Se reutiliza entre frames y
+     * sólo se agranda cuando hay más instancias que nunca.
+     */
+    private FloatBuffer instanceBuffer = BufferUtils.createFloatBuffer(2 * 64);
+
+    /**
+     * Identificador del buffer de instancias dentro de <code>OpenGL</code> y número de instancias que caben en él.
+     */
+    private int instanceVboId, loadedInstanceCapacity = 0;
+
+    /**
+     * Número de instancias que se subieron en la última llamada a <code>setInstances</code>.
+     */
+    private int instancesCount = 0;
 
     /**
      * @param entitySize Tamaño de la entidad a renderizar.
@@ -25,4 +58,91 @@ public class EntityMesh extends Mesh {
                 2, 3, 0
         };
     }
+
+    /**
+     * Además de los vértices, crea el buffer de instancias y lo añade al VAO como un atributo que avanza una vez por
+     * instancia.
+     */
+    @Override
+    public void load() {
+        boolean firstLoad = this.getVaoId() == 0;
+
+        super.load();
+        if (!firstLoad) {
+            return;
+        }
+
+        this.instanceVboId = GL20.glGenBuffers();
+        ARBVertexArrayObject.glBindVertexArray(this.getVaoId());
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, this.instanceVboId);
+        GL20.glVertexAttribPointer(EntityMesh.INSTANCE_POSITION_ATTRIBUTE, 2, GL20.GL_FLOAT, false, 2 * Float.BYTES, 0);
+        GL33.glVertexAttribDivisor(EntityMesh.INSTANCE_POSITION_ATTRIBUTE, 1);
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        ARBVertexArrayObject.glBindVertexArray(0);
+    }
+
+    /**
+     * Rellena el buffer de instancias con la posición de cada entidad, interpolada entre dos ticks, y lo sube a la
+     * <code>GPU</code>.
+     * @param previousPositions Posiciones de las entidades en el tick anterior: 2 posiciones por entidad, en el mismo
+     *                          orden que <code>positions</code>.
+     * @param positions Posiciones de las entidades en el último tick: 2 posiciones por entidad.
+     * @param instancesCount Número de entidades. Sólo se leen las <code>2 * instancesCount</code> primeras posiciones.
+     * @param interpolation Fracción del tick que se ha avanzado desde las posiciones anteriores, entre 0 y 1.
+     * @see world.WorldSnapshot
+     */
+    public void setInstances(float[] previousPositions, float[] positions, int instancesCount, float interpolation) {
+        int capacity = this.instanceBuffer.capacity() / 2;
+
+        if (instancesCount > capacity) {
+            while (capacity < instancesCount) {
+                capacity *= 2;
+            }
+            this.instanceBuffer = BufferUtils.createFloatBuffer(2 * capacity);
+        }
+
+        this.instanceBuffer.clear();
+        for (int index = 0; index < 2 * instancesCount; index++) {
+            float position = previousPositions[index] + (positions[index] - previousPositions[index]) * interpolation;
+            this.instanceBuffer.put(position * WorldScene.SPRITE_SIZE);
+        }
+        this.instanceBuffer.flip();
+        this.instancesCount = instancesCount;
+
+        //Reservamos el buffer de la GPU sólo si ha cambiado de tamaño.
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, this.instanceVboId);
+        if (this.loadedInstanceCapacity != capacity) {
+            GL15C.glBufferData(GL20.GL_ARRAY_BUFFER, (long) capacity * 2 * Float.BYTES, GL15C.GL_STREAM_DRAW);
+            this.loadedInstanceCapacity = capacity;
+        }
+        GL15C.glBufferSubData(GL20.GL_ARRAY_BUFFER, 0, this.instanceBuffer);
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Dibuja todas las instancias que se subieron con <code>setInstances</code>.
+     */
+    @Override
+    public void draw() {
+        if (this.instancesCount == 0) {
+            return;
+        }
+
+        ARBVertexArrayObject.glBindVertexArray(this.getVaoId());
+        for (int attributeIndex = 0; attributeIndex <= EntityMesh.INSTANCE_POSITION_ATTRIBUTE; attributeIndex++) {
+            GL20.glEnableVertexAttribArray(attributeIndex);
+        }
+        GL31.glDrawElementsInstanced(GL20.GL_TRIANGLES, this.elementArray.length, GL11.GL_UNSIGNED_INT, 0, this.instancesCount);
+        for (int attributeIndex = 0; attributeIndex <= EntityMesh.INSTANCE_POSITION_ATTRIBUTE; attributeIndex++) {
+            GL20.glDisableVertexAttribArray(attributeIndex);
+        }
+        ARBVertexArrayObject.glBindVertexArray(0);
+    }
+
+    @Override
+    public void delete() {
+        GL20.glDeleteBuffers(this.instanceVboId);
+        this.instanceVboId = this.loadedInstanceCapacity = 0;
+        super.delete();
+    }
 }
@@ -20,6 +20,13 @@ import java.util.Arrays;
  * @author Izan
  */
 public abstract class Mesh {
+    /**
+     * Buffers que se reutilizan para subir los arrays a la <code>GPU</code>. Los meshes sólo se cargan desde el hilo
+     * principal, así que todos comparten los mismos y sólo se agrandan cuando hay que subir más valores de los que caben.
+     */
+    private static FloatBuffer vertexUploadBuffer = BufferUtils.createFloatBuffer(1024);
+    private static IntBuffer elementUploadBuffer = BufferUtils.createIntBuffer(1024);
+
     /**
      * Array que almacena información de los vértices.
      */
@@ -40,6 +47,17 @@ public abstract class Mesh {
      */
     private int vaoId;
 
+    /**
+     * Identificadores de los buffers de vértices y de elementos dentro de <code>OpenGL</code>. Se crean en la primera
+     * llamada a <code>load</code> y se reutilizan en las siguientes.
+     */
+    private int vboId, eboId;
+
+    /**
+     * Tamaño de los buffers de la <code>GPU</code>, en posiciones de cada array, y número de elementos que se dibujan.
+     */
+    private int loadedVertexCapacity = 0, loadedElementCapacity = 0, loadedElementsCount = 0;
+
     /**
      * Tamaño del vértice en bytes y en unidades.
      */
@@ -55,43 +73,134 @@ public abstract class Mesh {
     }
 
     /**
-     * Carga el <code>mesh</code> en la <code>GPU</code>.<br>
+     * Carga el <code>mesh</code> en la <code>GPU</code>. La primera vez crea el VAO, el VBO y el EBO; las siguientes
+     * vuelve a subir los arrays a los mismos buffers, sin crear otros nuevos.
+     * <br>Los buffers de la <code>GPU</code> tienen el mismo tamaño que los arrays, pero sólo se sube la parte que está en
+     * uso (<code>getVertexValuesCount</code> y <code>getElementsCount</code>).<br>
      * <b>IMPORTANTE:</b> liberar la memoría de los vértices de atributos y texturas despues del ciclo de renderizado.
      */
     public void load() {
-        int vboId, eboId;
-        FloatBuffer vertexBuffer;
-        IntBuffer elementBuffer;
-
-        //Generamos los VAO, VBO y EBO, y los mandamos a la GPU
-        this.vaoId = ARBVertexArrayObject.glGenVertexArrays();
+        boolean firstLoad = this.vaoId == 0;
+        int vertexValuesCount = this.getVertexValuesCount(), elementsCount = this.getElementsCount();
+
+        //Generamos los VAO, VBO y EBO sólo la primera vez
+        if (firstLoad) {
+            this.vaoId = ARBVertexArrayObject.glGenVertexArrays();
+            this.vboId = GL20.glGenBuffers();
+            this.eboId = GL20.glGenBuffers();
+        }
         ARBVertexArrayObject.glBindVertexArray(this.vaoId);
 
+        //Reservamos la VBO si ha cambiado el tamaño del array y subimos los vértices en uso
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, this.vboId);
+        if (this.loadedVertexCapacity != this.vertexArray.length) {
+            GL15C.glBufferData(GL20.GL_ARRAY_BUFFER, (long) this.vertexArray.length * Float.BYTES, GL20.GL_STATIC_DRAW);
+            this.loadedVertexCapacity = this.vertexArray.length;
+        }
+        GL15C.glBufferSubData(GL20.GL_ARRAY_BUFFER, 0, Mesh.toVertexUploadBuffer(this.vertexArray, 0, vertexValuesCount));
 
-        //Creamos el buffer de vértices
-        vertexBuffer = BufferUtils.createFloatBuffer(this.getVertexArray().length);
-        vertexBuffer.put(this.getVertexArray()).flip();
+        //Lo mismo con los índices
+        GL15C.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, this.eboId);
+        if (this.loadedElementCapacity != this.elementArray.length) {
+            GL15C.glBufferData(GL20.GL_ELEMENT_ARRAY_BUFFER, (long) this.elementArray.length * Integer.BYTES, GL20.GL_STATIC_DRAW);
+            this.loadedElementCapacity = this.elementArray.length;
+        }
+        GL15C.glBufferSubData(GL20.GL_ELEMENT_ARRAY_BUFFER, 0, Mesh.toElementUploadBuffer(this.elementArray, 0, elementsCount));
+        this.loadedElementsCount = elementsCount;
+
+        //Añadimos los atributos a los vertices. El VAO los recuerda, así que basta con hacerlo una vez.
+        if (firstLoad) {
+            for (int attributeIndex = 0, attributePosition = 0, attributeSize; attributeIndex < this.vertexAttributesSize.length; attributeIndex++) {
+                attributeSize = this.vertexAttributesSize[attributeIndex];
+                GL20.glVertexAttribPointer(attributeIndex, attributeSize, GL20.GL_FLOAT, false, this.vertexSizeBytes, (long) attributePosition * Float.BYTES);
+                GL20.glEnableVertexAttribArray(attributeIndex);
+                attributePosition += attributeSize;
+            }
+        }
+        ARBVertexArrayObject.glBindVertexArray(0);
+    }
 
-        //Creamos la VBO y la subimos al buffer
-        vboId = GL20.glGenBuffers();
-        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, vboId);
-        GL15C.glBufferData(GL20.GL_ARRAY_BUFFER, vertexBuffer, GL20.GL_STATIC_DRAW);
+    /**
+     * Sube a la <code>GPU</code> sólo una parte de los arrays. Si el mesh todavía no se ha cargado no hace nada, ya que
+     * <code>load</code> subirá los arrays completos; si los arrays han crecido desde la última carga, los carga enteros.
+     * @param firstVertexValue Primera posición del <code>vertexArray</code> que ha cambiado.
+     * @param vertexValues Número de posiciones del <code>vertexArray</code> que han cambiado.
+     * @param firstElement Primera posición del <code>elementArray</code> que ha cambiado.
+     * @param elements Número de posiciones del <code>elementArray</code> que han cambiado.
+     */
+    protected void loadRange(int firstVertexValue, int vertexValues, int firstElement, int elements) {
+        if (this.vaoId == 0) {
+            return;
+        }
+        if (this.loadedVertexCapacity != this.vertexArray.length || this.loadedElementCapacity != this.elementArray.length) {
+            this.load();
+            return;
+        }
 
-        //Creamos los índices
-        elementBuffer = BufferUtils.createIntBuffer(this.getElementArray().length);
-        elementBuffer.put(this.getElementArray()).flip();
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, this.vboId);
+        GL15C.glBufferSubData(GL20.GL_ARRAY_BUFFER, (long) firstVertexValue * Float.BYTES,
+                Mesh.toVertexUploadBuffer(this.vertexArray, firstVertexValue, vertexValues));
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+
+        if (elements > 0) {
+            ARBVertexArrayObject.glBindVertexArray(this.vaoId);
+            GL15C.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, this.eboId);
+            GL15C.glBufferSubData(GL20.GL_ELEMENT_ARRAY_BUFFER, (long) firstElement * Integer.BYTES,
+                    Mesh.toElementUploadBuffer(this.elementArray, firstElement, elements));
+            ARBVertexArrayObject.glBindVertexArray(0);
+        }
+        this.loadedElementsCount = Math.max(this.loadedElementsCount, firstElement + elements);
+    }
 
-        eboId = GL20.glGenBuffers();
-        GL15C.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, eboId);
-        GL15C.glBufferData(GL20.GL_ELEMENT_ARRAY_BUFFER, elementBuffer, GL20.GL_STATIC_DRAW);
+    /**
+     * @return El buffer de subida de vértices con esa parte del array, listo para pasarlo a <code>OpenGL</code>.
+     */
+    private static FloatBuffer toVertexUploadBuffer(float[] values, int offset, int length) {
+        if (Mesh.vertexUploadBuffer.capacity() < length) {
+            Mesh.vertexUploadBuffer = BufferUtils.createFloatBuffer(Math.max(length, Mesh.vertexUploadBuffer.capacity() * 2));
+        }
+        Mesh.vertexUploadBuffer.clear();
+        return Mesh.vertexUploadBuffer.put(values, offset, length).flip();
+    }
 
-        //Añadimos los atributos a los vertices
-        for (int attributeIndex = 0, attributePosition = 0, attributeSize; attributeIndex < this.vertexAttributesSize.length; attributeIndex++) {
-            attributeSize = this.vertexAttributesSize[attributeIndex];
-            GL20.glVertexAttribPointer(attributeIndex, attributeSize, GL20.GL_FLOAT, false, this.vertexSizeBytes, (long) attributePosition * Float.BYTES);
-            GL20.glEnableVertexAttribArray(attributeIndex);
-            attributePosition += attributeSize;
+    /**
+     * @return El buffer de subida de índices con esa parte del array, listo para pasarlo a <code>OpenGL</code>.
+     */
+    private static IntBuffer toElementUploadBuffer(int[] values, int offset, int length) {
+        if (Mesh.elementUploadBuffer.capacity() < length) {
+            Mesh.elementUploadBuffer = BufferUtils.createIntBuffer(Math.max(length, Mesh.elementUploadBuffer.capacity() * 2));
         }
+        Mesh.elementUploadBuffer.clear();
+        return Mesh.elementUploadBuffer.put(values, offset, length).flip();
+    }
+
+    /**
+     * @return Número de posiciones del <code>vertexArray</code> que están en uso. Por defecto, el array entero.
+     */
+    protected int getVertexValuesCount() {
+        return this.vertexArray.length;
+    }
+
+    /**
+     * @return Número de posiciones del <code>elementArray</code> que están en uso. Por defecto, el array entero.
+     */
+    protected int getElementsCount() {
+        return this.elementArray.length;
+    }
+
+    /**
+     * Libera el VAO, el VBO y el EBO del <code>mesh</code>. Se puede volver a cargar después con <code>load</code>.
+     */
+    public void delete() {
+        if (this.vaoId == 0) {
+            return;
+        }
+
+        ARBVertexArrayObject.glDeleteVertexArrays(this.vaoId);
+        GL20.glDeleteBuffers(this.vboId);
+        GL20.glDeleteBuffers(this.eboId);
+        this.vaoId = this.vboId = this.eboId = 0;
+        this.loadedVertexCapacity = this.loadedElementCapacity = this.loadedElementsCount = 0;
     }
 
     public void draw() {
@@ -99,7 +208,7 @@ public abstract class Mesh {
         for (int attributeIndex = 0; attributeIndex < this.vertexAttributesSize.length; attributeIndex++) {
             GL20.glEnableVertexAttribArray(attributeIndex);
         }
-        GL20.glDrawElements(GL20.GL_TRIANGLES, this.elementArray.length, GL11.GL_UNSIGNED_INT, 0);
+        GL20.glDrawElements(GL20.GL_TRIANGLES, this.loadedElementsCount, GL11.GL_UNSIGNED_INT, 0);
         for (int attributeIndex = 0; attributeIndex < this.vertexAttributesSize.length; attributeIndex++) {
             GL20.glDisableVertexAttribArray(attributeIndex);
         }
@@ -113,6 +222,13 @@ public abstract class Mesh {
         return Arrays.copyOf(this.vertexArray, this.vertexArray.length);
     }
 
+    /**
+     * @return Número de elementos que se dibujan, sin copiar el array de elementos.
+     */
+    public int getLoadedElementsCount() {
+        return this.loadedElementsCount;
+    }
+
     /**
      * @return Una copia del array de elementos.
      */
@@ -126,4 +242,12 @@ public abstract class Mesh {
     public int getVaoId() {
         return this.vaoId;
     }
+
+    /**
+     * @return Identificador del buffer de vértices dentro de <code>OpenGL</code>, para las subclases que suben los
+     * vértices por su cuenta.
+     */
+    protected int getVboId() {
+        return this.vboId;
+    }
 }
@@ -0,0 +1,351 @@
+package utils.render.mesh;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ARBVertexArrayObject;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL20;
+import utils.render.texture.GlyphLayout;
+import utils.render.texture.Texture;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <code>Mesh</code> dinámico que acumula los rectángulos de la interfaz durante un frame y los dibuja todos juntos con
+ * <code>flush</code>: los vértices se suben en un solo buffer y se hace una llamada de dibujo por cada textura de cada
+ * capa, sin importar cuántos rectángulos haya.
+ * <br>Las capas se dibujan en orden, de menor a mayor. Dentro de una capa los rectángulos se agrupan por textura, así que
+ * no se deben solapar entre ellos.
+ * <br>Cada vértice tiene la posición en pantalla, las coordenadas UV y si la textura es la cobertura de un glifo (del
+ * atlas de una fuente) en vez de una imagen a color.
+ * <br>Añadir rectángulos y ordenarlos (<code>build</code>) no utiliza <code>OpenGL</code>, así que el contenido del batch
+ * se puede comprobar sin ventana.
+ */
+public class SpriteBatch extends Mesh {
+    /**
+     * Posiciones del <code>vertexArray</code> que ocupa un vértice y un rectángulo.
+     */
+    public static final int VERTEX_SIZE = 5, QUAD_VERTEX_VALUES = 4 * SpriteBatch.VERTEX_SIZE;
+
+    /**
+     * Posiciones que ocupa un rectángulo antes de ordenarlo: esquinas, coordenadas UV y cobertura.
+     */
+    private static final int QUAD_VALUES = 9;
+
+    /**
+     * Número de rectángulos que caben al empezar.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Texturas distintas del batch actual. Cada rectángulo guarda el índice de su textura en esta lista.
+     */
+    private final List<Texture> TEXTURES = new ArrayList<>();
+
+    /**
+     * Textura de cada llamada de dibujo, en el orden en el que se hacen.
+     */
+    private final List<Texture> DRAW_CALL_TEXTURES = new ArrayList<>();
+
+    /**
+     * Rectángulos en el orden en el que se añadieron y clave de ordenación de cada uno: capa, textura y posición.
+     */
+    private float[] quads = new float[SpriteBatch.INITIAL_CAPACITY * SpriteBatch.QUAD_VALUES];
+    private long[] sortKeys = new long[SpriteBatch.INITIAL_CAPACITY];
+
+    /**
+     * Primer rectángulo y número de rectángulos de cada llamada de dibujo.
+     */
+    private int[] drawCallFirstQuads = new int[8], drawCallQuads = new int[8];
+
+    /**
+     * Buffer que se reutiliza para subir los vértices en cada <code>flush</code>.
+     */
+    private FloatBuffer vertexBuffer;
+
+    private int capacity = 0, loadedCapacity = 0;
+    private int quadsCount = 0, drawCallsCount = 0, layer = 0;
+
+    public SpriteBatch() {
+        super(2, 2, 1);
+        this.vertexArray = new float[0];
+        this.elementArray = new int[0];
+    }
+
+    /**
+     * Establece la capa de los siguientes rectángulos. Las capas mayores se dibujan encima.
+     */
+    public void setLayer(int layer) {
+        if (layer < 0 || layer > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("La capa tiene que estar entre 0 y " + Short.MAX_VALUE);
+        }
+        this.layer = layer;
+    }
+
+    /**
+     * Añade un rectángulo con la textura entera.
+     * @param posX Posición de la esquina superior izquierda en el eje X, en píxeles de pantalla.
+     * @param posY Posición de la esquina superior izquierda en el eje Y, en píxeles de pantalla.
+     * @param width Ancho en píxeles de pantalla.
+     * @param height Alto en píxeles de pantalla.
+     */
+    public void add(Texture texture, float posX, float posY, float width, float height) {
+        this.add(texture, posX, posY, posX + width, posY + height, 0, 0, 1, 1, false);
+    }
+
+    /**
+     * Añade un rectángulo con una región de la textura.
+     * @param x0 Posición de la esquina superior izquierda en el eje X, en píxeles de pantalla.
+     * @param y0 Posición de la esquina superior izquierda en el eje Y, en píxeles de pantalla.
+     * @param x1 Posición de la esquina inferior derecha en el eje X, en píxeles de pantalla.
+     * @param y1 Posición de la esquina inferior derecha en el eje Y, en píxeles de pantalla.
+     * @param coverage Si la textura es la cobertura de un glifo, que se dibuja en blanco con esa transparencia.
+     */
+    public void add(Texture texture, float x0, float y0, float x1, float y1, float u0, float v0, float u1, float v1, boolean coverage) {
+        int quad = this.quadsCount++, offset = quad * SpriteBatch.QUAD_VALUES, textureIndex = this.getTextureIndex(texture);
+
+        this.ensureQuadsCapacity(this.quadsCount);
+        this.quads[offset] = x0;
+        this.quads[offset +1] = y0;
+        this.quads[offset +2] = x1;
+        this.quads[offset +3] = y1;
+        this.quads[offset +4] = u0;
+        this.quads[offset +5] = v0;
+        this.quads[offset +6] = u1;
+        this.quads[offset +7] = v1;
+        this.quads[offset +8] = coverage ? 1 : 0;
+
+        //Al ordenar por la clave, los rectángulos con la misma capa y textura mantienen el orden en el que se añadieron.
+        this.sortKeys[quad] = (long) this.layer << 48 | (long) textureIndex << 32 | quad;
+    }
+
+    /**
+     * Añade los glifos de un texto ya colocado con <code>GlyphLayout</code>.
+     * @param font Atlas de la fuente.
+     * @param glyphVertices Vértices que escribió <code>GlyphLayout.layout</code>.
+     * @param glyphsCount Número de glifos que devolvió <code>GlyphLayout.layout</code>.
+     * @param posX Posición del texto en el eje X, en píxeles de pantalla.
+     * @param posY Posición del texto en el eje Y, en píxeles de pantalla.
+     * @param scale Píxeles de pantalla por cada pixel de la fuente.
+     */
+    public void addGlyphs(Texture font, float[] glyphVertices, int glyphsCount, float posX, float posY, float scale) {
+        for (int glyph = 0, offset = 0; glyph < glyphsCount; glyph++, offset += GlyphLayout.QUAD_VERTEX_VALUES) {
+            //Basta con la esquina superior izquierda (primer vértice) y la inferior derecha (tercero).
+            int corner = offset + 2 * GlyphLayout.VERTEX_SIZE;
+            this.add(font, posX + glyphVertices[offset] * scale, posY + glyphVertices[offset +1] * scale,
+                    posX + glyphVertices[corner] * scale, posY + glyphVertices[corner +1] * scale,
+                    glyphVertices[offset +2], glyphVertices[offset +3], glyphVertices[corner +2], glyphVertices[corner +3], true);
+        }
+    }
+
+    /**
+     * Ordena los rectángulos por capa y textura, escribe sus vértices y calcula las llamadas de dibujo. No utiliza
+     * <code>OpenGL</code>.
+     */
+    public void build() {
+        Texture drawCallTexture = null;
+        int drawCallLayer = -1;
+
+        this.ensureMeshCapacity(this.quadsCount);
+        Arrays.sort(this.sortKeys, 0, this.quadsCount);
+
+        this.DRAW_CALL_TEXTURES.clear();
+        this.drawCallsCount = 0;
+        for (int index = 0; index < this.quadsCount; index++) {
+            long sortKey = this.sortKeys[index];
+            int quad = (int) sortKey, quadLayer = (int) (sortKey >>> 48);
+            Texture texture = this.TEXTURES.get((int) (sortKey >>> 32) & 0xFFFF);
+
+            this.writeQuad(this.quads, quad * SpriteBatch.QUAD_VALUES, index * SpriteBatch.QUAD_VERTEX_VALUES);
+
+            if (texture != drawCallTexture || quadLayer != drawCallLayer) {
+                this.addDrawCall(texture, index);
+                drawCallTexture = texture;
+                drawCallLayer = quadLayer;
+            }
+            this.drawCallQuads[this.drawCallsCount -1]++;
+        }
+    }
+
+    /**
+     * Ordena los rectángulos, los sube a la <code>GPU</code>, los dibuja y vacía el batch para el siguiente frame.
+     * <br>El shader <code>HUD</code> tiene que estar en uso.
+     */
+    public void flush() {
+        this.build();
+        if (this.quadsCount > 0) {
+            this.upload();
+            this.draw();
+        }
+        this.clear();
+    }
+
+    /**
+     * Sube los vértices a la <code>GPU</code>. Si el batch ha crecido se vuelven a reservar los buffers; si no, los
+     * vértices se suben con el buffer reutilizado.
+     */
+    private void upload() {
+        if (this.getVaoId() == 0 || this.loadedCapacity != this.capacity) {
+            this.load();
+            this.loadedCapacity = this.capacity;
+            this.vertexBuffer = BufferUtils.createFloatBuffer(this.capacity * SpriteBatch.QUAD_VERTEX_VALUES);
+            return;
+        }
+
+        this.vertexBuffer.clear();
+        this.vertexBuffer.put(this.vertexArray, 0, this.getVertexValuesCount()).flip();
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, this.getVboId());
+        GL15C.glBufferSubData(GL20.GL_ARRAY_BUFFER, 0, this.vertexBuffer);
+        GL15C.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Dibuja los rectángulos de la última llamada a <code>build</code>, una llamada de dibujo por grupo.
+     */
+    @Override
+    public void draw() {
+        ARBVertexArrayObject.glBindVertexArray(this.getVaoId());
+        for (int attributeIndex = 0; attributeIndex < this.vertexAttributesSize.length; attributeIndex++) {
+            GL20.glEnableVertexAttribArray(attributeIndex);
+        }
+        for (int drawCall = 0; drawCall < this.drawCallsCount; drawCall++) {
+            this.DRAW_CALL_TEXTURES.get(drawCall).bind();
+            GL20.glDrawElements(GL20.GL_TRIANGLES, this.drawCallQuads[drawCall] * 6, GL11.GL_UNSIGNED_INT,
+                    (long) this.drawCallFirstQuads[drawCall] * 6 * Integer.BYTES);
+        }
+        for (int attributeIndex = 0; attributeIndex < this.vertexAttributesSize.length; attributeIndex++) {
+            GL20.glDisableVertexAttribArray(attributeIndex);
+        }
+        ARBVertexArrayObject.glBindVertexArray(0);
+        Texture.unbind();
+    }
+
+    /**
+     * Vacía el batch. Los arrays y los buffers se conservan para el siguiente frame.
+     */
+    public void clear() {
+        this.TEXTURES.clear();
+        this.quadsCount = 0;
+        this.layer = 0;
+    }
+
+    /**
+     * @return Número de rectángulos añadidos desde el último <code>flush</code>.
+     */
+    public int getQuadsCount() {
+        return this.quadsCount;
+    }
+
+    /**
+     * @return Número de llamadas de dibujo que calculó el último <code>build</code>.
+     */
+    public int getDrawCallsCount() {
+        return this.drawCallsCount;
+    }
+
+    /**
+     * @return Textura de una de las llamadas de dibujo del último <code>build</code>.
+     */
+    public Texture getDrawCallTexture(int drawCall) {
+        return this.DRAW_CALL_TEXTURES.get(drawCall);
+    }
+
+    /**
+     * @return Número de rectángulos de una de las llamadas de dibujo del último <code>build</code>.
+     */
+    public int getDrawCallQuads(int drawCall) {
+        return this.drawCallQuads[drawCall];
+    }
+
+    @Override
+    protected int getVertexValuesCount() {
+        return this.quadsCount * SpriteBatch.QUAD_VERTEX_VALUES;
+    }
+
+    private void writeQuad(float[] quads, int offset, int vertex) {
+        float x0 = quads[offset], y0 = quads[offset +1], x1 = quads[offset +2], y1 = quads[offset +3],
+                u0 = quads[offset +4], v0 = quads[offset +5], u1 = quads[offset +6], v1 = quads[offset +7], coverage = quads[offset +8];
+
+        this.writeVertex(vertex, x0, y0, u0, v0, coverage);
+        this.writeVertex(vertex + SpriteBatch.VERTEX_SIZE, x1, y0, u1, v0, coverage);
+        this.writeVertex(vertex + 2 * SpriteBatch.VERTEX_SIZE, x1, y1, u1, v1, coverage);
+        this.writeVertex(vertex + 3 * SpriteBatch.VERTEX_SIZE, x0, y1, u0, v1, coverage);
+    }
+
+    private void writeVertex(int offset, float posX, float posY, float u, float v, float coverage) {
+        this.vertexArray[offset] = posX;
+        this.vertexArray[offset +1] = posY;
+        this.vertexArray[offset +2] = u;
+        this.vertexArray[offset +3] = v;
+        this.vertexArray[offset +4] = coverage;
+    }
+
+    private void addDrawCall(Texture texture, int firstQuad) {
+        if (this.drawCallsCount == this.drawCallQuads.length) {
+            this.drawCallFirstQuads = Arrays.copyOf(this.drawCallFirstQuads, this.drawCallsCount * 2);
+            this.drawCallQuads = Arrays.copyOf(this.drawCallQuads, this.drawCallsCount * 2);
+        }
+        this.DRAW_CALL_TEXTURES.add(texture);
+        this.drawCallFirstQuads[this.drawCallsCount] = firstQuad;
+        this.drawCallQuads[this.drawCallsCount] = 0;
+        this.drawCallsCount++;
+    }
+
+    /**
+     * @return Índice de la textura en la lista de texturas del batch, que se añade si no estaba.
+     */
+    private int getTextureIndex(Texture texture) {
+        for (int index = 0; index < this.TEXTURES.size(); index++) {
+            if (this.TEXTURES.get(index) == texture) {
+                return index;
+            }
+        }
+        this.TEXTURES.add(texture);
+        return this.TEXTURES.size() -1;
+    }
+
+    /**
+     * Agranda los arrays de los rectángulos sin ordenar, duplicando su tamaño, si no caben.
+     */
+    private void ensureQuadsCapacity(int quadsCount) {
+        if (quadsCount > this.sortKeys.length) {
+            int capacity = this.sortKeys.length * 2;
+            this.sortKeys = Arrays.copyOf(this.sortKeys, capacity);
+            this.quads = Arrays.copyOf(this.quads, capacity * SpriteBatch.QUAD_VALUES);
+        }
+    }
+
+    /**
+     * Agranda los arrays del mesh si no caben los rectángulos. Los índices siempre forman dos triángulos por rectángulo,
+     * así que sólo se generan al agrandarlos.
+     */
+    private void ensureMeshCapacity(int quadsCount) {
+        if (quadsCount <= this.capacity) {
+            return;
+        }
+
+        this.capacity = Math.max(this.capacity, SpriteBatch.INITIAL_CAPACITY);
+        while (this.capacity < quadsCount) {
+            this.capacity *= 2;
+        }
+        this.vertexArray = new float[this.capacity * SpriteBatch.QUAD_VERTEX_VALUES];
+        this.elementArray = new int[this.capacity * 6];
+        for (int quad = 0; quad < this.capacity; quad++) {
+            int element = quad * 6, firstVertex = quad * 4;
+            this.elementArray[element] = firstVertex;
+            this.elementArray[element +1] = firstVertex +1;
+            this.elementArray[element +2] = firstVertex +2;
+            this.elementArray[element +3] = firstVertex +2;
+            this.elementArray[element +4] = firstVertex +3;
+            this.elementArray[element +5] = firstVertex;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SpriteBatch(quads=%d,drawCalls=%d,capacity=%d)", this.quadsCount, this.drawCallsCount, this.capacity);
+    }
+}
@@ -0,0 +1,145 @@
+package utils.render.mesh;
+
+import utils.render.texture.FontAtlas;
+import utils.render.texture.GlyphLayout;
+
+/**
+ * <code>Mesh</code> que contiene un texto, con un rectángulo por cada caracter visible que apunta a su glifo en el atlas
+ * de la fuente.
+ * <br>Cambiar el texto sólo vuelve a colocar los glifos y a subir los vértices, nunca la textura. Los arrays se reutilizan
+ * y sólo se agrandan cuando el texto tiene más caracteres que nunca.
+ * <br>Las posiciones están en píxeles de la fuente; el shader <code>TEXT</code> las escala y las coloca en pantalla.
+ * @see GlyphLayout
+ */
+public class TextMesh extends Mesh {
+    private final FontAtlas FONT;
+
+    /**
+     * Texto del mesh.
+     */
+    private String text = "";
+
+    /**
+     * Si el texto ha cambiado desde la última vez que se colocaron los glifos.
+     */
+    private boolean changed = true;
+
+    /**
+     * Número de rectángulos en uso y dimensiones del texto, en píxeles de la fuente.
+     */
+    private int quadsCount = 0;
+    private float width = 0, height = 0;
+
+    /**
+     * @param font Fuente con la que se escribe el texto.
+     */
+    public TextMesh(FontAtlas font) {
+        super(2, 2);
+        this.FONT = font;
+        this.vertexArray = new float[0];
+        this.elementArray = new int[0];
+    }
+
+    /**
+     * @param font Fuente con la que se escribe el texto.
+     * @param text Texto inicial.
+     */
+    public TextMesh(FontAtlas font, String text) {
+        this(font);
+        this.setText(text);
+    }
+
+    /**
+     * Cambia el texto. Si es igual al actual no hace nada; si no, los glifos se colocan la próxima vez que se dibuje.
+     */
+    public void setText(String text) {
+        if (!this.text.equals(text)) {
+            this.text = text;
+            this.changed = true;
+        }
+    }
+
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Coloca los glifos del texto y los sube a la <code>GPU</code>. Si la fuente todavía no se ha horneado no hace nada,
+     * y se vuelve a intentar en el siguiente <code>draw</code>.
+     */
+    @Override
+    public void load() {
+        GlyphLayout glyphLayout = this.FONT.getGlyphLayout();
+        int quadsCount;
+
+        if (glyphLayout == null) {
+            return;
+        }
+
+        quadsCount = glyphLayout.getQuadsCount(this.text);
+        if (quadsCount * GlyphLayout.QUAD_ELEMENTS > this.elementArray.length) {
+            int capacity = Math.max(16, this.elementArray.length / GlyphLayout.QUAD_ELEMENTS);
+            while (capacity < quadsCount) {
+                capacity *= 2;
+            }
+            this.vertexArray = new float[capacity * GlyphLayout.QUAD_VERTEX_VALUES];
+            this.elementArray = new int[capacity * GlyphLayout.QUAD_ELEMENTS];
+        }
+
+        this.quadsCount = glyphLayout.layout(this.text, this.vertexArray, this.elementArray);
+        this.width = glyphLayout.getWidth(this.text);
+        this.height = glyphLayout.getHeight(this.text);
+        this.changed = false;
+        if (this.quadsCount > 0) {
+            super.load();
+        }
+    }
+
+    @Override
+    public void draw() {
+        this.loadIfChanged();
+        if (this.quadsCount > 0 && !this.changed) {
+            super.draw();
+        }
+    }
+
+    /**
+     * Coloca los glifos si el texto ha cambiado desde la última vez.
+     */
+    private void loadIfChanged() {
+        if (this.changed) {
+            this.load();
+        }
+    }
+
+    /**
+     * @return Ancho de la línea más larga, en píxeles de la fuente. Es 0 mientras la fuente no se haya horneado.
+     */
+    public float getWidth() {
+        this.loadIfChanged();
+        return this.width;
+    }
+
+    /**
+     * @return Alto del texto, en píxeles de la fuente. Es 0 mientras la fuente no se haya horneado.
+     */
+    public float getHeight() {
+        this.loadIfChanged();
+        return this.height;
+    }
+
+    @Override
+    protected int getVertexValuesCount() {
+        return this.quadsCount * GlyphLayout.QUAD_VERTEX_VALUES;
+    }
+
+    @Override
+    protected int getElementsCount() {
+        return this.quadsCount * GlyphLayout.QUAD_ELEMENTS;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TextMesh(text=%s,quads=%d)", this.text, this.quadsCount);
+    }
+}
@@ -2,16 +2,27 @@ package utils.render.mesh;
 
 import utils.render.scene.WorldScene;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
 /**
- * Mesh utilizado para renderizar una cantidad de objetos igual al área total del mundo. A contrario de <code>EntityMesh</code>,
- * este mesh no se instancia para cada uno de los objetos. Este mesh contiene todos los vértices directamente, que habrá
- * que añadir según se vayan generando los objetos.
+ * Mesh utilizado para renderizar muchos objetos del mundo a la vez. A contrario de <code>EntityMesh</code>, este mesh no
+ * se instancia para cada uno de los objetos. Este mesh contiene todos los vértices directamente, que habrá que añadir
+ * según se vayan generando los objetos.
+ * <br>Los arrays empiezan con una capacidad pequeña y duplican su tamaño cuando se llenan, así que la memoria que ocupa
+ * el mesh (también en la <code>GPU</code>) es proporcional al número de objetos y no al tamaño del mundo.
  * @see EntityMesh
  * @see Mesh
  *
  * @author Izan
  */
 public class WorldMesh extends Mesh {
+    /**
+     * Número de objetos que caben en un mesh recién creado.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
     /**
      * Generador de coordenadas UV. Cada objeto puede tener unas coordenadas UV distintas.
      */
@@ -23,12 +34,17 @@ public class WorldMesh extends Mesh {
     private int elementsCount = 0;
 
     /**
-     * Últimos índices utilizados de los arrays de vérices y elementos.
+     * Último índice utilizado del array de elementos.
+     */
+    private int previousElementArrayPos = 0;
+
+    /**
+     * Huecos de los objetos que se han quitado del mesh. Se reutilizan antes de añadir objetos al final.
      */
-    private int previousVertexArrayPos = 0, previousElementArrayPos = 0;
+    private final Deque<Integer> FREE_SLOTS = new ArrayDeque<>();
 
     /**
-     * @param capacity Capacidad que va a tener el mesh.
+     * @param capacity Número de objetos que caben en el mesh antes de tener que agrandarlo.
      * @param attributesSize Array que almacena los tamaños de los atributos, en unidades.
      * @param uvCoordsGenerator Generador de coordenadas UV.
      */
@@ -41,7 +57,7 @@ public class WorldMesh extends Mesh {
 
     /**
      * Constructor que utiliza las coordenadas UV normales para todos los objetos.
-     * @param capacity Capacidad que va a tener el mesh.
+     * @param capacity Número de objetos que caben en el mesh antes de tener que agrandarlo.
      * @param attributesSize Tamaños de los atributos, en unidades.
      */
     public WorldMesh(int capacity, int... attributesSize) {
@@ -55,61 +71,79 @@ public class WorldMesh extends Mesh {
      * @param sizeX Tamaño del objeto en el eje X, en coordenadas in-game.
      * @param sizeY Tamaño del objeto en el eje Y, en coordenadas in-game.
      * @param attributes Atributos del vértice.
+     * @return Hueco que ocupa el objeto dentro del mesh, para poder quitarlo o subirlo con <code>loadVertex</code>.
+     */
+    public int addVertex(float posX, float posY, float sizeX, float sizeY, float... attributes) {
+        return this.addVertex(posX, posY, sizeX, sizeY, this.UV_COORDS_RANDOMIZER.getUVCoords(), attributes);
+    }
+
+    /**
+     * Añade un objeto al mesh con unas coordenadas UV concretas, en vez de las del generador.
+     * @param uvCoords Coordenadas UV de los 4 vértices.
+     * @see WorldMesh#addVertex(float, float, float, float, float...)
      */
-    public void addVertex(float posX, float posY, float sizeX, float sizeY, float... attributes) {
+    public int addVertex(float posX, float posY, float sizeX, float sizeY, int[] uvCoords, float... attributes) {
         float screenPosX = WorldScene.SPRITE_SIZE * posX, screenPosY = WorldScene.SPRITE_SIZE * posY;
-        int[] uvCoords = this.UV_COORDS_RANDOMIZER.getUVCoords();
+        int slot = this.FREE_SLOTS.isEmpty() ? this.elementsCount / 4 : this.FREE_SLOTS.pop(),
+                vertexArrayPos = slot * 4 * this.vertexSize;
+
+        this.ensureCapacity(slot +1);
 
         //Primer vértice: abajo derecha
         //Posición
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosX + WorldScene.SPRITE_SIZE * sizeX;
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosY;
+        this.vertexArray[vertexArrayPos++] = screenPosX + WorldScene.SPRITE_SIZE * sizeX;
+        this.vertexArray[vertexArrayPos++] = screenPosY;
 
         //Coordenadas UV
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[0];
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[1];
+        this.vertexArray[vertexArrayPos++] = uvCoords[0];
+        this.vertexArray[vertexArrayPos++] = uvCoords[1];
 
         for (float attribute: attributes) {
-            this.vertexArray[this.previousVertexArrayPos++] = attribute;
+            this.vertexArray[vertexArrayPos++] = attribute;
         }
 
         //Segundo vértice: arriba izquierda
         //Posición
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosX;
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosY + WorldScene.SPRITE_SIZE * sizeY;
+        this.vertexArray[vertexArrayPos++] = screenPosX;
+        this.vertexArray[vertexArrayPos++] = screenPosY + WorldScene.SPRITE_SIZE * sizeY;
 
         //Coordenadas UV
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[2];
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[3];
+        this.vertexArray[vertexArrayPos++] = uvCoords[2];
+        this.vertexArray[vertexArrayPos++] = uvCoords[3];
 
         for (float attribute: attributes) {
-            this.vertexArray[this.previousVertexArrayPos++] = attribute;
+            this.vertexArray[vertexArrayPos++] = attribute;
         }
 
         //Tercer vértice: arriba derecha
         //Posición
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosX + WorldScene.SPRITE_SIZE * sizeX;
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosY + WorldScene.SPRITE_SIZE * sizeY;
+        this.vertexArray[vertexArrayPos++] = screenPosX + WorldScene.SPRITE_SIZE * sizeX;
+        this.vertexArray[vertexArrayPos++] = screenPosY + WorldScene.SPRITE_SIZE * sizeY;
 
         //Coordenadas UV
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[4];
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[5];
+        this.vertexArray[vertexArrayPos++] = uvCoords[4];
+        this.vertexArray[vertexArrayPos++] = uvCoords[5];
 
         for (float attribute: attributes) {
-            this.vertexArray[this.previousVertexArrayPos++] = attribute;
+            this.vertexArray[vertexArrayPos++] = attribute;
         }
 
         //cuarto vértice: abajo izquierda
         //Posición
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosX;
-        this.vertexArray[this.previousVertexArrayPos++] = screenPosY;
+        this.vertexArray[vertexArrayPos++] = screenPosX;
+        this.vertexArray[vertexArrayPos++] = screenPosY;
 
         //Coordenadas UV
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[6];
-        this.vertexArray[this.previousVertexArrayPos++] = uvCoords[7];
+        this.vertexArray[vertexArrayPos++] = uvCoords[6];
+        this.vertexArray[vertexArrayPos++] = uvCoords[7];
 
         for (float attribute: attributes) {
-            this.vertexArray[this.previousVertexArrayPos++] = attribute;
+            this.vertexArray[vertexArrayPos++] = attribute;
+        }
+
+        //Los huecos reutilizados ya tienen sus elementos
+        if (slot < this.elementsCount / 4) {
+            return slot;
         }
 
         //Añadir elementos
@@ -124,6 +158,65 @@ public class WorldMesh extends Mesh {
         this.elementArray[this.previousElementArrayPos++] = this.elementsCount +3;
 
         this.elementsCount += 4;
+        return slot;
+    }
+
+    /**
+     * Quita un objeto del mesh. Sus vértices se quedan en la misma posición, así que el hueco se dibuja vacío hasta que
+     * se reutilice.
+     * @param slot Hueco que devolvió <code>addVertex</code>.
+     */
+    public void removeVertex(int slot) {
+        Arrays.fill(this.vertexArray, slot * 4 * this.vertexSize, (slot +1) * 4 * this.vertexSize, 0);
+        this.FREE_SLOTS.push(slot);
+    }
+
+    /**
+     * Sube a la <code>GPU</code> sólo los vértices y los elementos de un objeto.
+     * @param slot Hueco que devolvió <code>addVertex</code>.
+     */
+    public void loadVertex(int slot) {
+        this.loadRange(slot * 4 * this.vertexSize, 4 * this.vertexSize, slot * 2 * 3, 2 * 3);
+    }
+
+    /**
+     * Agranda los arrays, duplicando su tamaño, si no caben tantos objetos.
+     * @param objects Número de objetos que tienen que caber.
+     */
+    private void ensureCapacity(int objects) {
+        int capacity = this.elementArray.length / (2 * 3);
+        if (objects <= capacity) {
+            return;
+        }
+
+        capacity = Math.max(objects, capacity * 2);
+        this.vertexArray = Arrays.copyOf(this.vertexArray, this.vertexSize * capacity * 4);
+        this.elementArray = Arrays.copyOf(this.elementArray, capacity * 2 * 3);
+    }
+
+    /**
+     * @return Número de posiciones del array de vértices que ocupan los objetos del mesh.
+     */
+    @Override
+    protected int getVertexValuesCount() {
+        return this.elementsCount * this.vertexSize;
+    }
+
+    /**
+     * @return Número de posiciones del array de elementos que ocupan los objetos del mesh.
+     */
+    @Override
+    protected int getElementsCount() {
+        return this.previousElementArrayPos;
+    }
+
+    /**
+     * Quita todos los objetos del mesh, sin cambiar su capacidad. Hay que volver a cargarlo para que se vea el cambio.
+     */
+    public void clear() {
+        this.elementsCount = 0;
+        this.previousElementArrayPos = 0;
+        this.FREE_SLOTS.clear();
     }
 
     /**
@@ -3,28 +3,27 @@ package utils.render.scene;
 import listener.MouseListener;
 import main.Main;
 import org.joml.Matrix4f;
+import ui.DebugOverlay;
 import ui.Inventory;
 import ui.widget.SeparatorWidget;
 import ui.widget.SlotWidget;
 import ui.widget.TextWidget;
-import utils.Time;
 import utils.render.Window;
 import utils.render.mesh.*;
 import org.joml.Vector2f;
 import org.lwjgl.opengl.*;
 import utils.render.Camera;
 import utils.render.Shader;
-import utils.render.texture.Graphics2dTexture;
+import utils.render.VisibleChunks;
 import utils.render.texture.StaticTexture;
 import utils.render.texture.Texture;
 import world.WorldGenerator;
+import world.WorldSnapshot;
 import world.entity.Entity;
 import world.feature.Feature;
 import world.location.Location;
 import world.terrain.Terrain;
 
-import java.awt.*;
-
 /**
  * Escena encargada de renderizar el mundo.
  *
@@ -46,6 +45,9 @@ public class WorldScene extends Scene {
      */
     private static final Texture MOUSE_TEXTURE = new StaticTexture("assets/textures/ui/selector.png");
 
+    private static final Feature.FeatureType[] FEATURE_TYPES = Feature.FeatureType.values();
+    private static final Entity.EntityType[] ENTITY_TYPES = Entity.EntityType.values();
+
     /**
      * <code>Mesh</code> anónimo utilizado para el selector del ratón.
      * @see Mesh
@@ -53,22 +55,30 @@ public class WorldScene extends Scene {
     private final MouseSelectionMesh MOUSE_SELECTION_MESH = new MouseSelectionMesh(3, 2);
 
     /**
-     * Mesh utilizado para dibujar el HUD.
+     * Batch en el que se acumulan los rectángulos del HUD para dibujarlos juntos.
+     */
+    private final SpriteBatch HUD_BATCH = new SpriteBatch();
+
+    /**
+     * Matrices del HUD. La proyección se actualiza en cada frame con el tamaño de la ventana, sin crear otra matriz.
      */
-    private final HUDMesh HUD_MESH = new HUDMesh();
+    private final Matrix4f HUD_PROJECTION = new Matrix4f(), HUD_VIEW = new Matrix4f();
 
     /**
      * Inventario del jugador en la escena.
      */
     private final Inventory INVENTORY = new Inventory();
 
+    /**
+     * Pantalla de debug, que se dibuja cuando el modo debug está activado.
+     */
+    private final DebugOverlay DEBUG_OVERLAY = new DebugOverlay();
+
     @Override
     public void init() {
         new WorldGenerator(Main.WORLD, this).run();
         drawTerrain();
 
-        HUD_MESH.load();
-
         WorldScene.CAMERA.moveCamera(new Vector2f((float) Main.WORLD.getSize() / 2));
 
         //Generamos la estructura de widgets del inventario.
@@ -86,8 +96,8 @@ public class WorldScene extends Scene {
         int sizeX = 1, sizeY = 1;
         Feature selectedFeature = new Location(x, y).getFeature();
         if (selectedFeature != null) {
-            x = (int) selectedFeature.getLocation().getX();
-            y = (int) selectedFeature.getLocation().getY();
+            x = (int) Math.floor(selectedFeature.getLocation().getX());
+            y = (int) Math.floor(selectedFeature.getLocation().getY());
             sizeX = selectedFeature.getSize().x();
             sizeY = selectedFeature.getSize().y();
         }
@@ -100,13 +110,11 @@ public class WorldScene extends Scene {
      * Sube a la <code>GPU</code> el terreno del mundo.
      */
     public void drawTerrain() {
-        for (Terrain.TerrainType terrainType: Terrain.TerrainType.values()) {
-            terrainType.getMesh().load();
-        }
-        for (Feature.FeatureType featureType: Feature.FeatureType.values()) {
+        Terrain.MESH.load();
+        for (Feature.FeatureType featureType: WorldScene.FEATURE_TYPES) {
             featureType.getMesh().load();
         }
-        for (Entity.EntityType entityType: Entity.EntityType.values()) {
+        for (Entity.EntityType entityType: WorldScene.ENTITY_TYPES) {
             entityType.getMesh().load();
         }
     }
@@ -124,127 +132,82 @@ public class WorldScene extends Scene {
         GL20.glEnable(GL20.GL_BLEND);
         GL20.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
 
+        //Sólo se dibujan los chunks que se ven en pantalla.
+        VisibleChunks visibleChunks = CAMERA.getVisibleChunks();
+
+        //Dibujamos el terreno: todos los tipos a la vez, con el atlas.
+        Shader.TERRAIN.use();
+        Shader.TERRAIN.PROJECTION.uploadMatrix4f(CAMERA.getProjectionMatrix());
+        Shader.TERRAIN.VIEW.uploadMatrix4f(CAMERA.getViewMatrix());
+        Shader.TERRAIN.DAYLIGHT.uploadFloat((float) Main.WORLD.getDayLight());
+        Shader.TERRAIN.REGIONS.upload4fv(Terrain.TerrainType.getAtlasRegions());
+        Shader.TERRAIN.TEXTURE_SAMPLER.uploadInt(0);
+        GL20.glActiveTexture(GL20.GL_TEXTURE0);
+        Terrain.ATLAS.bind();
+        Terrain.MESH.draw(visibleChunks);
+        Texture.unbind();
+
         //Activamos el shader y subimos variables uniform al shader .glsl
         Shader.WORLD.use();
-        Shader.WORLD.uploadMatrix4f("uProjection", CAMERA.getProjectionMatrix());
-        Shader.WORLD.uploadMatrix4f("uView", CAMERA.getViewMatrix());
-        Shader.WORLD.uploadFloat("uDaylight", (float) Main.WORLD.getDayLight());
-
-        //Dibujamos el terreno.
-        for (Terrain.TerrainType terrainType: Terrain.TerrainType.values()) {
-            Shader.WORLD.uploadInt("texture_sampler", 0);
-            GL20.glActiveTexture(GL20.GL_TEXTURE0);
-
-            terrainType.getTexture().bind();
-            terrainType.getMesh().draw();
-            Texture.unbind();
-        }
+        Shader.WORLD.PROJECTION.uploadMatrix4f(CAMERA.getProjectionMatrix());
+        Shader.WORLD.VIEW.uploadMatrix4f(CAMERA.getViewMatrix());
+        Shader.WORLD.DAYLIGHT.uploadFloat((float) Main.WORLD.getDayLight());
 
         //Dibujamos las features.
-        for (Feature.FeatureType featureType: Feature.FeatureType.values()) {
-            Shader.WORLD.uploadInt("texture_sampler", 0);
+        for (Feature.FeatureType featureType: WorldScene.FEATURE_TYPES) {
+            Shader.WORLD.TEXTURE_SAMPLER.uploadInt(0);
             GL20.glActiveTexture(GL20.GL_TEXTURE0);
             featureType.getTexture().bind();
 
-            featureType.getMesh().draw();
+            featureType.getMesh().draw(visibleChunks);
             Texture.unbind();
         }
 
-        //Dibujamos las entidades.
+        //Dibujamos las entidades, interpolando entre los dos últimos ticks de la simulación.
+        WorldSnapshot snapshot = Main.WORLD.getSnapshot();
+        float interpolation = snapshot.getInterpolation(System.nanoTime());
         Shader.ENTITY.use();
-        Shader.ENTITY.uploadMatrix4f("uProjection", CAMERA.getProjectionMatrix());
-        Shader.ENTITY.uploadMatrix4f("uView", CAMERA.getViewMatrix());
-        for (Entity.EntityType entityType: Entity.EntityType.values()) {
-            Shader.ENTITY.uploadInt("texture_sampler", 0);
+        Shader.ENTITY.PROJECTION.uploadMatrix4f(CAMERA.getProjectionMatrix());
+        Shader.ENTITY.VIEW.uploadMatrix4f(CAMERA.getViewMatrix());
+        for (Entity.EntityType entityType: WorldScene.ENTITY_TYPES) {
+            Shader.ENTITY.TEXTURE_SAMPLER.uploadInt(0);
             GL20.glActiveTexture(GL20.GL_TEXTURE0);
             entityType.getTexture().bind();
 
-            if (Main.WORLD.getEntitiesMap().containsKey(entityType)) for (Entity entity: Main.WORLD.getEntitiesMap().get(entityType)) {
-                Shader.ENTITY.upload2f("uInstancePosition", entity.getLocation().getX() * WorldScene.SPRITE_SIZE, entity.getLocation().getY() * WorldScene.SPRITE_SIZE);
-                entityType.getMesh().draw();
-            }
+            //Todas las entidades del tipo se dibujan en una sola llamada.
+            entityType.getMesh().setInstances(snapshot.getPreviousPositions(entityType), snapshot.getPositions(entityType),
+                    snapshot.getEntitiesCount(entityType), interpolation);
+            entityType.getMesh().draw();
             Texture.unbind();
         }
 
         //Dibujamos el selector del ratón
         if (!MouseListener.inGameLocation.isOutOfTheWorld()) {
             Shader.WORLD.use();
-            Shader.WORLD.uploadMatrix4f("uProjection", CAMERA.getProjectionMatrix());
-            Shader.WORLD.uploadMatrix4f("uView", CAMERA.getViewMatrix());
-            Shader.WORLD.uploadInt("texture_sampler", 0);
+            Shader.WORLD.PROJECTION.uploadMatrix4f(CAMERA.getProjectionMatrix());
+            Shader.WORLD.VIEW.uploadMatrix4f(CAMERA.getViewMatrix());
+            Shader.WORLD.TEXTURE_SAMPLER.uploadInt(0);
             GL20.glActiveTexture(GL20.GL_TEXTURE0);
             WorldScene.MOUSE_TEXTURE.bind();
             this.MOUSE_SELECTION_MESH.draw();
             Texture.unbind();
         }
 
+        //El texto utiliza las mismas matrices que el HUD.
+        this.HUD_PROJECTION.setOrtho(0, Window.getWidth(), Window.getHeight(), 0, -1, 1);
+        Shader.TEXT.use();
+        Shader.TEXT.PROJECTION.uploadMatrix4f(this.HUD_PROJECTION);
+        Shader.TEXT.VIEW.uploadMatrix4f(this.HUD_VIEW);
+
         Shader.HUD.use();
-        Shader.HUD.uploadMatrix4f("uProjection", new Matrix4f().ortho(0, Window.getWidth(), Window.getHeight(), 0, -1, 1));
-        Shader.HUD.uploadMatrix4f("uView", new Matrix4f().identity());
+        Shader.HUD.PROJECTION.uploadMatrix4f(this.HUD_PROJECTION);
+        Shader.HUD.VIEW.uploadMatrix4f(this.HUD_VIEW);
 
-        //Generamos la pantalla de debug
+        //Dibujamos la pantalla de debug
         if (Main.isDebugging) {
-            Shader.HUD.upload2f("uHudPosition", 0, 0);
-            Shader.HUD.upload2f("uHudSize", Window.getWidth() /2f, Window.getHeight());
-            Shader.HUD.uploadInt("texture_sampler", 0);
-            GL20.glActiveTexture(GL20.GL_TEXTURE0);
-            String debug = String.format("""
-                            game:
-                                fps=%d
-                            
-                            selection:
-                                x=%.2f, y=%.2f
-                            %s
-                                            
-                            camera:
-                                x=%.2f, y=%.2f
-                                zoom=%s
-                            
-                            world:
-                                seed=%d
-                                daytime=%d
-                                features = %d, entities = %d
-                            """,
-                    (int) (1/ Time.nanosecondsToSeconds(dTime)),
-                    MouseListener.inGameLocation.getX(),
-                    MouseListener.inGameLocation.getY(),
-                    MouseListener.inGameLocation.isOutOfTheWorld() ? "    OutOfTheWorld" : String.format("""
-                                        terrain: %s type=%s
-                                        %s
-                                        biome=%s
-                                        wordBuilder: c=%.4f,w=%.4f,r=%.4f
-                                    """,
-                            MouseListener.inGameLocation.getTerrain(),
-                            MouseListener.inGameLocation.getTerrain().getType(),
-                            MouseListener.inGameLocation.getFeature() == null ? "feature: null" : String.format("feature: %s type=%s",
-                                    MouseListener.inGameLocation.getFeature(),
-                                    MouseListener.inGameLocation.getFeature().getFeatureType()),
-                            MouseListener.inGameLocation.getTerrain().getBiome(),
-                            MouseListener.inGameLocation.getTerrain().getContinentalityNoise(),
-                            MouseListener.inGameLocation.getTerrain().getWeirdnessNoise(),
-                            MouseListener.inGameLocation.getTerrain().getRiversNoise()),
-                    WorldScene.CAMERA.getCameraPosition().x(),
-                    WorldScene.CAMERA.getCameraPosition().y(),
-                    WorldScene.CAMERA.getZoom(),
-                    Main.WORLD.getSeed(),
-                    Main.WORLD.getDayTime(),
-                    Main.WORLD.getFeaturesCount(),
-                    Main.WORLD.getEntitiesCount());
-            Graphics2dTexture texture = new Graphics2dTexture(Window.getWidth() / 2, Window.getHeight());
-            Graphics2D graphics2D = texture.getGraphics();
-            int posY = 10;
-            for (String debugLine : debug.split("\n")) {
-                graphics2D.drawString(debugLine, 0, posY);
-                posY += graphics2D.getFontMetrics().getHeight();
-            }
-
-            texture.convert();
-            texture.bind();
-            this.HUD_MESH.draw();
-            texture.remove();
-            Texture.unbind();
+            this.DEBUG_OVERLAY.draw(dTime);
         }
-        this.INVENTORY.draw(this.HUD_MESH);
+        this.INVENTORY.draw(this.HUD_BATCH);
 
         Shader.detach();
     }
@@ -0,0 +1,111 @@
+package utils.render.texture;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Coloca rectángulos (las imágenes de un atlas de texturas) dentro de un rectángulo más grande, por estanterías: las
+ * imágenes se ordenan de más alta a más baja y se colocan de izquierda a derecha en filas, abriendo una fila nueva
+ * cuando no caben en la actual.
+ * <br>Sólo trabaja con tamaños, sin cargar imágenes ni utilizar <code>OpenGL</code>.
+ * @see TextureAtlas
+ */
+public class AtlasPacker {
+    private final int WIDTH, HEIGHT;
+    private final int[] X, Y, WIDTHS, HEIGHTS;
+
+    private AtlasPacker(int width, int height, int[] x, int[] y, int[] widths, int[] heights) {
+        this.WIDTH = width;
+        this.HEIGHT = height;
+        this.X = x;
+        this.Y = y;
+        this.WIDTHS = widths;
+        this.HEIGHTS = heights;
+    }
+
+    /**
+     * Coloca las imágenes en el atlas más pequeño posible con lados potencia de 2.
+     * @param widths Ancho de cada imagen, en píxeles.
+     * @param heights Alto de cada imagen, en píxeles.
+     * @param padding Píxeles que se dejan alrededor de cada imagen, para que no se mezclen con las de al lado al dibujarlas.
+     * @return La posición de cada imagen, en el mismo orden.
+     */
+    public static AtlasPacker pack(int[] widths, int[] heights, int padding) {
+        Integer[] order = new Integer[widths.length];
+        int[] x = new int[widths.length], y = new int[widths.length];
+        long area = 0;
+        int width = 1, maxWidth = 0, shelfX = 0, shelfY = 0, shelfHeight = 0, image;
+
+        if (widths.length != heights.length) {
+            throw new IllegalArgumentException("Tiene que haber el mismo número de anchos que de altos");
+        }
+
+        for (image = 0; image < widths.length; image++) {
+            order[image] = image;
+            area += (long) (widths[image] + 2 * padding) * (heights[image] + 2 * padding);
+            maxWidth = Math.max(maxWidth, widths[image] + 2 * padding);
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer index) -> heights[index]).reversed());
+
+        //El ancho es la primera potencia de 2 en la que cabe la imagen más ancha y en la que el atlas sale más o menos cuadrado.
+        while (width < maxWidth || (long) width * width < area) {
+            width *= 2;
+        }
+
+        for (int index: order) {
+            int paddedWidth = widths[index] + 2 * padding, paddedHeight = heights[index] + 2 * padding;
+            if (shelfX + paddedWidth > width) {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+
+            x[index] = shelfX + padding;
+            y[index] = shelfY + padding;
+            shelfX += paddedWidth;
+            shelfHeight = Math.max(shelfHeight, paddedHeight);
+        }
+
+        return new AtlasPacker(width, Integer.highestOneBit(Math.max(1, shelfY + shelfHeight) *2 -1), x, y,
+                widths.clone(), heights.clone());
+    }
+
+    public int getWidth() {
+        return this.WIDTH;
+    }
+
+    public int getHeight() {
+        return this.HEIGHT;
+    }
+
+    /**
+     * @return Posición de la esquina superior izquierda de la imagen en el eje X, en píxeles, sin contar el margen.
+     */
+    public int getX(int image) {
+        return this.X[image];
+    }
+
+    /**
+     * @return Posición de la esquina superior izquierda de la imagen en el eje Y, en píxeles, sin contar el margen.
+     */
+    public int getY(int image) {
+        return this.Y[image];
+    }
+
+    /**
+     * Escribe las coordenadas UV de una imagen dentro del atlas: <code>u</code> y <code>v</code> de la esquina superior
+     * izquierda seguidas de las de la esquina inferior derecha.
+     * @param offset Posición del array desde la que se escriben las 4 coordenadas.
+     */
+    public void getRegion(int image, float[] region, int offset) {
+        region[offset] = (float) this.X[image] / this.WIDTH;
+        region[offset +1] = (float) this.Y[image] / this.HEIGHT;
+        region[offset +2] = (float) (this.X[image] + this.WIDTHS[image]) / this.WIDTH;
+        region[offset +3] = (float) (this.Y[image] + this.HEIGHTS[image]) / this.HEIGHT;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AtlasPacker(images=%d,width=%d,height=%d)", this.X.length, this.WIDTH, this.HEIGHT);
+    }
+}
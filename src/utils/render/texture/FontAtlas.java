@@ -0,0 +1,157 @@
+package utils.render.texture;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.stb.STBTTBakedChar;
+import org.lwjgl.stb.STBTTFontinfo;
+import org.lwjgl.stb.STBTruetype;
+import org.lwjgl.system.MemoryStack;
+import utils.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Textura que contiene todos los glifos de una fuente .ttf, horneados una sola vez con <code>STBTruetype</code>. El texto
+ * se dibuja con rectángulos que apuntan a los glifos del atlas, así que cambiar el texto no vuelve a subir la textura.
+ * <br>La textura sólo tiene un canal, la cobertura de cada pixel, que el shader <code>TEXT</code> utiliza como
+ * transparencia.
+ * @see GlyphLayout
+ */
+public class FontAtlas extends Texture implements CacheTexture {
+    /**
+     * Fuente que utiliza la interfaz.
+     */
+    public static final FontAtlas DEFAULT = new FontAtlas("assets/font/arial.ttf", 32);
+
+    /**
+     * Caracteres que se hornean: ASCII imprimible y Latin-1, para poder escribir en español.
+     */
+    private static final int FIRST_CHAR = 32, LAST_CHAR = 255;
+
+    /**
+     * Lado máximo del atlas, en píxeles. Si los glifos no caben se hornean sólo los que quepan.
+     */
+    private static final int MAX_SIZE = 4096;
+
+    private final String PATH;
+
+    /**
+     * Altura de los glifos en el atlas, en píxeles.
+     */
+    private final float PIXEL_HEIGHT;
+
+    /**
+     * Identificador numérico de la textura.
+     */
+    private int textureId;
+
+    /**
+     * Medidas de los glifos horneados, o <code>null</code> si todavía no se ha inicializado la textura.
+     */
+    private GlyphLayout glyphLayout;
+
+    /**
+     * @param path Ruta al archivo .ttf de la fuente.
+     * @param pixelHeight Altura de los glifos en el atlas, en píxeles.
+     */
+    public FontAtlas(String path, float pixelHeight) {
+        this.PATH = path;
+        this.PIXEL_HEIGHT = pixelHeight;
+    }
+
+    /**
+     * @return Las medidas de los glifos, o <code>null</code> si todavía no se ha inicializado la textura.
+     */
+    public GlyphLayout getGlyphLayout() {
+        return this.glyphLayout;
+    }
+
+    @Override
+    public void init() {
+        int charsCount = FontAtlas.LAST_CHAR - FontAtlas.FIRST_CHAR + 1, size = 128, bakedRows;
+        int[] bounds = new int[charsCount * 4];
+        float[] metrics = new float[charsCount * 3];
+        ByteBuffer font, bitmap;
+
+        try {
+            byte[] bytes = Files.readAllBytes(Paths.get(this.PATH));
+            font = BufferUtils.createByteBuffer(bytes.length).put(bytes).flip();
+        } catch (IOException exception) {
+            Logger.sendMessage("No se ha podido cargar la fuente '%s'.", Logger.LogMessageType.WARNING, this.PATH);
+            return;
+        }
+
+        try (MemoryStack stack = MemoryStack.stackPush();
+             STBTTBakedChar.Buffer bakedChars = STBTTBakedChar.malloc(charsCount)) {
+            STBTTFontinfo fontInfo = STBTTFontinfo.malloc(stack);
+            IntBuffer ascent = stack.mallocInt(1), descent = stack.mallocInt(1), lineGap = stack.mallocInt(1);
+            float scale;
+
+            if (!STBTruetype.stbtt_InitFont(fontInfo, font)) {
+                Logger.sendMessage("La fuente '%s' no es válida.", Logger.LogMessageType.WARNING, this.PATH);
+                return;
+            }
+            STBTruetype.stbtt_GetFontVMetrics(fontInfo, ascent, descent, lineGap);
+            scale = STBTruetype.stbtt_ScaleForPixelHeight(fontInfo, this.PIXEL_HEIGHT);
+
+            //Agrandamos el atlas hasta que quepan todos los glifos.
+            do {
+                size *= 2;
+                bitmap = BufferUtils.createByteBuffer(size * size);
+                bakedRows = STBTruetype.stbtt_BakeFontBitmap(font, this.PIXEL_HEIGHT, bitmap, size, size, FontAtlas.FIRST_CHAR, bakedChars);
+            } while (bakedRows <= 0 && size < FontAtlas.MAX_SIZE);
+            if (bakedRows <= 0) {
+                Logger.sendMessage("Los glifos de la fuente '%s' no caben en el atlas.", Logger.LogMessageType.WARNING, this.PATH);
+            }
+
+            for (int glyph = 0; glyph < charsCount; glyph++) {
+                STBTTBakedChar bakedChar = bakedChars.get(glyph);
+                bounds[glyph * 4] = bakedChar.x0();
+                bounds[glyph * 4 +1] = bakedChar.y0();
+                bounds[glyph * 4 +2] = bakedChar.x1();
+                bounds[glyph * 4 +3] = bakedChar.y1();
+                metrics[glyph * 3] = bakedChar.xoff();
+                metrics[glyph * 3 +1] = bakedChar.yoff();
+                metrics[glyph * 3 +2] = bakedChar.xadvance();
+            }
+            this.glyphLayout = new GlyphLayout(FontAtlas.FIRST_CHAR, size, size, ascent.get(0) * scale,
+                    (ascent.get(0) - descent.get(0) + lineGap.get(0)) * scale, bounds, metrics);
+        }
+
+        this.textureId = GL20.glGenTextures();
+        GL20.glBindTexture(GL20.GL_TEXTURE_2D, this.textureId);
+        List.of(GL20.GL_TEXTURE_WRAP_S, GL20.GL_TEXTURE_WRAP_T).forEach(textureRepeatDirection -> GL20.glTexParameteri(GL20.GL_TEXTURE_2D, textureRepeatDirection, GL20.GL_CLAMP_TO_EDGE));
+
+        //Al contrario que los sprites, el texto se suaviza al escalarlo.
+        GL20.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MIN_FILTER, GL20.GL_LINEAR);
+        GL20.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MAG_FILTER, GL20.GL_LINEAR);
+        GL20.glTexImage2D(GL20.GL_TEXTURE_2D, 0, GL30.GL_R8, size, size, 0, GL11.GL_RED, GL20.GL_UNSIGNED_BYTE, bitmap);
+    }
+
+    @Override
+    public void remove() {
+        GL20.glDeleteTextures(this.textureId);
+    }
+
+    @Override
+    public int getTextureId() {
+        return this.textureId;
+    }
+
+    @Override
+    public void bind() {
+        GL20.glBindTexture(GL20.GL_TEXTURE_2D, this.textureId);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FontAtlas(path=%s,pixelHeight=%.1f)", this.PATH, this.PIXEL_HEIGHT);
+    }
+}
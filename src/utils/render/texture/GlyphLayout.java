@@ -0,0 +1,216 @@
+package utils.render.texture;
+
+/**
+ * Coloca los caracteres de un texto usando las medidas de los glifos de una fuente ya horneada en un atlas. Por cada
+ * caracter visible genera un rectángulo (4 vértices y 6 índices) con su posición y las coordenadas UV de su glifo.
+ * <br>Sólo trabaja con medidas, sin cargar la fuente ni utilizar <code>OpenGL</code>, así que se puede probar sin ventana.
+ * <br>Las posiciones están en píxeles de la fuente, con el origen en la esquina superior izquierda del texto y el eje Y
+ * hacia abajo. Cada salto de línea baja <code>getLineHeight</code> píxeles.
+ * @see FontAtlas
+ */
+public class GlyphLayout {
+    /**
+     * Posiciones del <code>vertexArray</code> que ocupa un vértice (posición y coordenadas UV) y un rectángulo.
+     */
+    public static final int VERTEX_SIZE = 4, QUAD_VERTEX_VALUES = 4 * GlyphLayout.VERTEX_SIZE;
+
+    /**
+     * Posiciones del <code>elementArray</code> que ocupa un rectángulo.
+     */
+    public static final int QUAD_ELEMENTS = 6;
+
+    /**
+     * Caracter que se dibuja en lugar de los que no tiene la fuente.
+     */
+    private static final char MISSING_CHAR = '?';
+
+    private final int FIRST_CHAR, ATLAS_WIDTH, ATLAS_HEIGHT;
+    private final float ASCENT, LINE_HEIGHT;
+
+    /**
+     * Rectángulo de cada glifo dentro del atlas, en píxeles: <code>x0</code>, <code>y0</code>, <code>x1</code> y
+     * <code>y1</code>.
+     */
+    private final int[] BOUNDS;
+
+    /**
+     * Medidas de cada glifo, en píxeles: desplazamiento en X y en Y respecto al punto de escritura (la Y respecto a la
+     * línea base) y avance hasta el siguiente caracter.
+     */
+    private final float[] METRICS;
+
+    /**
+     * @param firstChar Primer caracter de la fuente. Los glifos van seguidos a partir de él.
+     * @param atlasWidth Ancho del atlas, en píxeles.
+     * @param atlasHeight Alto del atlas, en píxeles.
+     * @param ascent Distancia desde la parte de arriba de una línea hasta su línea base.
+     * @param lineHeight Distancia entre las líneas base de dos líneas seguidas.
+     * @param bounds Rectángulo de cada glifo en el atlas: 4 posiciones por glifo.
+     * @param metrics Desplazamiento en X, desplazamiento en Y y avance de cada glifo: 3 posiciones por glifo.
+     */
+    public GlyphLayout(int firstChar, int atlasWidth, int atlasHeight, float ascent, float lineHeight, int[] bounds, float[] metrics) {
+        if (bounds.length / 4 != metrics.length / 3) {
+            throw new IllegalArgumentException("Tiene que haber el mismo número de rectángulos que de medidas");
+        }
+
+        this.FIRST_CHAR = firstChar;
+        this.ATLAS_WIDTH = atlasWidth;
+        this.ATLAS_HEIGHT = atlasHeight;
+        this.ASCENT = ascent;
+        this.LINE_HEIGHT = lineHeight;
+        this.BOUNDS = bounds;
+        this.METRICS = metrics;
+    }
+
+    /**
+     * @return Número de rectángulos que genera el texto. Los espacios y saltos de línea no generan ninguno.
+     */
+    public int getQuadsCount(CharSequence text) {
+        int quadsCount = 0;
+
+        for (int index = 0; index < text.length(); index++) {
+            if (this.isVisible(this.getGlyph(text.charAt(index)))) {
+                quadsCount++;
+            }
+        }
+        return quadsCount;
+    }
+
+    /**
+     * Escribe los rectángulos del texto desde el principio de los arrays. Cada vértice tiene la posición en X e Y y las
+     * coordenadas UV, y los índices de cada rectángulo forman dos triángulos.
+     * @param vertices Array en el que caben <code>getQuadsCount * QUAD_VERTEX_VALUES</code> posiciones.
+     * @param elements Array en el que caben <code>getQuadsCount * QUAD_ELEMENTS</code> posiciones, o <code>null</code>
+     *                 si sólo se necesitan los vértices.
+     * @return Número de rectángulos escritos.
+     */
+    public int layout(CharSequence text, float[] vertices, int[] elements) {
+        float penX = 0, baseline = this.ASCENT;
+        int quadsCount = 0;
+
+        for (int index = 0; index < text.length(); index++) {
+            char character = text.charAt(index);
+            int glyph;
+
+            if (character == '\n') {
+                penX = 0;
+                baseline += this.LINE_HEIGHT;
+                continue;
+            }
+
+            glyph = this.getGlyph(character);
+            if (glyph < 0) {
+                continue;
+            }
+
+            if (this.isVisible(glyph)) {
+                this.writeQuad(glyph, quadsCount, (float) Math.floor(penX + this.METRICS[glyph * 3] + 0.5f),
+                        (float) Math.floor(baseline + this.METRICS[glyph * 3 +1] + 0.5f), vertices, elements);
+                quadsCount++;
+            }
+            penX += this.METRICS[glyph * 3 +2];
+        }
+        return quadsCount;
+    }
+
+    /**
+     * Escribe los vértices y los índices de un glifo, con su esquina superior izquierda en la posición indicada.
+     */
+    private void writeQuad(int glyph, int quad, float posX, float posY, float[] vertices, int[] elements) {
+        int vertex = quad * GlyphLayout.QUAD_VERTEX_VALUES, element = quad * GlyphLayout.QUAD_ELEMENTS, firstVertex = quad * 4;
+        int x0 = this.BOUNDS[glyph * 4], y0 = this.BOUNDS[glyph * 4 +1], x1 = this.BOUNDS[glyph * 4 +2], y1 = this.BOUNDS[glyph * 4 +3];
+        float u0 = (float) x0 / this.ATLAS_WIDTH, v0 = (float) y0 / this.ATLAS_HEIGHT,
+                u1 = (float) x1 / this.ATLAS_WIDTH, v1 = (float) y1 / this.ATLAS_HEIGHT;
+
+        GlyphLayout.writeVertex(vertices, vertex, posX, posY, u0, v0);
+        GlyphLayout.writeVertex(vertices, vertex + GlyphLayout.VERTEX_SIZE, posX + x1 - x0, posY, u1, v0);
+        GlyphLayout.writeVertex(vertices, vertex + 2 * GlyphLayout.VERTEX_SIZE, posX + x1 - x0, posY + y1 - y0, u1, v1);
+        GlyphLayout.writeVertex(vertices, vertex + 3 * GlyphLayout.VERTEX_SIZE, posX, posY + y1 - y0, u0, v1);
+
+        if (elements == null) {
+            return;
+        }
+        elements[element] = firstVertex;
+        elements[element +1] = firstVertex +1;
+        elements[element +2] = firstVertex +2;
+        elements[element +3] = firstVertex +2;
+        elements[element +4] = firstVertex +3;
+        elements[element +5] = firstVertex;
+    }
+
+    private static void writeVertex(float[] vertices, int offset, float posX, float posY, float u, float v) {
+        vertices[offset] = posX;
+        vertices[offset +1] = posY;
+        vertices[offset +2] = u;
+        vertices[offset +3] = v;
+    }
+
+    /**
+     * @return Ancho de la línea más larga del texto, en píxeles de la fuente.
+     */
+    public float getWidth(CharSequence text) {
+        float width = 0, lineWidth = 0;
+
+        for (int index = 0; index < text.length(); index++) {
+            char character = text.charAt(index);
+            int glyph;
+
+            if (character == '\n') {
+                width = Math.max(width, lineWidth);
+                lineWidth = 0;
+            } else if ((glyph = this.getGlyph(character)) >= 0) {
+                lineWidth += this.METRICS[glyph * 3 +2];
+            }
+        }
+        return Math.max(width, lineWidth);
+    }
+
+    /**
+     * @return Alto del texto, en píxeles de la fuente: una altura de línea por cada línea.
+     */
+    public float getHeight(CharSequence text) {
+        int lines = 1;
+
+        for (int index = 0; index < text.length(); index++) {
+            if (text.charAt(index) == '\n') {
+                lines++;
+            }
+        }
+        return lines * this.LINE_HEIGHT;
+    }
+
+    public float getAscent() {
+        return this.ASCENT;
+    }
+
+    public float getLineHeight() {
+        return this.LINE_HEIGHT;
+    }
+
+    /**
+     * @return Índice del glifo del caracter, el de <code>MISSING_CHAR</code> si la fuente no lo tiene, o <code>-1</code>
+     * si tampoco tiene ese.
+     */
+    private int getGlyph(char character) {
+        int glyphsCount = this.METRICS.length / 3, glyph = character - this.FIRST_CHAR;
+
+        if (glyph >= 0 && glyph < glyphsCount) {
+            return glyph;
+        }
+        glyph = GlyphLayout.MISSING_CHAR - this.FIRST_CHAR;
+        return character != '\n' && glyph >= 0 && glyph < glyphsCount ? glyph : -1;
+    }
+
+    /**
+     * @return Si el glifo tiene píxeles que dibujar.
+     */
+    private boolean isVisible(int glyph) {
+        return glyph >= 0 && this.BOUNDS[glyph * 4 +2] > this.BOUNDS[glyph * 4] && this.BOUNDS[glyph * 4 +3] > this.BOUNDS[glyph * 4 +1];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GlyphLayout(glyphs=%d,atlasWidth=%d,atlasHeight=%d,lineHeight=%.1f)",
+                this.METRICS.length / 3, this.ATLAS_WIDTH, this.ATLAS_HEIGHT, this.LINE_HEIGHT);
+    }
+}
@@ -0,0 +1,125 @@
+package utils.render.texture;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.stb.STBImage;
+import utils.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Textura que junta varias imágenes .png en una sola, para poder dibujar objetos con texturas distintas en una sola
+ * llamada. Cada imagen ocupa una región del atlas, cuyas coordenadas UV se obtienen con <code>getRegion</code>.
+ * <br>Cada imagen se rodea con un margen de <code>PADDING</code> píxeles que repite su borde, para que al girar o
+ * escalar la textura no se vean los píxeles de la imagen de al lado.
+ * @see AtlasPacker
+ */
+public class TextureAtlas extends Texture implements CacheTexture {
+    private static final int PADDING = 1;
+
+    /**
+     * Ruta de cada una de las imágenes del atlas.
+     */
+    private final String[] PATHS;
+
+    /**
+     * Coordenadas UV de cada imagen: 4 posiciones por imagen.
+     * @see AtlasPacker#getRegion(int, float[], int)
+     */
+    private final float[] REGIONS;
+
+    /**
+     * Identificador numérico de la textura.
+     */
+    private int textureId;
+
+    /**
+     * @param paths Rutas a los archivos .png de las imágenes. El índice de cada imagen es su posición en el array.
+     */
+    public TextureAtlas(String... paths) {
+        this.PATHS = paths;
+        this.REGIONS = new float[paths.length * 4];
+    }
+
+    /**
+     * Escribe las coordenadas UV de una imagen del atlas. Hasta que no se inicializa la textura son todas 0.
+     * @param offset Posición del array desde la que se escriben las 4 coordenadas.
+     */
+    public void getRegion(int image, float[] region, int offset) {
+        System.arraycopy(this.REGIONS, image * 4, region, offset, 4);
+    }
+
+    @Override
+    public void init() {
+        ByteBuffer[] images = new ByteBuffer[this.PATHS.length];
+        int[] widths = new int[this.PATHS.length], heights = new int[this.PATHS.length];
+        IntBuffer width = BufferUtils.createIntBuffer(1), height = BufferUtils.createIntBuffer(1), channels = BufferUtils.createIntBuffer(1);
+        AtlasPacker packer;
+        ByteBuffer atlas;
+
+        //Cargamos todas las imágenes con 4 canales, aunque el archivo tenga 3.
+        for (int image = 0; image < this.PATHS.length; image++) {
+            images[image] = STBImage.stbi_load(this.PATHS[image], width, height, channels, 4);
+            if (images[image] == null) {
+                Logger.sendMessage("No se ha podido cargar la textura '%s'.", Logger.LogMessageType.WARNING, this.PATHS[image]);
+                continue;
+            }
+            widths[image] = width.get(0);
+            heights[image] = height.get(0);
+        }
+
+        packer = AtlasPacker.pack(widths, heights, TextureAtlas.PADDING);
+        atlas = BufferUtils.createByteBuffer(packer.getWidth() * packer.getHeight() * 4);
+        for (int image = 0; image < this.PATHS.length; image++) {
+            if (images[image] != null) {
+                TextureAtlas.copyImage(images[image], widths[image], heights[image], atlas, packer, image);
+                STBImage.stbi_image_free(images[image]);
+            }
+            packer.getRegion(image, this.REGIONS, image * 4);
+        }
+
+        this.textureId = GL20.glGenTextures();
+        GL20.glBindTexture(GL20.GL_TEXTURE_2D, this.textureId);
+        List.of(GL20.GL_TEXTURE_WRAP_S, GL20.GL_TEXTURE_WRAP_T).forEach(textureRepeatDirection -> GL20.glTexParameteri(GL20.GL_TEXTURE_2D, textureRepeatDirection, GL20.GL_CLAMP_TO_EDGE));
+        GL20.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MIN_FILTER, GL20.GL_NEAREST);
+        GL20.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MAG_FILTER, GL20.GL_NEAREST);
+        GL20.glTexImage2D(GL20.GL_TEXTURE_2D, 0, GL20.GL_RGBA, packer.getWidth(), packer.getHeight(), 0, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, atlas);
+    }
+
+    /**
+     * Copia una imagen en su posición del atlas, junto con el margen, que repite los píxeles del borde.
+     */
+    private static void copyImage(ByteBuffer image, int width, int height, ByteBuffer atlas, AtlasPacker packer, int index) {
+        int originX = packer.getX(index), originY = packer.getY(index);
+
+        for (int y = -TextureAtlas.PADDING; y < height + TextureAtlas.PADDING; y++)
+            for (int x = -TextureAtlas.PADDING; x < width + TextureAtlas.PADDING; x++) {
+                int source = (Math.max(0, Math.min(y, height -1)) * width + Math.max(0, Math.min(x, width -1))) * 4,
+                        target = ((originY + y) * packer.getWidth() + originX + x) * 4;
+                atlas.putInt(target, image.getInt(source));
+            }
+    }
+
+    @Override
+    public void remove() {
+        GL20.glDeleteTextures(this.textureId);
+    }
+
+    @Override
+    public int getTextureId() {
+        return this.textureId;
+    }
+
+    @Override
+    public void bind() {
+        GL20.glBindTexture(GL20.GL_TEXTURE_2D, this.textureId);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TextureAtlas(paths=%s)", Arrays.toString(this.PATHS));
+    }
+}
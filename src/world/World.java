@@ -2,120 +2,711 @@ package world;
 
 import main.Main;
 import utils.Logger;
+import utils.render.scene.WorldScene;
+import world.chunk.Chunk;
 import world.entity.Entity;
+import world.entity.EntityStore;
 import world.feature.Bush;
 import world.feature.Feature;
+import world.feature.FeatureIndex;
 import world.feature.Tree;
 import world.location.Location;
+import world.pathfinding.PathfindingService;
+import world.storage.WorldStorage;
 import world.terrain.Terrain;
 import world.worldBuilder.Biome;
 import world.worldBuilder.WorldBuilder;
 
+import java.io.IOException;
 import java.util.*;
-
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mundo del juego. Es a la vez el hilo de simulación: una vez iniciado ejecuta <code>onTick</code> a un ritmo fijo de
+ * <code>TICKS_PER_SECOND</code>, sin depender de los fps, y al terminar cada tick publica un <code>WorldSnapshot</code>
+ * que lee el renderizado.
+ * <br>Los chunks, las features y los meshes siguen perteneciendo al hilo principal, que los actualiza en cada frame con
+ * <code>updateChunks</code>, ya que es el único que puede utilizar <code>OpenGL</code>.
+ */
 public class World extends Thread {
-    private static final Random RANDOM = new Random();
     private static final int DAY_DURATION = 3600, HALF_DAY_DURATION = World.DAY_DURATION / 2;
 
+    /**
+     * Ticks que se simulan por segundo y duración de cada uno, en nanosegundos.
+     */
+    private static final int TICKS_PER_SECOND = 60;
+    private static final long TICK_DURATION = 1_000_000_000L / World.TICKS_PER_SECOND;
+
+    /**
+     * Bit que marca en <code>PUBLISHED_SNAPSHOT</code> que el estado publicado es nuevo.
+     */
+    private static final int FRESH_SNAPSHOT = 1 << 2;
+
+    /**
+     * Número máximo de ticks seguidos que se simulan para recuperar el retraso. Si la simulación va más lenta que eso,
+     * se descarta el resto del retraso en vez de acumularlo.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * Número máximo de chunks que pueden esperar a ser generados en segundo plano. Si la cola está llena se descartan
+     * las peticiones nuevas, que se repetirán la próxima vez que se consulte el chunk.
+     */
+    private static final int GENERATION_QUEUE_CAPACITY = 64;
+    /**
+     * Número máximo de chunks generados en segundo plano que se añaden al mundo en cada tick, para que el tiempo de
+     * cada frame no dependa de cuántos chunks se terminen a la vez.
+     */
+    private static final int MAX_PUBLISHED_CHUNKS_PER_TICK = 4;
+    /**
+     * Distancia extra, en chunks, a la que se tiene que alejar la cámara de un chunk para descargarlo en el modo infinito.
+     * Evita que los chunks del borde se carguen y descarguen continuamente cuando la cámara se mueve alrededor de él.
+     */
+    private static final int UNLOAD_MARGIN = 2;
+    private static final Feature.FeatureType[] FEATURE_TYPES = Feature.FeatureType.values();
+    /**
+     * Hilos en los que se generan los chunks que se piden mientras el juego está en marcha.
+     */
+    private static final ThreadPoolExecutor GENERATION_EXECUTOR = new ThreadPoolExecutor(
+            Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(World.GENERATION_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "ChunkGenerator");
+                thread.setDaemon(true);
+                return thread;
+            });
+
 
     private final int SEED, WORLD_SIZE;
+    /**
+     * Radio, en chunks alrededor de la cámara, que se mantiene cargado en el modo infinito. Es <code>0</code> si el mundo
+     * tiene un tamaño fijo.
+     */
+    private final int LOAD_RADIUS;
     public final WorldBuilder BUILDER;
-    private final Terrain[] TERRAIN;
-    private final Feature[] FEATURES;
-    private final Map<Feature.FeatureType, TreeSet<Feature>> FEATURES_MAP = new TreeMap<>();
-    private final Map<Entity.EntityType, LinkedList<Entity>> ENTITITES_MAP = new HashMap<>();
-    private int dayTime, featuresCount, entitiesCount;
-
+    private final Map<Long, Chunk> CHUNKS = new ConcurrentHashMap<>();
+    private final Map<Feature.FeatureType, FeatureIndex> FEATURES_MAP = new HashMap<>();
+    /**
+     * Entidades del mundo. Una vez iniciada la simulación sólo las utiliza su hilo.
+     */
+    private final EntityStore ENTITIES;
+    private final PathfindingService PATHFINDING;
+    /**
+     * Entidades creadas desde otros hilos, que se añaden al mundo al empezar el siguiente tick.
+     */
+    private final Queue<Entity> SPAWNED_ENTITIES = new ConcurrentLinkedQueue<>();
+    /**
+     * Chunks que ya se han generado en segundo plano pero cuyas features y vértices todavía no se han añadido al mundo.
+     */
+    private final Queue<GeneratedChunk> GENERATED_CHUNKS = new ConcurrentLinkedQueue<>();
+    private int featuresCount;
+    /**
+     * Los escribe el hilo de simulación y los lee el renderizado.
+     */
+    private volatile int dayTime, entitiesCount;
+    /**
+     * Estados que se turnan la simulación y el renderizado (triple buffer): la simulación rellena el suyo,
+     * <code>simulationSnapshot</code>, y lo cambia por el publicado; el renderizado cambia el suyo,
+     * <code>renderSnapshot</code>, por el publicado si es más reciente. Así ninguno espera al otro y ninguno modifica el
+     * del otro.
+     */
+    private final WorldSnapshot[] SNAPSHOTS = {new WorldSnapshot(World.TICK_DURATION), new WorldSnapshot(World.TICK_DURATION),
+            new WorldSnapshot(World.TICK_DURATION)};
+    /**
+     * Índice del estado publicado, más <code>FRESH_SNAPSHOT</code> si el renderizado todavía no lo ha cogido.
+     */
+    private final AtomicInteger PUBLISHED_SNAPSHOT = new AtomicInteger(1);
+    private int renderSnapshot = 0, simulationSnapshot = 2;
+    /**
+     * Chunk en el que estaba el centro de la cámara la última vez que se actualizaron los chunks cargados.
+     */
+    private int streamingCenterX = Integer.MIN_VALUE, streamingCenterY = Integer.MIN_VALUE;
+    /**
+     * Si quedan chunks dentro del radio de carga que no se han podido pedir porque la cola de generación estaba llena.
+     */
+    private boolean streamingPending = false;
+    /**
+     * Carpeta en la que se guarda el mundo, o <code>null</code> si no se guarda.
+     */
+    private WorldStorage storage;
+
+    /**
+     * Crea un mundo de tamaño fijo, que se genera entero al cargar la escena.
+     * @param worldSize Lado del mundo, en casillas.
+     */
     public World(int seed, int worldSize) {
+        super("Simulation");
+        this.setDaemon(true);
         this.SEED = seed;
         this.WORLD_SIZE = worldSize;
-        this.TERRAIN = new Terrain[this.WORLD_SIZE * this.WORLD_SIZE];
-        this.FEATURES = new Feature[this.WORLD_SIZE * this.WORLD_SIZE];
+        this.LOAD_RADIUS = 0;
+        this.BUILDER = new WorldBuilder(this.SEED);
+        this.PATHFINDING = new PathfindingService(new PathfindingTiles());
+        this.ENTITIES = new EntityStore(this.SEED, this::isWalkable, this.PATHFINDING::getDirection);
+    }
+
+    /**
+     * Crea un mundo infinito, en el que sólo están cargados los chunks que hay alrededor de la cámara. En este modo
+     * <code>getSize</code> devuelve el lado del área más grande que puede estar cargada a la vez.
+     * @param loadRadius Radio, en chunks alrededor de la cámara, que se genera y se mantiene cargado.
+     */
+    public static World createInfiniteWorld(int seed, int loadRadius) {
+        return new World(seed, loadRadius, (2 * (loadRadius + World.UNLOAD_MARGIN) +1) * Chunk.SIZE);
+    }
+
+    private World(int seed, int loadRadius, int loadedAreaSize) {
+        super("Simulation");
+        this.setDaemon(true);
+        this.SEED = seed;
+        this.WORLD_SIZE = loadedAreaSize;
+        this.LOAD_RADIUS = loadRadius;
         this.BUILDER = new WorldBuilder(this.SEED);
+        this.PATHFINDING = new PathfindingService(new PathfindingTiles());
+        this.ENTITIES = new EntityStore(this.SEED, this::isWalkable, this.PATHFINDING::getDirection);
     }
 
-    private Terrain generateTerrain(int x, int y) {
-        double continentality, weirdness, rivers;
+    /**
+     * Genera el terreno de todas las casillas de un chunk y las features que le corresponden, pero no las añade al
+     * mundo ni marca el chunk como generado, ya que hasta que se añaden sus features el chunk no está completo. Sólo
+     * escribe en el propio chunk, por lo que se pueden generar varios chunks a la vez en distintos hilos.
+     * <br>El generador aleatorio depende únicamente de la semilla del mundo y de la posición del chunk, así que el
+     * resultado es el mismo sin importar el orden o el hilo en el que se genere.
+     * @param chunk Chunk que se va a generar.
+     * @return Features que hay que añadir al mundo con <code>addFeature</code>, en orden.
+     */
+    public List<Feature> generateChunk(Chunk chunk) {
+        Random random = new Random(this.getChunkSeed(chunk.getChunkX(), chunk.getChunkY()));
+        List<Feature> features = new ArrayList<>();
+        int originX = chunk.getChunkX() * Chunk.SIZE, originY = chunk.getChunkY() * Chunk.SIZE, index;
+        float[] continentality = new float[Chunk.SIZE * Chunk.SIZE], weirdness = new float[Chunk.SIZE * Chunk.SIZE],
+                rivers = new float[Chunk.SIZE * Chunk.SIZE];
         Biome biome;
-        Terrain terrain;
-        Feature feature = null;
+        Feature feature;
+
+        this.BUILDER.fillNoise(originX, originY, Chunk.SIZE, Chunk.SIZE, continentality, weirdness, rivers);
 
-        continentality = this.BUILDER.getContinentalityAt(x, y);
-        weirdness = this.BUILDER.getWeirdnessAt(x, y);
-        rivers = this.BUILDER.getRiversAt(x, y);
+        for (int x = originX; x < originX + Chunk.SIZE; x++) for (int y = originY + Chunk.SIZE -1; y >= originY; y--) {
+            index = (x - originX) * Chunk.SIZE + (y - originY);
+            biome = Biome.generateBiome(continentality[index], weirdness[index], rivers[index]);
 
-        biome = Biome.generateBiome(continentality, weirdness, rivers);
+            chunk.setTerrain(x, y, biome.getTerrainType(), biome, continentality[index], weirdness[index], rivers[index]);
+            feature = this.generateFeature(biome, x, y, random);
+            if (feature != null) {
+                features.add(feature);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Carga el chunk desde la carpeta de guardado si está guardado y, si no, lo genera. Igual que
+     * <code>generateChunk</code>, no añade las features al mundo y se puede llamar desde varios hilos a la vez.
+     * @return Features que hay que añadir al mundo con <code>addFeature</code>, en orden.
+     */
+    public List<Feature> loadOrGenerateChunk(Chunk chunk) {
+        List<Feature> features = null;
+
+        if (this.storage != null) {
+            try {
+                features = this.storage.readChunk(chunk, this.SEED);
+            } catch (IOException exception) {
+                Logger.sendMessage("Error cargando el chunk (%d, %d), se va a generar de nuevo: %s", Logger.LogMessageType.WARNING,
+                        chunk.getChunkX(), chunk.getChunkY(), exception);
+            }
+        }
+        return features != null ? features : this.generateChunk(chunk);
+    }
 
-        terrain = new Terrain(biome.getTerrainType(), biome, continentality, weirdness, rivers);
-        this.setTerrain(x, y, terrain);
+    private Feature generateFeature(Biome biome, int x, int y, Random random) {
+        Feature feature = null;
         switch (biome) {
             case RIVER_MOUNTAIN_SHORE -> {
-                if (World.RANDOM.nextFloat() >= 0.4)
-                    feature = new Tree(new Location(x, y + World.RANDOM.nextFloat() / 4));
-                else if (World.RANDOM.nextFloat() >= 0.6) feature = new Bush(new Location(x, y + World.RANDOM.nextFloat() / 2));
+                if (random.nextFloat() >= 0.4)
+                    feature = new Tree(new Location(x, y + random.nextFloat() / 4), random);
+                else if (random.nextFloat() >= 0.6) feature = new Bush(new Location(x, y + random.nextFloat() / 2), random);
             }
             case FOREST -> {
-                if (World.RANDOM.nextFloat() >= 0.75)
-                    feature = new Tree(new Location(x + World.RANDOM.nextFloat() / 4, y + World.RANDOM.nextFloat() / 4));
-                else if (World.RANDOM.nextFloat() >= 0.8) feature = new Bush(new Location(x, y + World.RANDOM.nextFloat() / 2));
+                if (random.nextFloat() >= 0.75)
+                    feature = new Tree(new Location(x + random.nextFloat() / 4, y + random.nextFloat() / 4), random);
+                else if (random.nextFloat() >= 0.8) feature = new Bush(new Location(x, y + random.nextFloat() / 2), random);
             }
             case PLAINS -> {
-                if (World.RANDOM.nextFloat() >= 0.97)
-                    feature = new Tree(new Location(x + World.RANDOM.nextFloat() / 2, y + World.RANDOM.nextFloat() / 4));
-                else if (World.RANDOM.nextFloat() >= 0.6) feature = new Bush(new Location(x, y + World.RANDOM.nextFloat() / 2));
+                if (random.nextFloat() >= 0.97)
+                    feature = new Tree(new Location(x + random.nextFloat() / 2, y + random.nextFloat() / 4), random);
+                else if (random.nextFloat() >= 0.6) feature = new Bush(new Location(x, y + random.nextFloat() / 2), random);
+            }
+        }
+        return feature;
+    }
+
+    /**
+     * Pide que se genere un chunk en segundo plano, si nadie lo está generando ya. No espera a que termine: el chunk se
+     * añade al mundo en <code>publishGeneratedChunks</code>.
+     * @return <code>false</code> si no se ha podido pedir porque la cola de generación está llena.
+     */
+    private boolean requestGeneration(Chunk chunk) {
+        if (!chunk.claimGeneration()) {
+            return true;
+        }
+
+        try {
+            World.GENERATION_EXECUTOR.execute(() -> {
+                try {
+                    this.GENERATED_CHUNKS.add(new GeneratedChunk(chunk, this.loadOrGenerateChunk(chunk)));
+                } catch (RuntimeException exception) {
+                    chunk.releaseGeneration();
+                    Logger.sendMessage("Error generando el chunk (%d, %d): %s", Logger.LogMessageType.WARNING,
+                            chunk.getChunkX(), chunk.getChunkY(), exception);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            //La cola está llena: se volverá a pedir la próxima vez que se consulte el chunk.
+            chunk.releaseGeneration();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Añade al mundo las features y los vértices de terreno de los chunks que se han terminado de generar en segundo
+     * plano. Se llama desde el hilo principal, que es el único que modifica las features y los meshes.
+     */
+    private void publishGeneratedChunks() {
+        GeneratedChunk generatedChunk;
+
+        for (int published = 0; published < World.MAX_PUBLISHED_CHUNKS_PER_TICK && (generatedChunk = this.GENERATED_CHUNKS.poll()) != null; published++) {
+            //El chunk se ha descargado mientras se generaba.
+            if (!this.isChunkLoaded(generatedChunk.CHUNK)) {
+                continue;
+            }
+
+            for (Feature feature: generatedChunk.FEATURES) {
+                this.addGeneratedFeature(feature);
             }
+            this.addNeighbourFeatures(generatedChunk.CHUNK);
+            generatedChunk.CHUNK.setGenerated();
+            this.addChunkToMesh(generatedChunk.CHUNK);
+        }
+
+        //Sólo se suben los meshes de los chunks que han cambiado.
+        Terrain.MESH.loadDirty();
+        for (Feature.FeatureType featureType: World.FEATURE_TYPES) {
+            featureType.getMesh().loadDirty();
         }
-        if (feature != null) {
-            Main.WORLD.addFeature(feature, false);
+    }
+
+    /**
+     * Carga los chunks que hay alrededor de la cámara y descarga los que se han quedado lejos, en el modo infinito.
+     * <br>Se cargan los chunks a <code>LOAD_RADIUS</code> o menos del chunk de la cámara, empezando por los más cercanos,
+     * pero sólo se descargan los que están a más de <code>LOAD_RADIUS + UNLOAD_MARGIN</code>. Así el número de chunks en
+     * memoria no depende de lo lejos que se haya movido la cámara.
+     */
+    private void updateStreaming() {
+        int centerX = Chunk.toChunkCoordinate((int) Math.floor(WorldScene.CAMERA.getInGameCenterX())),
+                centerY = Chunk.toChunkCoordinate((int) Math.floor(WorldScene.CAMERA.getInGameCenterY())),
+                maxLoadedChunks = (2 * (this.LOAD_RADIUS + World.UNLOAD_MARGIN) +1) * (2 * (this.LOAD_RADIUS + World.UNLOAD_MARGIN) +1);
+        boolean centerChanged = centerX != this.streamingCenterX || centerY != this.streamingCenterY;
+
+        if (!centerChanged && !this.streamingPending && this.CHUNKS.size() <= maxLoadedChunks) {
+            return;
         }
-        return terrain;
+        this.streamingCenterX = centerX;
+        this.streamingCenterY = centerY;
+
+        this.unloadDistantChunks();
+
+        //Pedimos los chunks por anillos, de dentro hacia fuera, para que los más cercanos estén listos antes.
+        this.streamingPending = false;
+        for (int radius = 0; radius <= this.LOAD_RADIUS; radius++)
+            for (int chunkX = centerX - radius; chunkX <= centerX + radius; chunkX++)
+                for (int chunkY = centerY - radius; chunkY <= centerY + radius; chunkY++) {
+                    if (Math.max(Math.abs(chunkX - centerX), Math.abs(chunkY - centerY)) != radius) {
+                        continue;
+                    }
+
+                    Chunk chunk = this.getOrCreateChunkAt(chunkX, chunkY);
+                    if (!chunk.isGenerated()) {
+                        this.streamingPending |= !this.requestGeneration(chunk);
+                    }
+                }
     }
 
+    /**
+     * Descarga los chunks que están a más de <code>LOAD_RADIUS + UNLOAD_MARGIN</code> del centro actual, junto con sus
+     * features y sus meshes.
+     */
+    private void unloadDistantChunks() {
+        for (Iterator<Chunk> iterator = this.CHUNKS.values().iterator(); iterator.hasNext();) {
+            Chunk chunk = iterator.next();
+            if (this.isChunkLoaded(chunk)) {
+                continue;
+            }
+
+            iterator.remove();
+            if (chunk.isGenerated()) {
+                this.saveChunk(chunk);
+            }
+            this.removeChunkFeatures(chunk);
+            this.removeChunkFromMesh(chunk);
+        }
+    }
+
+    /**
+     * Quita del mundo las features cuyo origen está en el chunk, también de las casillas que ocupan en chunks vecinos.
+     */
+    private void removeChunkFeatures(Chunk chunk) {
+        for (Feature feature: this.getChunkFeatures(chunk)) {
+            this.removeFeature(feature, false);
+        }
+    }
+
+    /**
+     * @return Features cuyo origen está en el chunk, aunque ocupen también casillas de chunks vecinos.
+     */
+    private List<Feature> getChunkFeatures(Chunk chunk) {
+        List<Feature> features = new ArrayList<>();
+        int originX = chunk.getChunkX() * Chunk.SIZE, originY = chunk.getChunkY() * Chunk.SIZE;
+        Feature feature;
+
+        for (int x = originX; x < originX + Chunk.SIZE; x++) for (int y = originY; y < originY + Chunk.SIZE; y++) {
+            feature = chunk.getFeature(x, y);
+            if (feature != null && (int) Math.floor(feature.getX()) == x && (int) Math.floor(feature.getY()) == y) {
+                features.add(feature);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Vuelve a poner en las casillas del chunk las features de chunks vecinos que las ocupan. Al descargar un chunk
+     * se pierden sus casillas, pero las features de los vecinos que siguen cargados no se quitan del mundo.
+     */
+    private void addNeighbourFeatures(Chunk chunk) {
+        int originX = chunk.getChunkX() * Chunk.SIZE, originY = chunk.getChunkY() * Chunk.SIZE, posX, posY;
+        long chunkKey = Chunk.getKey(chunk.getChunkX(), chunk.getChunkY()), featureChunkKey;
+
+        for (Feature.FeatureType featureType: World.FEATURE_TYPES) {
+            for (Feature feature: this.getFeaturesIn(featureType, originX, originY, originX + Chunk.SIZE, originY + Chunk.SIZE)) {
+                featureChunkKey = World.getFeatureChunkKey(feature);
+                if (featureChunkKey == chunkKey) {
+                    continue;
+                }
+
+                posX = (int) Math.floor(feature.getX());
+                posY = (int) Math.floor(feature.getY());
+                for (int x = Math.max(posX, originX); x < Math.min(posX + feature.getSizeX(), originX + Chunk.SIZE); x++)
+                    for (int y = Math.max(posY, originY); y < Math.min(posY + feature.getSizeY(), originY + Chunk.SIZE); y++) {
+                        this.setGeneratedFeatureTile(feature, featureChunkKey, x, y);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Guarda un chunk generado en la carpeta de guardado, si el mundo se guarda y el chunk ha cambiado desde que se
+     * guardó o se cargó.
+     */
+    private void saveChunk(Chunk chunk) {
+        if (this.storage == null || !chunk.isModified()) {
+            return;
+        }
+
+        try {
+            this.storage.writeChunk(chunk, this.getChunkFeatures(chunk), this.SEED);
+            chunk.setModified(false);
+        } catch (IOException exception) {
+            Logger.sendMessage("Error guardando el chunk (%d, %d): %s", Logger.LogMessageType.WARNING,
+                    chunk.getChunkX(), chunk.getChunkY(), exception);
+        }
+    }
+
+    /**
+     * Indica la carpeta en la que se guarda el mundo. A partir de ese momento los chunks se cargan desde ella en vez de
+     * generarse, si están guardados.
+     */
+    public void setStorage(WorldStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Recupera la hora del día y las entidades del mundo guardado, si lo hay. Se llama después de generar el terreno.
+     */
+    public void loadLevel() {
+        WorldStorage.Level level;
+
+        if (this.storage == null || !this.storage.exists()) {
+            return;
+        }
+
+        try {
+            level = this.storage.readLevel();
+        } catch (IOException exception) {
+            Logger.sendMessage("Error cargando el mundo: %s", Logger.LogMessageType.WARNING, exception);
+            return;
+        }
+        this.dayTime = level.getDayTime();
+        level.createEntities().forEach(this::spawnEntity);
+    }
+
+    /**
+     * Guarda en la carpeta de guardado todos los chunks generados, la hora del día y las entidades. Hay que parar antes
+     * la simulación con <code>stopSimulation</code>.
+     */
+    public void save() {
+        List<Entity> entities = new ArrayList<>();
+
+        if (this.storage == null) {
+            return;
+        }
+
+        for (Chunk chunk: this.CHUNKS.values()) {
+            if (chunk.isGenerated()) {
+                this.saveChunk(chunk);
+            }
+        }
+        this.addSpawnedEntities();
+        for (int entity = 0; entity < this.ENTITIES.size(); entity++) {
+            entities.add(this.ENTITIES.getEntityType(entity).createEntity(new Location(this.ENTITIES.getX(entity), this.ENTITIES.getY(entity))));
+        }
+        try {
+            this.storage.writeLevel(new WorldStorage.Level(this.SEED, this.WORLD_SIZE, this.LOAD_RADIUS, this.dayTime), entities);
+            Logger.sendMessage("Mundo guardado correctamente.", Logger.LogMessageType.INFO);
+        } catch (IOException exception) {
+            Logger.sendMessage("Error guardando el mundo: %s", Logger.LogMessageType.FATAL, exception);
+        }
+    }
+
+    /**
+     * Libera los meshes del terreno y de las features de un chunk descargado.
+     */
+    private void removeChunkFromMesh(Chunk chunk) {
+        Terrain.MESH.removeChunk(chunk.getChunkX(), chunk.getChunkY());
+        for (Feature.FeatureType featureType: World.FEATURE_TYPES) {
+            featureType.getMesh().removeChunk(chunk.getChunkX(), chunk.getChunkY());
+        }
+        this.PATHFINDING.invalidateChunk(chunk.getChunkX(), chunk.getChunkY());
+    }
+
+    /**
+     * @return Si el chunk sigue guardado en el mundo y, en el modo infinito, está dentro de la distancia de descarga.
+     */
+    private boolean isChunkLoaded(Chunk chunk) {
+        if (this.CHUNKS.get(Chunk.getKey(chunk.getChunkX(), chunk.getChunkY())) != chunk) {
+            return false;
+        }
+        return !this.isInfinite() || Math.max(Math.abs(chunk.getChunkX() - this.streamingCenterX),
+                Math.abs(chunk.getChunkY() - this.streamingCenterY)) <= this.LOAD_RADIUS + World.UNLOAD_MARGIN;
+    }
+
+    /**
+     * Añade al mesh del terreno las casillas de un chunk ya generado que están dentro del mundo. Hay que subir
+     * después los meshes que han cambiado.
+     */
+    public void addChunkToMesh(Chunk chunk) {
+        int originX = chunk.getChunkX() * Chunk.SIZE, originY = chunk.getChunkY() * Chunk.SIZE;
+        Terrain.TerrainType terrainType;
+
+        for (int x = originX; x < originX + Chunk.SIZE; x++) for (int y = originY + Chunk.SIZE -1; y >= originY; y--) {
+            if (!this.isOutOfTheWorld(x, y)) {
+                terrainType = chunk.getTerrainType(x, y);
+                Terrain.MESH.addVertex(x, y, 1, 1, terrainType.getUVCoords(), terrainType.ordinal());
+            }
+        }
+        this.PATHFINDING.invalidateChunk(chunk.getChunkX(), chunk.getChunkY());
+    }
+
+    /**
+     * Mezcla la semilla del mundo con la posición del chunk (SplitMix64), para que chunks vecinos no tengan secuencias
+     * aleatorias parecidas.
+     */
+    private long getChunkSeed(int chunkX, int chunkY) {
+        long hash = this.SEED * 0x9E3779B97F4A7C15L + Chunk.getKey(chunkX, chunkY);
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * @return El terreno de la casilla. Si su chunk todavía no se ha generado se pide que se genere en segundo plano y
+     * se devuelve <code>Terrain.PLACEHOLDER</code>, de forma que nunca se genera terreno en el hilo que lo consulta.
+     */
     public Terrain getTerrain(int x, int y) {
-        Terrain terrain = this.TERRAIN[this.mapCoordinatesToIndex(x, y)];
+        Chunk chunk = this.getOrCreateChunk(x, y);
+
+        if (!chunk.isGenerated()) {
+            this.requestGeneration(chunk);
+            return Terrain.PLACEHOLDER;
+        }
+        return chunk.getTerrain(x, y);
+    }
 
-        if (terrain == null) {
-            terrain = this.generateTerrain(x, y);
+    /**
+     * @return Tipo de terreno de la casilla. A diferencia de <code>getTerrain</code> no crea ningún objeto si la casilla
+     * ya está generada.
+     * @see World#getTerrain(int, int)
+     */
+    public Terrain.TerrainType getTerrainType(int x, int y) {
+        Chunk chunk = this.getOrCreateChunk(x, y);
+
+        if (!chunk.isGenerated()) {
+            this.requestGeneration(chunk);
+            return Terrain.PLACEHOLDER.getType();
         }
-        return terrain;
+        return chunk.getTerrainType(x, y);
     }
 
     public void setTerrain(int x, int y, Terrain terrain) {
-        this.TERRAIN[this.mapCoordinatesToIndex(x, y)] = terrain;
+        this.getOrCreateChunk(x, y).setTerrain(x, y, terrain);
     }
 
 
     public Feature getFeature(int x, int y) {
-        try {
-            return this.FEATURES[this.mapCoordinatesToIndex(x, y)];
-        } catch (ArrayIndexOutOfBoundsException exception) {
+        Chunk chunk = this.getChunk(x, y);
+        if (chunk == null || this.isOutOfTheWorld(x, y)) {
             return null;
         }
+        return chunk.getFeature(x, y);
+    }
+
+    /**
+     * @return Si una entidad puede entrar en la casilla: está dentro del mundo, su chunk está generado, su terreno es
+     * transitable y no hay ninguna feature. No crea chunks ni pide que se generen, así que se puede llamar desde los
+     * hilos del tick de las entidades.
+     * @see Terrain.TerrainType#isWalkable()
+     */
+    public boolean isWalkable(int x, int y) {
+        Chunk chunk = this.getChunk(x, y);
+        return chunk != null && chunk.isGenerated() && !this.isOutOfTheWorld(x, y)
+                && chunk.getTerrainType(x, y).isWalkable() && chunk.getFeature(x, y) == null;
     }
 
     public void addFeature(Feature feature, boolean updateMesh) {
-        int posX = (int) feature.getLocation().getX(), posY = (int) feature.getLocation().getY();
-        if (this.canFeatureOverlapsWithOtherFeature(feature)) {
-            try {
-                for (int x = 0; x < feature.getSize().x(); x++)
-                    for (int y = 0; y < feature.getSize().y(); y++) {
-                        this.FEATURES[this.mapCoordinatesToIndex(posX +x, posY +y)] = feature;
+        int posX = (int) Math.floor(feature.getX()), posY = (int) Math.floor(feature.getY());
+        if (this.canFeatureOverlapsWithOtherFeature(feature) && this.isFeatureInsideTheWorld(feature)) {
+            for (int x = 0; x < feature.getSizeX(); x++)
+                for (int y = 0; y < feature.getSizeY(); y++) {
+                    this.getOrCreateChunk(posX +x, posY +y).setFeature(posX +x, posY +y, feature);
+                    if (updateMesh) {
+                        this.PATHFINDING.invalidateChunk(Chunk.toChunkCoordinate(posX +x), Chunk.toChunkCoordinate(posY +y));
                     }
-                Feature.FeatureType featureType = feature.getFeatureType();
-                TreeSet<Feature> featureSet = this.FEATURES_MAP.getOrDefault(featureType, new TreeSet<>());
-                featureSet.add(feature);
-                this.FEATURES_MAP.put(featureType, featureSet);
-
-                if (updateMesh) {
-                    featureType.updateMesh();
-                } else {
-                    featureType.getMesh().addVertex(feature.getLocation().getX(), feature.getLocation().getY(), feature.getSize().x(), feature.getSize().y());
                 }
+            this.registerFeature(feature, updateMesh);
+        }
+    }
+
+    /**
+     * Añade al índice y al mesh de su tipo una feature que ya ocupa sus casillas.
+     */
+    private void registerFeature(Feature feature, boolean updateMesh) {
+        Feature.FeatureType featureType = feature.getFeatureType();
+
+        this.setFeatureChunkModified(feature);
+        this.FEATURES_MAP.computeIfAbsent(featureType, key -> new FeatureIndex()).add(feature);
+        featureType.addToMesh(feature, updateMesh);
 
-                this.featuresCount++;
-            } catch (ArrayIndexOutOfBoundsException ignore) {
+        this.featuresCount++;
+    }
+
+    /**
+     * Añade una feature de un chunk que se acaba de generar o cargar, sin actualizar los meshes. Cada casilla pertenece
+     * a su chunk, así que el resultado no depende del orden en el que se publiquen los chunks:
+     * <br>- En las casillas del chunk de su origen la feature se pone encima de las de otros chunks, y se descarta si
+     * choca con una feature de otro tipo del mismo chunk.
+     * <br>- En las casillas de otros chunks sólo se pone si están libres o si las ocupa una feature de un chunk con la
+     * clave mayor. Si no, la feature sigue en el mundo pero no ocupa esa casilla.
+     */
+    void addGeneratedFeature(Feature feature) {
+        int posX = (int) Math.floor(feature.getX()), posY = (int) Math.floor(feature.getY());
+        long featureChunkKey = World.getFeatureChunkKey(feature);
+        Chunk chunk;
+        Feature tileFeature;
+
+        if (!this.isFeatureInsideTheWorld(feature)) {
+            return;
+        }
+        for (int x = 0; x < feature.getSizeX(); x++) for (int y = 0; y < feature.getSizeY(); y++) {
+            chunk = this.getChunk(posX +x, posY +y);
+            tileFeature = chunk == null ? null : chunk.getFeature(posX +x, posY +y);
+            if (tileFeature != null && World.getFeatureChunkKey(tileFeature) == featureChunkKey
+                    && !tileFeature.getFeatureType().equals(feature.getFeatureType())) {
+                return;
             }
         }
+
+        for (int x = 0; x < feature.getSizeX(); x++) for (int y = 0; y < feature.getSizeY(); y++) {
+            this.setGeneratedFeatureTile(feature, featureChunkKey, posX +x, posY +y);
+        }
+        this.registerFeature(feature, false);
+    }
+
+    /**
+     * Pone la feature en una casilla siguiendo las reglas de <code>addGeneratedFeature</code>.
+     */
+    private void setGeneratedFeatureTile(Feature feature, long featureChunkKey, int x, int y) {
+        Chunk chunk = this.getOrCreateChunk(x, y);
+        long tileChunkKey = Chunk.getKey(chunk.getChunkX(), chunk.getChunkY()), tileFeatureChunkKey;
+        Feature tileFeature = chunk.getFeature(x, y);
+
+        if (tileFeature != null && tileChunkKey != featureChunkKey) {
+            tileFeatureChunkKey = World.getFeatureChunkKey(tileFeature);
+            if (tileFeatureChunkKey == tileChunkKey || tileFeatureChunkKey < featureChunkKey) {
+                return;
+            }
+        }
+        chunk.setFeature(x, y, feature);
+    }
+
+    /**
+     * @return Clave del chunk en el que está el origen de la feature, que es el que la guarda.
+     */
+    private static long getFeatureChunkKey(Feature feature) {
+        return Chunk.getKey(Chunk.toChunkCoordinate((int) Math.floor(feature.getX())),
+                Chunk.toChunkCoordinate((int) Math.floor(feature.getY())));
+    }
+
+    /**
+     * Quita una feature del mundo: de las casillas que ocupa, del índice de features y del mesh de su tipo.
+     * @param updateMesh Si se sube el cambio del mesh a la <code>GPU</code>. Si es <code>false</code> hay que volver a
+     *                   cargar el mesh después.
+     * @return Si la feature estaba en el mundo.
+     */
+    public boolean removeFeature(Feature feature, boolean updateMesh) {
+        int posX = (int) Math.floor(feature.getX()), posY = (int) Math.floor(feature.getY());
+        FeatureIndex featureIndex = this.FEATURES_MAP.get(feature.getFeatureType());
+        Chunk chunk;
+
+        if (featureIndex == null || !featureIndex.remove(feature)) {
+            return false;
+        }
+
+        for (int x = 0; x < feature.getSizeX(); x++)
+            for (int y = 0; y < feature.getSizeY(); y++) {
+                chunk = this.getChunk(posX +x, posY +y);
+                if (chunk != null && chunk.getFeature(posX +x, posY +y) == feature) {
+                    chunk.setFeature(posX +x, posY +y, null);
+                    if (updateMesh) {
+                        this.PATHFINDING.invalidateChunk(chunk.getChunkX(), chunk.getChunkY());
+                    }
+                }
+            }
+        this.setFeatureChunkModified(feature);
+        feature.getFeatureType().removeFromMesh(feature, updateMesh);
+
+        this.featuresCount--;
+        return true;
+    }
+
+    /**
+     * Marca como modificado el chunk del origen de la feature, que es el que la guarda. Las features que se añaden al
+     * generar o cargar un chunk no lo modifican, ya que el chunk todavía no está marcado como generado.
+     */
+    private void setFeatureChunkModified(Feature feature) {
+        Chunk chunk = this.getChunk((int) Math.floor(feature.getX()), (int) Math.floor(feature.getY()));
+
+        if (chunk != null && chunk.isGenerated()) {
+            chunk.setModified(true);
+        }
     }
 
     public void addFeature(Feature feature) {
@@ -124,7 +715,7 @@ public class World extends Thread {
 
     public boolean canFeatureOverlapsWithOtherFeature(Feature feature) {
         Feature feature1;
-        for (int x = 0; x < feature.getSize().x(); x++) for (int y = 0; y < feature.getSize().y(); y++) {
+        for (int x = 0; x < feature.getSizeX(); x++) for (int y = 0; y < feature.getSizeY(); y++) {
             feature1 = feature.getLocation().add(x, y).getFeature();
             if (feature1 != null && !feature1.getFeatureType().equals(feature.getFeatureType())) {
                 return false;
@@ -133,13 +724,35 @@ public class World extends Thread {
         return true;
     }
 
+    private boolean isFeatureInsideTheWorld(Feature feature) {
+        int posX = (int) Math.floor(feature.getX()), posY = (int) Math.floor(feature.getY());
+        return !this.isOutOfTheWorld(posX, posY) && !this.isOutOfTheWorld(posX + feature.getSizeX() -1, posY + feature.getSizeY() -1);
+    }
+
+    /**
+     * Añade una entidad al mundo. Si la simulación está en marcha y se llama desde otro hilo, la entidad se añade al
+     * empezar el siguiente tick.
+     */
     public void spawnEntity(Entity entity) {
-        Entity.EntityType entityType = entity.getEntityType();
-        LinkedList<Entity> entitiesList = this.ENTITITES_MAP.getOrDefault(entityType, new LinkedList<>());
-        entitiesList.add(entity);
-        this.ENTITITES_MAP.put(entityType, entitiesList);
+        if (this.isAlive() && Thread.currentThread() != this) {
+            this.SPAWNED_ENTITIES.add(entity);
+            return;
+        }
+
+        this.ENTITIES.spawn(entity.getEntityType(), entity.getX(), entity.getY());
+        this.entitiesCount = this.ENTITIES.size();
+    }
 
-        this.entitiesCount++;
+    /**
+     * Añade al mundo las entidades creadas desde otros hilos.
+     */
+    private void addSpawnedEntities() {
+        Entity entity;
+
+        while ((entity = this.SPAWNED_ENTITIES.poll()) != null) {
+            this.ENTITIES.spawn(entity.getEntityType(), entity.getX(), entity.getY());
+            this.entitiesCount = this.ENTITIES.size();
+        }
     }
 
     public int getSeed() {
@@ -150,8 +763,47 @@ public class World extends Thread {
         return this.WORLD_SIZE;
     }
 
-    private int mapCoordinatesToIndex(int x, int y) {
-        return x * this.WORLD_SIZE + y;
+    /**
+     * @return Si el mundo no tiene tamaño fijo y se carga alrededor de la cámara.
+     * @see World#createInfiniteWorld(int, int)
+     */
+    public boolean isInfinite() {
+        return this.LOAD_RADIUS > 0;
+    }
+
+    public boolean isOutOfTheWorld(int x, int y) {
+        if (this.isInfinite()) {
+            return false;
+        }
+        return !(x >= 0 && x < this.WORLD_SIZE && y >= 0 && y < this.WORLD_SIZE);
+    }
+
+    /**
+     * @return El chunk que contiene la casilla, o <code>null</code> si todavía no se ha creado.
+     */
+    private Chunk getChunk(int x, int y) {
+        return this.CHUNKS.get(Chunk.getKey(Chunk.toChunkCoordinate(x), Chunk.toChunkCoordinate(y)));
+    }
+
+    /**
+     * @return El chunk que contiene la casilla. Si no existe se crea, de forma que sólo se reserva memoria para los
+     * chunks que se utilizan.
+     */
+    private Chunk getOrCreateChunk(int x, int y) {
+        return this.getOrCreateChunkAt(Chunk.toChunkCoordinate(x), Chunk.toChunkCoordinate(y));
+    }
+
+    /**
+     * @param chunkX Posición del chunk en el eje X, en coordenadas de chunk.
+     * @param chunkY Posición del chunk en el eje Y, en coordenadas de chunk.
+     * @return El chunk en esa posición. Si no existe se crea vacío, sin generar.
+     */
+    public Chunk getOrCreateChunkAt(int chunkX, int chunkY) {
+        return this.CHUNKS.computeIfAbsent(Chunk.getKey(chunkX, chunkY), key -> new Chunk(chunkX, chunkY));
+    }
+
+    public int getChunksCount() {
+        return this.CHUNKS.size();
     }
 
     public int getDayTime() {
@@ -174,25 +826,156 @@ public class World extends Thread {
         }
     }
 
-    public Map<Feature.FeatureType, TreeSet<Feature>> getFeaturesMap() {
-        return new HashMap<>(this.FEATURES_MAP);
+    /**
+     * @return Todas las features de ese tipo, en orden de dibujado.
+     */
+    public List<Feature> getFeatures(Feature.FeatureType featureType) {
+        FeatureIndex featureIndex = this.FEATURES_MAP.get(featureType);
+        return featureIndex == null ? new ArrayList<>() : featureIndex.getFeatures();
+    }
+
+    /**
+     * @return Las features de ese tipo que ocupan alguna casilla del área, en orden de dibujado.
+     */
+    public List<Feature> getFeaturesIn(Feature.FeatureType featureType, float minX, float minY, float maxX, float maxY) {
+        FeatureIndex featureIndex = this.FEATURES_MAP.get(featureType);
+        return featureIndex == null ? new ArrayList<>() : featureIndex.getFeaturesIn(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * @return Las entidades del mundo. Para añadir entidades hay que utilizar <code>spawnEntity</code>. Mientras la
+     * simulación está en marcha sólo se puede utilizar desde su hilo; el renderizado tiene que utilizar
+     * <code>getSnapshot</code>.
+     */
+    public EntityStore getEntityStore() {
+        return this.ENTITIES;
+    }
+
+    /**
+     * @return El servicio que calcula los caminos de las entidades sobre el terreno de este mundo.
+     */
+    public PathfindingService getPathfinding() {
+        return this.PATHFINDING;
+    }
+
+    /**
+     * Coge el último estado publicado por la simulación. Sólo se puede llamar desde el hilo del renderizado, y el estado
+     * devuelto sólo es válido hasta la siguiente llamada.
+     * @return El último estado publicado, o el de la llamada anterior si desde entonces no se ha publicado otro.
+     */
+    public WorldSnapshot getSnapshot() {
+        if ((this.PUBLISHED_SNAPSHOT.get() & World.FRESH_SNAPSHOT) != 0) {
+            this.renderSnapshot = this.PUBLISHED_SNAPSHOT.getAndSet(this.renderSnapshot) & ~World.FRESH_SNAPSHOT;
+        }
+        return this.SNAPSHOTS[this.renderSnapshot];
     }
 
-    public Map<Entity.EntityType, LinkedList<Entity>> getEntitiesMap() {
-        return new HashMap<>(this.ENTITITES_MAP);
+    /**
+     * Carga y descarga los chunks alrededor de la cámara y añade al mundo los que se han terminado de generar. Se llama
+     * en cada frame desde el hilo principal.
+     */
+    public void updateChunks() {
+        if (this.isInfinite()) {
+            this.updateStreaming();
+        }
+        this.publishGeneratedChunks();
     }
 
+    /**
+     * Bucle del hilo de simulación. Acumula el tiempo que pasa y ejecuta un tick por cada <code>TICK_DURATION</code>,
+     * como mucho <code>MAX_CATCH_UP_TICKS</code> seguidos, y espera hasta el siguiente.
+     * @see World#stopSimulation()
+     */
+    @Override
+    public void run() {
+        long previousTime = System.nanoTime(), accumulator = 0, time;
+
+        while (!this.isInterrupted()) {
+            time = System.nanoTime();
+            accumulator += time - previousTime;
+            previousTime = time;
+
+            for (int ticks = 0; ticks < World.MAX_CATCH_UP_TICKS && accumulator >= World.TICK_DURATION; ticks++) {
+                this.onTick();
+                accumulator -= World.TICK_DURATION;
+            }
+            if (accumulator >= World.TICK_DURATION) {
+                Logger.sendMessage("La simulación va con retraso, se descartan %d ticks.", Logger.LogMessageType.DEBUG,
+                        accumulator / World.TICK_DURATION);
+                accumulator %= World.TICK_DURATION;
+            }
+
+            LockSupport.parkNanos(World.TICK_DURATION - accumulator);
+        }
+    }
+
+    /**
+     * Para el hilo de simulación y espera a que termine el tick en curso.
+     */
+    public void stopSimulation() {
+        this.interrupt();
+        try {
+            this.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Avanza la simulación un tick: la hora del día, los caminos que pueden utilizar las entidades y las entidades. Al
+     * terminar publica un <code>WorldSnapshot</code>.
+     */
     public void onTick() {
+        this.addSpawnedEntities();
+
         dayTime++;
         if (dayTime > World.DAY_DURATION) {
             Logger.sendMessage("DÍA", Logger.LogMessageType.DEBUG);
             dayTime = 0;
         }
 
-        this.getEntitiesMap().forEach(((entityType, entities) -> {
-            entities.forEach(entity -> {
-                entity.tick();
-            });
-        }));
+        this.PATHFINDING.startTick();
+        this.ENTITIES.tick();
+
+        this.publishSnapshot();
+    }
+
+    /**
+     * Copia la posición de las entidades, en este tick y en el anterior, en el estado de la simulación y lo publica. El
+     * que estaba publicado pasa a ser el de la simulación.
+     */
+    private void publishSnapshot() {
+        this.SNAPSHOTS[this.simulationSnapshot].update(System.nanoTime(), this.ENTITIES);
+        this.simulationSnapshot = this.PUBLISHED_SNAPSHOT.getAndSet(this.simulationSnapshot | World.FRESH_SNAPSHOT) & ~World.FRESH_SNAPSHOT;
+    }
+
+    /**
+     * Casillas del mundo tal y como las lee el <code>PathfindingService</code>, desde sus hilos: sólo las de los chunks
+     * ya generados, sin crear ni pedir chunks.
+     */
+    private final class PathfindingTiles implements PathfindingService.TileSource {
+        @Override
+        public Terrain.TerrainType getTerrainType(int x, int y) {
+            Chunk chunk = World.this.getChunk(x, y);
+            return chunk == null || !chunk.isGenerated() || World.this.isOutOfTheWorld(x, y) ? null : chunk.getTerrainType(x, y);
+        }
+
+        @Override
+        public boolean isOccupied(int x, int y) {
+            return World.this.getFeature(x, y) != null;
+        }
+    }
+
+    /**
+     * Chunk generado en segundo plano junto con las features que hay que añadir al mundo.
+     */
+    private static final class GeneratedChunk {
+        private final Chunk CHUNK;
+        private final List<Feature> FEATURES;
+
+        private GeneratedChunk(Chunk chunk, List<Feature> features) {
+            this.CHUNK = chunk;
+            this.FEATURES = features;
+        }
     }
 }
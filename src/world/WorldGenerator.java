@@ -5,11 +5,24 @@ import org.lwjgl.glfw.GLFW;
 import utils.Logger;
 import utils.render.Window;
 import utils.render.scene.WorldScene;
+import world.chunk.Chunk;
+import world.feature.Feature;
 
 import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class WorldGenerator extends Thread {
+    /**
+     * Pool de hilos en el que se generan los chunks del mundo. Cada chunk es una tarea independiente.
+     */
+    private static final ForkJoinPool GENERATION_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
     private final World WORLD_TO_LOAD;
     private final WorldScene SCENE;
 
@@ -20,9 +33,42 @@ public class WorldGenerator extends Thread {
 
     @Override
     public void run() {
-        for (int x = 0; x < Main.WORLD.getSize(); x++) for (int y = Main.WORLD.getSize() -1; y >=0; y--) {
-            Main.WORLD.getTerrain(x, y).getType().getMesh().addVertex(x, y, 1, 1);
+        //En el mundo infinito sólo se genera de antemano el área que cabe en memoria; el resto se carga alrededor de la
+        //cámara mientras se juega.
+        int chunksPerSide = (Main.WORLD.getSize() + Chunk.SIZE -1) / Chunk.SIZE,
+                firstChunk = Main.WORLD.isInfinite() ? -chunksPerSide / 2 : 0;
+        List<Callable<List<Feature>>> tasks = new ArrayList<>();
+        List<Chunk> chunks = new ArrayList<>();
+
+        //Generamos el terreno de cada chunk en paralelo. Las tareas sólo escriben en su propio chunk. Los chunks que ya
+        //se están generando en segundo plano los añade el propio mundo cuando terminen.
+        for (int chunkX = firstChunk; chunkX < firstChunk + chunksPerSide; chunkX++) for (int chunkY = firstChunk + chunksPerSide -1; chunkY >= firstChunk; chunkY--) {
+            Chunk chunk = Main.WORLD.getOrCreateChunkAt(chunkX, chunkY);
+            if (chunk.claimGeneration()) {
+                chunks.add(chunk);
+                tasks.add(() -> Main.WORLD.loadOrGenerateChunk(chunk));
+            }
+        }
+
+        //Las features se añaden en el orden de los chunks, y no en el que terminen las tareas, para que el resultado no
+        //dependa del número de hilos.
+        try {
+            for (Future<List<Feature>> features: WorldGenerator.GENERATION_POOL.invokeAll(tasks)) {
+                for (Feature feature: features.get()) {
+                    Main.WORLD.addGeneratedFeature(feature);
+                }
+            }
+        } catch (InterruptedException | ExecutionException exception) {
+            Logger.sendMessage("Error generando el mundo: %s", Logger.LogMessageType.FATAL, exception);
+            return;
+        }
+
+        //Los chunks sólo se marcan como generados cuando ya tienen todas sus features.
+        for (Chunk chunk: chunks) {
+            chunk.setGenerated();
+            Main.WORLD.addChunkToMesh(chunk);
         }
+        Main.WORLD.loadLevel();
         Logger.sendMessage("Mundo generado correctamente.", Logger.LogMessageType.INFO);
     }
 }
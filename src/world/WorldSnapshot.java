@@ -0,0 +1,99 @@
+package world;
+
+import world.entity.Entity;
+import world.entity.EntityStore;
+
+/**
+ * Estado del mundo que publica el hilo de simulación al terminar cada tick, para que el renderizado lo lea sin esperar
+ * a la simulación.
+ * <br>Guarda la posición de las entidades de cada tipo en este tick y en el anterior, para que el renderizado pueda
+ * interpolar entre las dos según el tiempo que ha pasado desde que se publicó. Las dos posiciones de cada entidad están
+ * en el mismo índice; las entidades que no existían en el tick anterior tienen como posición anterior la actual.
+ * <br>No se crea uno por tick: el mundo tiene tres que se van turnando entre la simulación y el renderizado, y sus
+ * arrays sólo se agrandan cuando hay más entidades de las que caben. Mientras uno es del renderizado la simulación no
+ * lo modifica.
+ * @see World#getSnapshot()
+ */
+public final class WorldSnapshot {
+    private static final Entity.EntityType[] ENTITY_TYPES = Entity.EntityType.values();
+
+    /**
+     * Duración de un tick, en nanosegundos.
+     */
+    private final long TICK_DURATION;
+
+    /**
+     * Posiciones de las entidades de cada tipo, por ordinal del tipo: 2 posiciones por entidad. Sólo son válidas las
+     * <code>2 * ENTITIES_COUNTS</code> primeras.
+     */
+    private final float[][] POSITIONS, PREVIOUS_POSITIONS;
+    private final int[] ENTITIES_COUNTS;
+
+    /**
+     * Momento en el que se publicó, según <code>System.nanoTime</code>.
+     */
+    private long time = 0;
+
+    WorldSnapshot(long tickDuration) {
+        this.TICK_DURATION = tickDuration;
+        this.POSITIONS = new float[WorldSnapshot.ENTITY_TYPES.length][0];
+        this.PREVIOUS_POSITIONS = new float[WorldSnapshot.ENTITY_TYPES.length][0];
+        this.ENTITIES_COUNTS = new int[WorldSnapshot.ENTITY_TYPES.length];
+    }
+
+    /**
+     * Copia la posición de las entidades, en este tick y en el anterior. Sólo reserva memoria si hay más entidades de
+     * un tipo de las que caben.
+     */
+    void update(long time, EntityStore entities) {
+        this.time = time;
+        for (Entity.EntityType entityType: WorldSnapshot.ENTITY_TYPES) {
+            int ordinal = entityType.ordinal(), entitiesCount = entities.size(entityType),
+                    capacity = Math.max(64, this.POSITIONS[ordinal].length);
+
+            if (2 * entitiesCount > this.POSITIONS[ordinal].length) {
+                while (capacity < 2 * entitiesCount) {
+                    capacity *= 2;
+                }
+                this.POSITIONS[ordinal] = new float[capacity];
+                this.PREVIOUS_POSITIONS[ordinal] = new float[capacity];
+            }
+            entities.copyPositions(entityType, this.POSITIONS[ordinal], this.PREVIOUS_POSITIONS[ordinal]);
+            this.ENTITIES_COUNTS[ordinal] = entitiesCount;
+        }
+    }
+
+    /**
+     * @return Posiciones en este tick de las entidades de ese tipo: X e Y de cada entidad, en unidades in-game. Sólo
+     * son válidas las <code>2 * getEntitiesCount</code> primeras. No se debe modificar.
+     */
+    public float[] getPositions(Entity.EntityType entityType) {
+        return this.POSITIONS[entityType.ordinal()];
+    }
+
+    /**
+     * @return Posiciones en el tick anterior de las entidades de ese tipo, en el mismo orden que
+     * <code>getPositions</code>. No se debe modificar.
+     */
+    public float[] getPreviousPositions(Entity.EntityType entityType) {
+        return this.PREVIOUS_POSITIONS[entityType.ordinal()];
+    }
+
+    public int getEntitiesCount(Entity.EntityType entityType) {
+        return this.ENTITIES_COUNTS[entityType.ordinal()];
+    }
+
+    /**
+     * @param time Momento actual, según <code>System.nanoTime</code>.
+     * @return Fracción del tick que ha pasado desde que se publicó, entre 0 (posiciones anteriores) y 1 (posiciones de
+     * este tick).
+     */
+    public float getInterpolation(long time) {
+        return Math.max(0, Math.min(1, (float) (time - this.time) / this.TICK_DURATION));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorldSnapshot(time=%d,entityTypes=%d)", this.time, this.POSITIONS.length);
+    }
+}
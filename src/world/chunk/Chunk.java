@@ -0,0 +1,203 @@
+package world.chunk;
+
+import world.feature.Feature;
+import world.terrain.Terrain;
+import world.worldBuilder.Biome;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Región cuadrada de <code>SIZE</code> x <code>SIZE</code> casillas del mundo. El mundo sólo reserva memoria para los
+ * chunks que se han tocado, en vez de para todo el mapa.
+ * <br>El terreno se guarda como arrays de primitivos (un array por atributo) en vez de un objeto por casilla, lo que
+ * reduce la memoria y permite recorrer el chunk de forma secuencial. Los objetos <code>Terrain</code> sólo se crean
+ * cuando se consultan.
+ */
+public class Chunk {
+    /**
+     * Número de casillas que tiene un chunk en cada eje.
+     */
+    public static final int SIZE = 32;
+
+    private final int CHUNK_X, CHUNK_Y;
+
+    /**
+     * Si ya se ha generado el terreno de todo el chunk y se han añadido al mundo sus features. Es <code>volatile</code>
+     * para que el resto de hilos vean el terreno y las features completos una vez se marca como generado.
+     */
+    private volatile boolean generated = false;
+    /**
+     * Si el chunk ha cambiado desde que se guardó o se cargó. Los chunks recién generados están modificados, ya que
+     * nunca se han guardado.
+     */
+    private boolean modified = false;
+    /**
+     * Si algún hilo ya se ha encargado de generar el chunk, para que no se genere dos veces.
+     */
+    private final AtomicBoolean GENERATION_CLAIMED = new AtomicBoolean(false);
+    /**
+     * Valor de <code>TERRAIN_TYPES</code> para las casillas que todavía no se han generado.
+     */
+    private static final byte NOT_GENERATED = -1;
+
+    private final byte[] TERRAIN_TYPES = new byte[Chunk.SIZE * Chunk.SIZE], BIOMES = new byte[Chunk.SIZE * Chunk.SIZE];
+    private final float[] CONTINENTALITY_NOISE = new float[Chunk.SIZE * Chunk.SIZE],
+            WEIRDNESS_NOISE = new float[Chunk.SIZE * Chunk.SIZE],
+            RIVERS_NOISE = new float[Chunk.SIZE * Chunk.SIZE];
+    private final Feature[] FEATURES = new Feature[Chunk.SIZE * Chunk.SIZE];
+
+    /**
+     * @param chunkX Posición del chunk en el eje X, en coordenadas de chunk.
+     * @param chunkY Posición del chunk en el eje Y, en coordenadas de chunk.
+     */
+    public Chunk(int chunkX, int chunkY) {
+        this.CHUNK_X = chunkX;
+        this.CHUNK_Y = chunkY;
+        Arrays.fill(this.TERRAIN_TYPES, Chunk.NOT_GENERATED);
+    }
+
+    public boolean isGenerated() {
+        return this.generated;
+    }
+
+    /**
+     * Marca el chunk como generado. Se tiene que llamar después de añadir sus features al mundo, para que nadie vea el
+     * terreno sin sus obstáculos.
+     */
+    public void setGenerated() {
+        this.generated = true;
+    }
+
+    public boolean isModified() {
+        return this.modified;
+    }
+
+    public void setModified(boolean modified) {
+        this.modified = modified;
+    }
+
+    /**
+     * Reserva la generación del chunk para el hilo actual.
+     * @return <code>true</code> si nadie había reservado antes la generación, en cuyo caso el llamante debe generarlo.
+     */
+    public boolean claimGeneration() {
+        return this.GENERATION_CLAIMED.compareAndSet(false, true);
+    }
+
+    /**
+     * Libera la reserva de <code>claimGeneration</code> sin haber generado el chunk, para que se pueda volver a pedir.
+     */
+    public void releaseGeneration() {
+        this.GENERATION_CLAIMED.set(false);
+    }
+
+    /**
+     * @return Una vista del terreno de la casilla, o <code>null</code> si todavía no se ha generado.
+     */
+    public Terrain getTerrain(int x, int y) {
+        int index = Chunk.mapCoordinatesToIndex(x, y);
+        if (this.TERRAIN_TYPES[index] == Chunk.NOT_GENERATED) {
+            return null;
+        }
+        return new Terrain(Terrain.TerrainType.valueOf(this.TERRAIN_TYPES[index]), Biome.valueOf(this.BIOMES[index]),
+                this.CONTINENTALITY_NOISE[index], this.WEIRDNESS_NOISE[index], this.RIVERS_NOISE[index]);
+    }
+
+    /**
+     * @return Tipo de terreno de la casilla, sin crear ningún objeto, o <code>null</code> si todavía no se ha generado.
+     */
+    public Terrain.TerrainType getTerrainType(int x, int y) {
+        int index = Chunk.mapCoordinatesToIndex(x, y);
+        if (this.TERRAIN_TYPES[index] == Chunk.NOT_GENERATED) {
+            return null;
+        }
+        return Terrain.TerrainType.valueOf(this.TERRAIN_TYPES[index]);
+    }
+
+    public void setTerrain(int x, int y, Terrain.TerrainType type, Biome biome, double continentalityNoise, double weirdnessNoise, double riversNoise) {
+        int index = Chunk.mapCoordinatesToIndex(x, y);
+        this.TERRAIN_TYPES[index] = (byte) type.ordinal();
+        this.BIOMES[index] = (byte) biome.ordinal();
+        this.CONTINENTALITY_NOISE[index] = (float) continentalityNoise;
+        this.WEIRDNESS_NOISE[index] = (float) weirdnessNoise;
+        this.RIVERS_NOISE[index] = (float) riversNoise;
+        this.modified = true;
+    }
+
+    public void setTerrain(int x, int y, Terrain terrain) {
+        this.setTerrain(x, y, terrain.getType(), terrain.getBiome(), terrain.getContinentalityNoise(), terrain.getWeirdnessNoise(), terrain.getRiversNoise());
+    }
+
+    /**
+     * Número de bytes que ocupa el terreno de un chunk en <code>writeTerrain</code>.
+     */
+    public static final int TERRAIN_BYTES = Chunk.SIZE * Chunk.SIZE * (2 + 3 * Float.BYTES);
+
+    /**
+     * Escribe el terreno del chunk tal y como está guardado en memoria: los tipos de terreno, los biomas y los tres
+     * canales de ruido, uno detrás de otro.
+     * @param buffer Buffer con al menos <code>TERRAIN_BYTES</code> bytes libres.
+     */
+    public void writeTerrain(ByteBuffer buffer) {
+        buffer.put(this.TERRAIN_TYPES).put(this.BIOMES);
+        for (float[] noise: new float[][]{this.CONTINENTALITY_NOISE, this.WEIRDNESS_NOISE, this.RIVERS_NOISE}) {
+            buffer.asFloatBuffer().put(noise);
+            buffer.position(buffer.position() + noise.length * Float.BYTES);
+        }
+    }
+
+    /**
+     * Lee el terreno escrito con <code>writeTerrain</code>. No marca el chunk como generado ni como modificado.
+     */
+    public void readTerrain(ByteBuffer buffer) {
+        buffer.get(this.TERRAIN_TYPES).get(this.BIOMES);
+        for (float[] noise: new float[][]{this.CONTINENTALITY_NOISE, this.WEIRDNESS_NOISE, this.RIVERS_NOISE}) {
+            buffer.asFloatBuffer().get(noise);
+            buffer.position(buffer.position() + noise.length * Float.BYTES);
+        }
+    }
+
+    public Feature getFeature(int x, int y) {
+        return this.FEATURES[Chunk.mapCoordinatesToIndex(x, y)];
+    }
+
+    public void setFeature(int x, int y, Feature feature) {
+        this.FEATURES[Chunk.mapCoordinatesToIndex(x, y)] = feature;
+    }
+
+    public int getChunkX() {
+        return this.CHUNK_X;
+    }
+
+    public int getChunkY() {
+        return this.CHUNK_Y;
+    }
+
+    /**
+     * @param x Posición en el eje X dentro del mundo, en coordenadas in-game.
+     * @param y Posición en el eje Y dentro del mundo, en coordenadas in-game.
+     * @return Índice de la casilla dentro de los arrays del chunk.
+     */
+    private static int mapCoordinatesToIndex(int x, int y) {
+        return Math.floorMod(x, Chunk.SIZE) * Chunk.SIZE + Math.floorMod(y, Chunk.SIZE);
+    }
+
+    /**
+     * @param coordinate Coordenada in-game de una casilla.
+     * @return Coordenada del chunk que contiene la casilla.
+     */
+    public static int toChunkCoordinate(int coordinate) {
+        return Math.floorDiv(coordinate, Chunk.SIZE);
+    }
+
+    /**
+     * @param chunkX Posición del chunk en el eje X, en coordenadas de chunk.
+     * @param chunkY Posición del chunk en el eje Y, en coordenadas de chunk.
+     * @return Clave única del chunk, que se utiliza para guardarlo en un mapa.
+     */
+    public static long getKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+}
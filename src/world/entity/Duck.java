@@ -1,17 +1,48 @@
 package world.entity;
 
-import org.joml.Vector2f;
 import world.location.Location;
+import world.pathfinding.FlowField;
+import world.terrain.Terrain;
 
 public class Duck extends Entity {
+    /**
+     * Probabilidad de que un pato intente ir hacia el agua en un tick, y de que se mueva: hacia el agua o, si no puede,
+     * en una dirección aleatoria.
+     */
+    private static final float WATER_PROBABILITY = 0.1f, WANDER_PROBABILITY = 0.3f;
+
     public Duck(Location location) {
         super(EntityType.DUCK, location);
     }
 
-    @Override
-    public void tick() {
-        if (Entity.RANDOM.nextFloat() >= 0.7) {
-            this.move(new Vector2f(Entity.RANDOM.nextFloat() -0.5f, Entity.RANDOM.nextFloat() -0.5f));
+    /**
+     * Sistema de comportamiento de los patos: en cada tick, algunos dan medio paso hacia el agua más cercana, otros dan
+     * un paso aleatorio de hasta media casilla en cada eje y el resto se quedan quietos. Los que van hacia el agua pero
+     * ya están al lado, no pueden llegar a ninguna o todavía no saben dónde está dan un paso aleatorio.
+     * @param x Posiciones en el eje X de todas las entidades.
+     * @param y Posiciones en el eje Y de todas las entidades.
+     * @param velocityX Velocidades en el eje X de todas las entidades.
+     * @param velocityY Velocidades en el eje Y de todas las entidades.
+     * @param randomStates Secuencias aleatorias de todas las entidades.
+     * @param directionFinder Indica hacia dónde está el agua más cercana.
+     * @param index Índice del pato en los arrays.
+     * @see EntityStore#tick()
+     */
+    static void wander(float[] x, float[] y, float[] velocityX, float[] velocityY, long[] randomStates,
+                       EntityStore.DirectionFinder directionFinder, int index) {
+        float decision = EntityStore.nextFloat(randomStates, index);
+        byte direction = decision < 1 - Duck.WATER_PROBABILITY ? FlowField.NO_DIRECTION
+                : directionFinder.getDirection(Terrain.TerrainType.WATER, (int) Math.floor(x[index]), (int) Math.floor(y[index]));
+
+        if (direction != FlowField.NO_DIRECTION) {
+            velocityX[index] = 0.5f * FlowField.getDirectionX(direction);
+            velocityY[index] = 0.5f * FlowField.getDirectionY(direction);
+        } else if (decision >= 1 - Duck.WANDER_PROBABILITY) {
+            velocityX[index] = EntityStore.nextFloat(randomStates, index) -0.5f;
+            velocityY[index] = EntityStore.nextFloat(randomStates, index) -0.5f;
+        } else {
+            velocityX[index] = 0;
+            velocityY[index] = 0;
         }
     }
 }
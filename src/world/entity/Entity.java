@@ -1,17 +1,17 @@
 package world.entity;
 
-import org.joml.Vector2f;
 import org.joml.Vector2i;
 import utils.render.mesh.EntityMesh;
 import utils.render.texture.StaticTexture;
 import utils.render.texture.Texture;
 import world.location.Location;
 
-import java.util.Random;
-
+/**
+ * Entidad del mundo, tal y como se crea o se guarda. Mientras está en el mundo, su estado no vive en este objeto sino en
+ * el <code>EntityStore</code> del mundo, y su comportamiento en cada tick lo implementa un sistema de su tipo.
+ * @see EntityStore
+ */
 public abstract class Entity {
-    protected static final Random RANDOM = new Random();
-
     protected Location location;
     private final EntityType ENTITY_TYPE;
 
@@ -20,23 +20,33 @@ public abstract class Entity {
         this.location = location;
     }
 
-    public void move(Vector2f movement) {
-        this.location.add(movement.x(), movement.y());
-    }
-
     public Location getLocation() {
         return this.location.clone();
     }
 
+    /**
+     * @return Posición de la entidad en el eje X, sin copiar su <code>Location</code>.
+     */
+    public float getX() {
+        return this.location.getX();
+    }
+
+    /**
+     * @return Posición de la entidad en el eje Y, sin copiar su <code>Location</code>.
+     */
+    public float getY() {
+        return this.location.getY();
+    }
+
     public EntityType getEntityType() {
         return this.ENTITY_TYPE;
     }
 
-    public abstract void tick();
-
     public enum EntityType {
         DUCK(new EntityMesh(new Vector2i(1, 1)), new StaticTexture("assets/textures/entity/duck.png"));
 
+        private static final EntityType[] VALUES = EntityType.values();
+
         private final EntityMesh MESH;
         private final Texture TEXTURE;
 
@@ -45,6 +55,15 @@ public abstract class Entity {
             this.TEXTURE = texture;
         }
 
+        /**
+         * @return Una entidad nueva de este tipo en esa posición.
+         */
+        public Entity createEntity(Location location) {
+            return switch (this) {
+                case DUCK -> new Duck(location);
+            };
+        }
+
         public EntityMesh getMesh() {
             return this.MESH;
         }
@@ -52,5 +71,12 @@ public abstract class Entity {
         public Texture getTexture() {
             return this.TEXTURE;
         }
+
+        /**
+         * @return El tipo de entidad con ese ordinal, sin crear una copia de <code>values()</code>.
+         */
+        public static EntityType valueOf(int ordinal) {
+            return EntityType.VALUES[ordinal];
+        }
     }
 }
@@ -0,0 +1,214 @@
+package world.entity;
+
+import world.chunk.Chunk;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Rejilla hash de las entidades: divide el mundo en celdas de <code>CELL_SIZE</code> x <code>CELL_SIZE</code> casillas,
+ * y cada celda ocupada guarda los identificadores de las entidades que hay en ella.
+ * <br>Se actualiza poco a poco: al mover una entidad sólo se toca la rejilla si cambia de celda, y quitarla de una celda
+ * no recorre la celda, ya que cada entidad recuerda su celda y su posición dentro de ella.
+ * <br>Las celdas se guardan en una tabla hash de direccionamiento abierto por su clave, sin objetos intermedios. Las
+ * celdas que se quedan vacías no se quitan, para que las entidades que cruzan de una celda a otra las reutilicen; sólo
+ * se descartan al agrandar la tabla.
+ * @see EntityStore#getEntitiesIn(float, float, float, float)
+ */
+class EntityGrid {
+    /**
+     * Número de casillas que tiene una celda en cada eje.
+     */
+    static final int CELL_SIZE = 4;
+
+    /**
+     * Capacidad con la que empieza la tabla de celdas. Siempre es una potencia de 2.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Tabla de celdas: la clave y la celda de cada hueco, o <code>null</code> si el hueco está libre. La tabla se
+     * mantiene como mucho medio llena.
+     */
+    private long[] keys = new long[EntityGrid.INITIAL_CAPACITY];
+    private Cell[] table = new Cell[EntityGrid.INITIAL_CAPACITY];
+
+    /**
+     * Celdas guardadas en la tabla, y cuántas de ellas tienen alguna entidad.
+     */
+    private int cellsCount = 0, occupiedCellsCount = 0;
+
+    /**
+     * Celda de cada entidad y su posición dentro de la celda, por identificador.
+     */
+    private Cell[] cells = new Cell[0];
+    private int[] slots = new int[0];
+
+    /**
+     * Añade una entidad a la celda que contiene esa posición.
+     */
+    void add(int id, float posX, float posY) {
+        int cellX = EntityGrid.toCellCoordinate(posX), cellY = EntityGrid.toCellCoordinate(posY);
+        Cell cell = this.getOrCreateCell(cellX, cellY);
+
+        if (id >= this.cells.length) {
+            int capacity = Math.max(1024, this.cells.length * 2);
+            while (capacity <= id) {
+                capacity *= 2;
+            }
+            this.cells = Arrays.copyOf(this.cells, capacity);
+            this.slots = Arrays.copyOf(this.slots, capacity);
+        }
+        if (cell.size == 0) {
+            this.occupiedCellsCount++;
+        }
+        if (cell.size == cell.ids.length) {
+            cell.ids = Arrays.copyOf(cell.ids, cell.ids.length * 2);
+        }
+        this.cells[id] = cell;
+        this.slots[id] = cell.size;
+        cell.ids[cell.size++] = id;
+    }
+
+    /**
+     * Quita una entidad de su celda. La última entidad de la celda ocupa su hueco. La celda se queda en la tabla
+     * aunque se quede vacía.
+     */
+    void remove(int id) {
+        Cell cell = this.cells[id];
+        int slot = this.slots[id], last = --cell.size;
+
+        if (slot != last) {
+            cell.ids[slot] = cell.ids[last];
+            this.slots[cell.ids[slot]] = slot;
+        }
+        this.cells[id] = null;
+        if (cell.size == 0) {
+            this.occupiedCellsCount--;
+        }
+    }
+
+    /**
+     * Actualiza la celda de una entidad que se ha movido a esa posición. Si no ha cambiado de celda no hace nada.
+     */
+    void move(int id, float posX, float posY) {
+        Cell cell = this.cells[id];
+
+        if (cell.CELL_X != EntityGrid.toCellCoordinate(posX) || cell.CELL_Y != EntityGrid.toCellCoordinate(posY)) {
+            this.remove(id);
+            this.add(id, posX, posY);
+        }
+    }
+
+    /**
+     * @return La celda en esa posición, en coordenadas de celda, o <code>null</code> si no está en la tabla. Puede estar
+     * vacía.
+     */
+    Cell getCell(int cellX, int cellY) {
+        long key = Chunk.getKey(cellX, cellY);
+
+        for (int slot = EntityGrid.getSlot(key, this.table.length); this.table[slot] != null; slot = (slot +1) & (this.table.length -1)) {
+            if (this.keys[slot] == key) {
+                return this.table[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Añade a la colección las celdas que tienen alguna entidad.
+     */
+    void addCellsTo(Collection<Cell> cells) {
+        for (Cell cell: this.table) {
+            if (cell != null && cell.size > 0) {
+                cells.add(cell);
+            }
+        }
+    }
+
+    /**
+     * @return Número de celdas que tienen alguna entidad.
+     */
+    int getCellsCount() {
+        return this.occupiedCellsCount;
+    }
+
+    /**
+     * @return La celda en esa posición, en coordenadas de celda. Si no está en la tabla se añade.
+     */
+    private Cell getOrCreateCell(int cellX, int cellY) {
+        Cell cell = this.getCell(cellX, cellY);
+
+        if (cell == null) {
+            if ((this.cellsCount +1) * 2 > this.table.length) {
+                this.rehash();
+            }
+            cell = new Cell(cellX, cellY);
+            this.insert(Chunk.getKey(cellX, cellY), cell);
+        }
+        return cell;
+    }
+
+    /**
+     * Vuelve a crear la tabla sólo con las celdas que tienen alguna entidad, con sitio para otras tantas celdas
+     * nuevas. Si casi todas están ocupadas la tabla crece; si no, se descartan las vacías y se mantiene su tamaño.
+     */
+    private void rehash() {
+        long[] keys = this.keys;
+        Cell[] table = this.table;
+        int capacity = EntityGrid.INITIAL_CAPACITY;
+
+        while (capacity < (this.occupiedCellsCount +1) * 4) {
+            capacity *= 2;
+        }
+        this.keys = new long[capacity];
+        this.table = new Cell[capacity];
+        this.cellsCount = 0;
+        for (int slot = 0; slot < table.length; slot++) {
+            if (table[slot] != null && table[slot].size > 0) {
+                this.insert(keys[slot], table[slot]);
+            }
+        }
+    }
+
+    /**
+     * Guarda una celda que no está en la tabla en el primer hueco libre a partir de su posición.
+     */
+    private void insert(long key, Cell cell) {
+        int slot = EntityGrid.getSlot(key, this.table.length);
+
+        while (this.table[slot] != null) {
+            slot = (slot +1) & (this.table.length -1);
+        }
+        this.keys[slot] = key;
+        this.table[slot] = cell;
+        this.cellsCount++;
+    }
+
+    /**
+     * @return Hueco de la tabla en el que empieza a buscarse la clave. Mezcla los bits de las dos coordenadas para que
+     * las celdas vecinas no acaben en huecos seguidos.
+     */
+    private static int getSlot(long key, int capacity) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity -1);
+    }
+
+    static int toCellCoordinate(float coordinate) {
+        return Math.floorDiv((int) Math.floor(coordinate), EntityGrid.CELL_SIZE);
+    }
+
+    /**
+     * Celda de la rejilla. Sólo son válidos los <code>size</code> primeros identificadores.
+     */
+    static final class Cell {
+        private final int CELL_X, CELL_Y;
+        int[] ids = new int[8];
+        int size = 0;
+
+        private Cell(int cellX, int cellY) {
+            this.CELL_X = cellX;
+            this.CELL_Y = cellY;
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package world.entity;
+
+import world.pathfinding.FlowField;
+import world.terrain.Terrain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Almacena las entidades del mundo en arrays de primitivos, uno por cada componente (posición, posición en el tick
+ * anterior, velocidad y tipo), en vez de un objeto por entidad. Los sistemas del tick recorren los arrays en orden.
+ * <br>Cada entidad tiene un identificador que no cambia mientras existe, aunque cambie su posición en los arrays: al
+ * eliminar una entidad, la última ocupa su hueco. Los identificadores de las entidades eliminadas se reutilizan.
+ * <br>El tick se reparte por tramos de índices entre los hilos de un <code>ForkJoinPool</code>. Cada entidad sólo lee y
+ * escribe su propio índice y tiene su propia secuencia aleatoria, derivada de la semilla del mundo, así que con la
+ * misma semilla y el mismo número de ticks el resultado es igual sea cual sea el número de hilos.
+ * <br>Las entidades sólo se mueven a casillas transitables, y una <code>EntityGrid</code> permite buscar las que hay en
+ * un área sin recorrerlas todas.
+ * <br>No es seguro utilizarlo desde varios hilos a la vez: una vez iniciada la simulación sólo lo utiliza su hilo.
+ */
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Entity.EntityType[] ENTITY_TYPES = Entity.EntityType.values();
+
+    /**
+     * Pool de hilos en el que se reparte el tick de las entidades.
+     */
+    private static final ForkJoinPool TICK_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Número máximo de entidades de cada tramo del tick. Con menos entidades que esto el tick no se reparte.
+     */
+    private static final int PARTITION_SIZE = 8192;
+
+    /**
+     * Incremento de las secuencias aleatorias (el mismo que utiliza <code>SplittableRandom</code>).
+     */
+    private static final long RANDOM_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final ForkJoinPool POOL;
+    private final WalkabilityChecker WALKABILITY_CHECKER;
+    private final DirectionFinder DIRECTION_FINDER;
+    private final EntityGrid GRID = new EntityGrid();
+
+    /**
+     * Genera la semilla de la secuencia aleatoria de cada entidad nueva, a partir de la semilla del mundo.
+     */
+    private final SplittableRandom SPAWN_RANDOM;
+
+    /**
+     * Componentes de cada entidad, por índice. Sólo son válidos los <code>size</code> primeros.
+     */
+    private float[] x = new float[EntityStore.INITIAL_CAPACITY], y = new float[EntityStore.INITIAL_CAPACITY],
+            previousX = new float[EntityStore.INITIAL_CAPACITY], previousY = new float[EntityStore.INITIAL_CAPACITY],
+            velocityX = new float[EntityStore.INITIAL_CAPACITY], velocityY = new float[EntityStore.INITIAL_CAPACITY];
+
+    /**
+     * Ordinal del <code>EntityType</code> de cada entidad, por índice.
+     */
+    private byte[] types = new byte[EntityStore.INITIAL_CAPACITY];
+
+    /**
+     * Estado de la secuencia aleatoria de cada entidad, por índice.
+     * @see EntityStore#nextFloat(long[], int)
+     */
+    private long[] randomStates = new long[EntityStore.INITIAL_CAPACITY];
+
+    /**
+     * Identificador de la entidad de cada índice, e índice de la entidad de cada identificador (<code>-1</code> si el
+     * identificador no está en uso).
+     */
+    private int[] ids = new int[EntityStore.INITIAL_CAPACITY], indices = new int[EntityStore.INITIAL_CAPACITY];
+
+    /**
+     * Identificadores libres, que se reutilizan antes de crear otros nuevos.
+     */
+    private int[] freeIds = new int[16];
+
+    /**
+     * Número de entidades de cada tipo, por ordinal del tipo.
+     */
+    private int[] typeCounts = new int[0];
+
+    private int size = 0, nextId = 0, freeIdsCount = 0;
+
+    /**
+     * Crea un almacén en el que todas las casillas son transitables.
+     * @param seed Semilla de la que se derivan las secuencias aleatorias de las entidades.
+     */
+    public EntityStore(long seed) {
+        this(seed, (x, y) -> true);
+    }
+
+    /**
+     * Crea un almacén en el que las entidades no buscan caminos: nunca saben hacia dónde está su objetivo.
+     * @param seed Semilla de la que se derivan las secuencias aleatorias de las entidades.
+     * @param walkabilityChecker Decide a qué casillas se pueden mover las entidades.
+     */
+    public EntityStore(long seed, WalkabilityChecker walkabilityChecker) {
+        this(seed, walkabilityChecker, (goal, x, y) -> FlowField.NO_DIRECTION);
+    }
+
+    /**
+     * @param seed Semilla de la que se derivan las secuencias aleatorias de las entidades.
+     * @param walkabilityChecker Decide a qué casillas se pueden mover las entidades.
+     * @param directionFinder Indica a las entidades hacia dónde está su objetivo.
+     */
+    public EntityStore(long seed, WalkabilityChecker walkabilityChecker, DirectionFinder directionFinder) {
+        this(seed, walkabilityChecker, directionFinder, EntityStore.TICK_POOL);
+    }
+
+    /**
+     * @param seed Semilla de la que se derivan las secuencias aleatorias de las entidades.
+     * @param walkabilityChecker Decide a qué casillas se pueden mover las entidades.
+     * @param directionFinder Indica a las entidades hacia dónde está su objetivo.
+     * @param pool Pool de hilos en el que se reparte el tick.
+     */
+    public EntityStore(long seed, WalkabilityChecker walkabilityChecker, DirectionFinder directionFinder, ForkJoinPool pool) {
+        this.POOL = pool;
+        this.WALKABILITY_CHECKER = walkabilityChecker;
+        this.DIRECTION_FINDER = directionFinder;
+        this.SPAWN_RANDOM = new SplittableRandom(seed);
+        Arrays.fill(this.indices, -1);
+    }
+
+    /**
+     * Añade una entidad, parada, en esa posición.
+     * @return Identificador de la entidad.
+     */
+    public int spawn(Entity.EntityType entityType, float posX, float posY) {
+        int index = this.size++, id;
+
+        if (this.size > this.x.length) {
+            this.grow(this.x.length * 2);
+        }
+        id = this.freeIdsCount > 0 ? this.freeIds[--this.freeIdsCount] : this.nextId++;
+        if (id >= this.indices.length) {
+            int length = this.indices.length;
+            this.indices = Arrays.copyOf(this.indices, length * 2);
+            Arrays.fill(this.indices, length, this.indices.length, -1);
+        }
+
+        this.x[index] = this.previousX[index] = posX;
+        this.y[index] = this.previousY[index] = posY;
+        this.velocityX[index] = this.velocityY[index] = 0;
+        this.types[index] = (byte) entityType.ordinal();
+        this.randomStates[index] = this.SPAWN_RANDOM.nextLong();
+        this.ids[index] = id;
+        this.indices[id] = index;
+
+        if (entityType.ordinal() >= this.typeCounts.length) {
+            this.typeCounts = Arrays.copyOf(this.typeCounts, entityType.ordinal() +1);
+        }
+        this.typeCounts[entityType.ordinal()]++;
+        this.GRID.add(id, posX, posY);
+        return id;
+    }
+
+    /**
+     * Elimina una entidad. La última entidad pasa a ocupar su índice, así que los índices no son estables; los
+     * identificadores sí.
+     * @return Si la entidad existía.
+     */
+    public boolean remove(int id) {
+        int index = this.getIndex(id), last = this.size -1;
+
+        if (index < 0) {
+            return false;
+        }
+
+        this.typeCounts[this.types[index]]--;
+        this.GRID.remove(id);
+        if (index != last) {
+            this.x[index] = this.x[last];
+            this.y[index] = this.y[last];
+            this.previousX[index] = this.previousX[last];
+            this.previousY[index] = this.previousY[last];
+            this.velocityX[index] = this.velocityX[last];
+            this.velocityY[index] = this.velocityY[last];
+            this.types[index] = this.types[last];
+            this.randomStates[index] = this.randomStates[last];
+            this.ids[index] = this.ids[last];
+            this.indices[this.ids[index]] = index;
+        }
+        this.indices[id] = -1;
+        this.size--;
+
+        if (this.freeIdsCount == this.freeIds.length) {
+            this.freeIds = Arrays.copyOf(this.freeIds, this.freeIds.length * 2);
+        }
+        this.freeIds[this.freeIdsCount++] = id;
+        return true;
+    }
+
+    /**
+     * Avanza un tick todas las entidades: guarda su posición anterior, decide su velocidad según su tipo, las mueve y
+     * actualiza la rejilla. Si hay suficientes entidades, los tramos se reparten entre los hilos del pool.
+     * <br>Todas las entidades deciden su velocidad antes de que se mueva ninguna, así que el comportamiento puede
+     * consultar la posición de las demás sin depender del orden ni del número de hilos.
+     */
+    public void tick() {
+        System.arraycopy(this.x, 0, this.previousX, 0, this.size);
+        System.arraycopy(this.y, 0, this.previousY, 0, this.size);
+
+        this.runSystem(false);
+        this.runSystem(true);
+
+        //La rejilla no se puede modificar desde varios hilos a la vez.
+        for (int index = 0; index < this.size; index++) {
+            this.GRID.move(this.ids[index], this.x[index], this.y[index]);
+        }
+    }
+
+    /**
+     * Ejecuta un sistema sobre todas las entidades, repartiéndolas por tramos entre los hilos del pool si hay
+     * suficientes.
+     * @param movement Si es el sistema de movimiento o el de comportamiento.
+     */
+    private void runSystem(boolean movement) {
+        if (this.size <= EntityStore.PARTITION_SIZE) {
+            this.runSystem(movement, 0, this.size);
+        } else {
+            this.POOL.invoke(new TickTask(0, this.size, movement));
+        }
+    }
+
+    /**
+     * Ejecuta un sistema sobre las entidades de un tramo de índices. Sólo escribe en esos índices.
+     */
+    private void runSystem(boolean movement, int from, int to) {
+        if (movement) {
+            this.move(from, to);
+        } else {
+            this.updateBehaviours(from, to);
+        }
+    }
+
+    /**
+     * Comportamiento: cada tipo de entidad decide su velocidad.
+     */
+    private void updateBehaviours(int from, int to) {
+        for (int index = from; index < to; index++) {
+            switch (EntityStore.ENTITY_TYPES[this.types[index]]) {
+                case DUCK -> Duck.wander(this.x, this.y, this.velocityX, this.velocityY, this.randomStates, this.DIRECTION_FINDER, index);
+            }
+        }
+    }
+
+    /**
+     * Movimiento: cada eje se mueve por separado, para que una entidad que choca en un eje pueda deslizarse por el otro.
+     * Si la casilla de destino no es transitable, la velocidad en ese eje pasa a ser 0.
+     */
+    private void move(int from, int to) {
+        for (int index = from; index < to; index++) {
+            float posX = this.x[index], posY = this.y[index];
+
+            if (this.velocityX[index] != 0) {
+                if (this.canMoveTo(posX, posY, posX + this.velocityX[index], posY)) {
+                    this.x[index] = posX += this.velocityX[index];
+                } else {
+                    this.velocityX[index] = 0;
+                }
+            }
+            if (this.velocityY[index] != 0) {
+                if (this.canMoveTo(posX, posY, posX, posY + this.velocityY[index])) {
+                    this.y[index] = posY + this.velocityY[index];
+                } else {
+                    this.velocityY[index] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Si una entidad se puede mover entre esas posiciones: moverse dentro de la misma casilla siempre se puede,
+     * para que una entidad que está en una casilla no transitable no se quede bloqueada.
+     */
+    private boolean canMoveTo(float fromX, float fromY, float toX, float toY) {
+        int tileX = (int) Math.floor(toX), tileY = (int) Math.floor(toY);
+        return (tileX == (int) Math.floor(fromX) && tileY == (int) Math.floor(fromY))
+                || this.WALKABILITY_CHECKER.isWalkable(tileX, tileY);
+    }
+
+    /**
+     * @return Identificadores, de menor a mayor, de las entidades cuya posición está dentro del área (bordes
+     * incluidos). Sólo recorre las celdas de la rejilla que tocan el área.
+     */
+    public int[] getEntitiesIn(float minX, float minY, float maxX, float maxY) {
+        return this.getEntitiesIn(minX, minY, maxX, maxY, 0, 0, -1);
+    }
+
+    /**
+     * @return Identificadores, de menor a mayor, de las entidades que están a una distancia de esa posición menor o
+     * igual que el radio. Sólo recorre las celdas de la rejilla que tocan el círculo.
+     */
+    public int[] getEntitiesNear(float posX, float posY, float radius) {
+        return this.getEntitiesIn(posX - radius, posY - radius, posX + radius, posY + radius, posX, posY, radius * radius);
+    }
+
+    /**
+     * @param radiusSquared Cuadrado del radio del círculo con centro en <code>centerX</code>, <code>centerY</code> en
+     *                      el que tienen que estar las entidades, o un número negativo para no comprobarlo.
+     */
+    private int[] getEntitiesIn(float minX, float minY, float maxX, float maxY, float centerX, float centerY, float radiusSquared) {
+        int minCellX = EntityGrid.toCellCoordinate(minX), minCellY = EntityGrid.toCellCoordinate(minY),
+                maxCellX = EntityGrid.toCellCoordinate(maxX), maxCellY = EntityGrid.toCellCoordinate(maxY);
+        List<EntityGrid.Cell> cells = new ArrayList<>();
+        int[] entities = new int[16];
+        int count = 0;
+
+        //Si el área tiene más celdas que la rejilla es más rápido recorrer las celdas ocupadas.
+        if ((long) (maxCellX - minCellX +1) * (maxCellY - minCellY +1) > this.GRID.getCellsCount()) {
+            this.GRID.addCellsTo(cells);
+        } else {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                EntityGrid.Cell cell = this.GRID.getCell(cellX, cellY);
+                if (cell != null) {
+                    cells.add(cell);
+                }
+            }
+        }
+
+        for (EntityGrid.Cell cell: cells) {
+            for (int slot = 0; slot < cell.size; slot++) {
+                int id = cell.ids[slot], index = this.indices[id];
+                float posX = this.x[index], posY = this.y[index];
+
+                if (posX < minX || posX > maxX || posY < minY || posY > maxY || (radiusSquared >= 0
+                        && (posX - centerX) * (posX - centerX) + (posY - centerY) * (posY - centerY) > radiusSquared)) {
+                    continue;
+                }
+                if (count == entities.length) {
+                    entities = Arrays.copyOf(entities, count * 2);
+                }
+                entities[count++] = id;
+            }
+        }
+
+        entities = Arrays.copyOf(entities, count);
+        Arrays.sort(entities);
+        return entities;
+    }
+
+    /**
+     * Avanza la secuencia aleatoria de una entidad (SplitMix64, como <code>SplittableRandom</code>).
+     * @param randomStates Estados de las secuencias de todas las entidades.
+     * @param index Índice de la entidad.
+     * @return Un número aleatorio entre 0 (incluido) y 1 (excluido).
+     */
+    static float nextFloat(long[] randomStates, int index) {
+        long hash = randomStates[index] += EntityStore.RANDOM_GAMMA;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return ((hash ^ (hash >>> 31)) >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * Copia las posiciones de las entidades de un tipo, en el orden de los arrays.
+     * @param positions Array en el que caben 2 posiciones por cada entidad del tipo, en el que se escriben X e Y.
+     * @param previousPositions Array del mismo tamaño, en el que se escriben las posiciones del tick anterior.
+     */
+    public void copyPositions(Entity.EntityType entityType, float[] positions, float[] previousPositions) {
+        byte type = (byte) entityType.ordinal();
+
+        for (int index = 0, position = 0; index < this.size; index++) {
+            if (this.types[index] == type) {
+                positions[position] = this.x[index];
+                positions[position +1] = this.y[index];
+                previousPositions[position] = this.previousX[index];
+                previousPositions[position +1] = this.previousY[index];
+                position += 2;
+            }
+        }
+    }
+
+    /**
+     * @return Índice de la entidad en los arrays, o <code>-1</code> si no existe.
+     */
+    public int getIndex(int id) {
+        return id >= 0 && id < this.indices.length ? this.indices[id] : -1;
+    }
+
+    public boolean contains(int id) {
+        return this.getIndex(id) >= 0;
+    }
+
+    /**
+     * @return Identificador de la entidad que ocupa ese índice.
+     */
+    public int getId(int index) {
+        return this.ids[index];
+    }
+
+    public float getX(int index) {
+        return this.x[index];
+    }
+
+    public float getY(int index) {
+        return this.y[index];
+    }
+
+    public Entity.EntityType getEntityType(int index) {
+        return EntityStore.ENTITY_TYPES[this.types[index]];
+    }
+
+    /**
+     * @return Número de entidades.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return Número de entidades de ese tipo.
+     */
+    public int size(Entity.EntityType entityType) {
+        return entityType.ordinal() < this.typeCounts.length ? this.typeCounts[entityType.ordinal()] : 0;
+    }
+
+    private void grow(int capacity) {
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.previousX = Arrays.copyOf(this.previousX, capacity);
+        this.previousY = Arrays.copyOf(this.previousY, capacity);
+        this.velocityX = Arrays.copyOf(this.velocityX, capacity);
+        this.velocityY = Arrays.copyOf(this.velocityY, capacity);
+        this.types = Arrays.copyOf(this.types, capacity);
+        this.randomStates = Arrays.copyOf(this.randomStates, capacity);
+        this.ids = Arrays.copyOf(this.ids, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EntityStore(size=%d,capacity=%d)", this.size, this.x.length);
+    }
+
+    /**
+     * Tarea que divide un tramo de índices por la mitad hasta que cada parte tiene como mucho
+     * <code>PARTITION_SIZE</code> entidades, y entonces ejecuta un sistema sobre ellas.
+     */
+    @SuppressWarnings("serial")
+    private final class TickTask extends RecursiveAction {
+        private final int FROM, TO;
+        private final boolean MOVEMENT;
+
+        private TickTask(int from, int to, boolean movement) {
+            this.FROM = from;
+            this.TO = to;
+            this.MOVEMENT = movement;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.TO - this.FROM <= EntityStore.PARTITION_SIZE) {
+                EntityStore.this.runSystem(this.MOVEMENT, this.FROM, this.TO);
+            } else {
+                int middle = (this.FROM + this.TO) >>> 1;
+                ForkJoinTask.invokeAll(new TickTask(this.FROM, middle, this.MOVEMENT), new TickTask(middle, this.TO, this.MOVEMENT));
+            }
+        }
+    }
+
+    /**
+     * Interfaz que define un método que decide si una casilla es transitable. Se llama desde los hilos del tick, así
+     * que no debe modificar nada.
+     */
+    public interface WalkabilityChecker {
+        /**
+         * @return Si una entidad puede entrar en la casilla.
+         */
+        boolean isWalkable(int x, int y);
+    }
+
+    /**
+     * Interfaz que define un método que indica hacia dónde hay que moverse para llegar al objetivo más cercano. Se
+     * llama desde los hilos del tick, así que no debe esperar a nada, y durante un tick tiene que devolver siempre lo
+     * mismo para la misma casilla, para que el tick sea igual sea cual sea el número de hilos.
+     * @see world.pathfinding.PathfindingService#getDirection(Terrain.TerrainType, int, int)
+     */
+    public interface DirectionFinder {
+        /**
+         * @return Dirección de <code>FlowField</code> en la que hay que moverse desde la casilla, o
+         * <code>FlowField.NO_DIRECTION</code> si la casilla ya es un objetivo o no se puede llegar a ninguno.
+         */
+        byte getDirection(Terrain.TerrainType goal, int x, int y);
+    }
+}
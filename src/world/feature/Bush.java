@@ -4,6 +4,8 @@ import org.joml.Vector2d;
 import org.joml.Vector2i;
 import world.location.Location;
 
+import java.util.Random;
+
 public class Bush extends Feature {
     private static final Vector2i FEATURE_SIZE = new Vector2i(1, 1), RANDOM_OFFSET = new Vector2i(0, 2);
 
@@ -11,6 +13,10 @@ public class Bush extends Feature {
         super(location, Bush.FEATURE_SIZE, FeatureType.BUSH);
     }
 
+    public Bush(Location location, Random random) {
+        super(location, Bush.FEATURE_SIZE, FeatureType.BUSH, random);
+    }
+
     @Override
     public Vector2i getRandomOffset() {
         return Bush.RANDOM_OFFSET;
@@ -2,9 +2,11 @@ package world.feature;
 
 import main.Main;
 import org.joml.Vector2i;
+import utils.render.mesh.ChunkedWorldMesh;
 import utils.render.mesh.WorldMesh;
 import utils.render.texture.StaticTexture;
 import utils.render.texture.Texture;
+import world.chunk.Chunk;
 import world.location.Location;
 
 import java.util.Random;
@@ -14,14 +16,27 @@ public abstract class Feature implements Comparable<Feature> {
     private final Location LOCATION;
     private final Vector2i SIZE_IN_BLOCKS;
     private final FeatureType FEATURE_TYPE;
+    /**
+     * Hueco que ocupa la feature en el mesh de su tipo, o <code>-1</code> si no está en él.
+     */
+    private int meshSlot = -1;
 
     public Feature(Location location, Vector2i sizeInBlocks, FeatureType featureType) {
+        this(location, sizeInBlocks, featureType, Feature.RANDOM);
+    }
+
+    /**
+     * @param random Generador aleatorio para el desplazamiento de la feature. La generación del mundo pasa el generador
+     *               del chunk para que el resultado dependa sólo de la semilla. Si es <code>null</code> la feature se
+     *               coloca exactamente en <code>location</code>, como al cargar un mundo guardado.
+     */
+    public Feature(Location location, Vector2i sizeInBlocks, FeatureType featureType, Random random) {
         float offsetX = 0, offsetY = 0;
-        if (this.getRandomOffset().x() != 0) {
-            offsetX = Feature.RANDOM.nextFloat() / this.getRandomOffset().x();
+        if (random != null && this.getRandomOffset().x() != 0) {
+            offsetX = random.nextFloat() / this.getRandomOffset().x();
         }
-        if (this.getRandomOffset().y() != 0) {
-            offsetY = Feature.RANDOM.nextFloat() / this.getRandomOffset().y();
+        if (random != null && this.getRandomOffset().y() != 0) {
+            offsetY = random.nextFloat() / this.getRandomOffset().y();
         }
         this.LOCATION = location.add(offsetX, offsetY);
         this.SIZE_IN_BLOCKS = sizeInBlocks;
@@ -40,18 +55,53 @@ public abstract class Feature implements Comparable<Feature> {
         return new Vector2i(this.SIZE_IN_BLOCKS);
     }
 
+    /**
+     * Posición y tamaño de la feature sin copiar su <code>Location</code> ni su tamaño, para los recorridos que se
+     * hacen sobre muchas features.
+     */
+    public float getX() {
+        return this.LOCATION.getX();
+    }
+
+    public float getY() {
+        return this.LOCATION.getY();
+    }
+
+    public int getSizeX() {
+        return this.SIZE_IN_BLOCKS.x();
+    }
+
+    public int getSizeY() {
+        return this.SIZE_IN_BLOCKS.y();
+    }
+
     public abstract Vector2i getRandomOffset();
 
+    /**
+     * @return Chunk en el que está el origen de la feature, que es el chunk en cuyo mesh se dibuja.
+     */
+    public int getChunkX() {
+        return Chunk.toChunkCoordinate((int) Math.floor(this.LOCATION.getX()));
+    }
+
+    public int getChunkY() {
+        return Chunk.toChunkCoordinate((int) Math.floor(this.LOCATION.getY()));
+    }
+
     @Override
     public int hashCode() {
         return this.LOCATION.hashCode();
     }
 
+    /**
+     * Orden de dibujado: primero las features de más arriba, para que las de abajo se dibujen encima. Las features de la
+     * misma fila se ordenan de izquierda a derecha.
+     */
     @Override
     public int compareTo(Feature feature) {
-        int compareY = Double.compare(feature.getLocation().getY(), this.getLocation().getY());
+        int compareY = Double.compare(feature.getY(), this.getY());
         if (compareY == 0) {
-            return Double.compare(feature.getLocation().getY(), this.getLocation().getY());
+            return Double.compare(this.getX(), feature.getX());
         }
         return compareY;
     }
@@ -60,27 +110,95 @@ public abstract class Feature implements Comparable<Feature> {
         BUSH(new StaticTexture("assets/textures/feature/bush.png")),
         TREE(new StaticTexture("assets/textures/feature/tree.png"));
 
-        private WorldMesh mesh;
+        private static final FeatureType[] VALUES = FeatureType.values();
+
+        private final ChunkedWorldMesh MESH;
         private final Texture TEXTURE;
 
         FeatureType(Texture texture) {
-            this.mesh = new WorldMesh(Main.WORLD.getSize() * Main.WORLD.getSize(), 2, 2);
+            this.MESH = new ChunkedWorldMesh(WorldMesh.DEFAULT_CAPACITY, 2, 2);
             this.TEXTURE = texture;
         }
 
-        public void updateMesh() {
-            this.mesh = new WorldMesh(Main.WORLD.getSize() * Main.WORLD.getSize(), 2, 2);
-            Main.WORLD.getFeaturesMap().get(this).forEach(feature ->
-                    mesh.addVertex(feature.getLocation().getX(), feature.getLocation().getY(), feature.getSize().x(), feature.getSize().y()));
-            this.mesh.load();
+        /**
+         * Vuelve a crear sólo el mesh de un chunk, con las features de este tipo cuyo origen está en él.
+         */
+        private void updateChunkMesh(int chunkX, int chunkY) {
+            this.MESH.removeChunk(chunkX, chunkY);
+            for (Feature feature: Main.WORLD.getFeaturesIn(this, chunkX * Chunk.SIZE, chunkY * Chunk.SIZE,
+                    (chunkX +1) * Chunk.SIZE, (chunkY +1) * Chunk.SIZE)) {
+                if (feature.getChunkX() == chunkX && feature.getChunkY() == chunkY) {
+                    feature.meshSlot = this.MESH.addVertex(feature.getX(), feature.getY(), feature.getSizeX(), feature.getSizeY());
+                }
+            }
+            this.MESH.loadDirty();
         }
 
-        public WorldMesh getMesh() {
-            return this.mesh;
+        /**
+         * Añade una feature al mesh de su chunk, en el primer hueco libre.
+         * <br>Si el hueco deja a la feature por detrás de otra de este tipo y del mismo chunk que debería tapar (o al
+         * revés), se vuelve a crear el mesh del chunk para respetar el orden de dibujado. Si no, sólo se sube su hueco.
+         * @param load Si se sube el cambio a la <code>GPU</code>. Si es <code>false</code> hay que cargar el mesh después.
+         */
+        public void addToMesh(Feature feature, boolean load) {
+            float x = feature.getX(), y = feature.getY();
+            feature.meshSlot = this.MESH.addVertex(x, y, feature.getSizeX(), feature.getSizeY());
+            if (!load) {
+                return;
+            }
+
+            for (Feature overlapping: Main.WORLD.getFeaturesIn(this, x, y, x + feature.getSizeX(), y + feature.getSizeY())) {
+                int order = overlapping.compareTo(feature);
+                if (overlapping != feature && overlapping.getChunkX() == feature.getChunkX() && overlapping.getChunkY() == feature.getChunkY() &&
+                        (order < 0 && overlapping.meshSlot > feature.meshSlot || order > 0 && overlapping.meshSlot < feature.meshSlot)) {
+                    this.updateChunkMesh(feature.getChunkX(), feature.getChunkY());
+                    return;
+                }
+            }
+            this.MESH.loadVertex(x, y, feature.meshSlot);
+        }
+
+        /**
+         * Quita una feature del mesh y deja su hueco libre para la siguiente.
+         * @param load Si se sube el cambio a la <code>GPU</code>. Si es <code>false</code> hay que cargar el mesh después.
+         */
+        public void removeFromMesh(Feature feature, boolean load) {
+            float x = feature.getX(), y = feature.getY();
+            if (feature.meshSlot < 0) {
+                return;
+            }
+
+            this.MESH.removeVertex(x, y, feature.meshSlot);
+            if (load) {
+                this.MESH.loadVertex(x, y, feature.meshSlot);
+            }
+            feature.meshSlot = -1;
+        }
+
+        /**
+         * @param random Generador aleatorio para el desplazamiento, o <code>null</code> para no desplazarla.
+         * @return Una feature nueva de este tipo.
+         */
+        public Feature createFeature(Location location, Random random) {
+            return switch (this) {
+                case BUSH -> new Bush(location, random);
+                case TREE -> new Tree(location, random);
+            };
+        }
+
+        public ChunkedWorldMesh getMesh() {
+            return this.MESH;
         }
 
         public Texture getTexture() {
             return this.TEXTURE;
         }
+
+        /**
+         * @return El tipo de feature con ese ordinal, sin crear una copia de <code>values()</code>.
+         */
+        public static FeatureType valueOf(int ordinal) {
+            return FeatureType.VALUES[ordinal];
+        }
     }
 }
@@ -0,0 +1,122 @@
+package world.feature;
+
+import world.chunk.Chunk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice espacial de features: una rejilla uniforme de celdas de <code>CELL_SIZE</code> x <code>CELL_SIZE</code>
+ * casillas, cada una con la lista de features cuyo origen está en ella.
+ * <br>Las consultas por área sólo recorren las celdas que tocan el área, así que su coste depende del tamaño del área y
+ * no del número total de features. Las features se guardan por identidad, de forma que puede haber cualquier número de
+ * features en la misma fila o en la misma posición.
+ */
+public class FeatureIndex {
+    /**
+     * Número de casillas que tiene una celda en cada eje. Coincide con los chunks, ya que las features se añaden y se
+     * quitan chunk a chunk.
+     */
+    public static final int CELL_SIZE = Chunk.SIZE;
+
+    private final Map<Long, List<Feature>> CELLS = new HashMap<>();
+
+    /**
+     * Número de features del índice y tamaño de la feature más grande, en casillas. Las consultas amplían el área por
+     * abajo y por la izquierda con ese tamaño para encontrar las features que empiezan fuera del área pero la tocan.
+     */
+    private int size = 0, maxFeatureSize = 1;
+
+    public void add(Feature feature) {
+        this.CELLS.computeIfAbsent(FeatureIndex.getCellKey(feature), key -> new ArrayList<>()).add(feature);
+        this.maxFeatureSize = Math.max(this.maxFeatureSize, Math.max(feature.getSizeX(), feature.getSizeY()));
+        this.size++;
+    }
+
+    /**
+     * @return Si la feature estaba en el índice.
+     */
+    public boolean remove(Feature feature) {
+        long key = FeatureIndex.getCellKey(feature);
+        List<Feature> cell = this.CELLS.get(key);
+
+        if (cell == null) {
+            return false;
+        }
+        for (int index = 0; index < cell.size(); index++) {
+            if (cell.get(index) == feature) {
+                cell.remove(index);
+                if (cell.isEmpty()) {
+                    this.CELLS.remove(key);
+                }
+                this.size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Las features que ocupan alguna casilla del área, en orden de dibujado.
+     * @see Feature#compareTo(Feature)
+     */
+    public List<Feature> getFeaturesIn(float minX, float minY, float maxX, float maxY) {
+        List<Feature> features = new ArrayList<>();
+        int minCellX = FeatureIndex.toCellCoordinate((int) Math.floor(minX) - this.maxFeatureSize),
+                minCellY = FeatureIndex.toCellCoordinate((int) Math.floor(minY) - this.maxFeatureSize),
+                maxCellX = FeatureIndex.toCellCoordinate((int) Math.floor(maxX)),
+                maxCellY = FeatureIndex.toCellCoordinate((int) Math.floor(maxY));
+
+        //Si el área tiene más celdas que el índice es más rápido recorrer las celdas ocupadas.
+        if ((long) (maxCellX - minCellX +1) * (maxCellY - minCellY +1) > this.CELLS.size()) {
+            for (List<Feature> cell: this.CELLS.values()) {
+                this.addFeaturesIn(cell, features, minX, minY, maxX, maxY);
+            }
+        } else {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                List<Feature> cell = this.CELLS.get(Chunk.getKey(cellX, cellY));
+                if (cell != null) {
+                    this.addFeaturesIn(cell, features, minX, minY, maxX, maxY);
+                }
+            }
+        }
+
+        Collections.sort(features);
+        return features;
+    }
+
+    /**
+     * @return Todas las features del índice, en orden de dibujado.
+     */
+    public List<Feature> getFeatures() {
+        List<Feature> features = new ArrayList<>(this.size);
+        this.CELLS.values().forEach(features::addAll);
+        Collections.sort(features);
+        return features;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private void addFeaturesIn(List<Feature> cell, List<Feature> features, float minX, float minY, float maxX, float maxY) {
+        for (Feature feature: cell) {
+            float x = feature.getX(), y = feature.getY();
+            if (x <= maxX && x + feature.getSizeX() >= minX && y <= maxY && y + feature.getSizeY() >= minY) {
+                features.add(feature);
+            }
+        }
+    }
+
+    private static long getCellKey(Feature feature) {
+        return Chunk.getKey(FeatureIndex.toCellCoordinate((int) Math.floor(feature.getX())),
+                FeatureIndex.toCellCoordinate((int) Math.floor(feature.getY())));
+    }
+
+    private static int toCellCoordinate(int coordinate) {
+        return Math.floorDiv(coordinate, FeatureIndex.CELL_SIZE);
+    }
+}
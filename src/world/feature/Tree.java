@@ -6,6 +6,8 @@ import org.joml.Vector2f;
 import org.joml.Vector2i;
 import world.location.Location;
 
+import java.util.Random;
+
 public class Tree extends Feature {
     private static final Vector2i FEATURE_SIZE = new Vector2i(1, 2), RANDOM_OFFSET = new Vector2i(4, 4);
 
@@ -13,6 +15,10 @@ public class Tree extends Feature {
         super(location, Tree.FEATURE_SIZE, FeatureType.TREE);
     }
 
+    public Tree(Location location, Random random) {
+        super(location, Tree.FEATURE_SIZE, FeatureType.TREE, random);
+    }
+
     @Override
     public Vector2i getRandomOffset() {
         return Tree.RANDOM_OFFSET;
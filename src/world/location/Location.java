@@ -28,7 +28,7 @@ public class Location implements Cloneable {
     }
 
     public boolean isOutOfTheWorld() {
-        return !(x >= 0 && x < Main.WORLD.getSize() && y >= 0 && y < Main.WORLD.getSize());
+        return Main.WORLD.isOutOfTheWorld((int) Math.floor(this.getX()), (int) Math.floor(this.getY()));
     }
 
     public Location add(float x, float y) {
@@ -38,8 +38,8 @@ public class Location implements Cloneable {
     }
 
     public Location truncate() {
-        this.x = (int) this.getX();
-        this.y = (int) this.getY();
+        this.x = (float) Math.floor(this.getX());
+        this.y = (float) Math.floor(this.getY());
         return this;
     }
 
@@ -48,15 +48,15 @@ public class Location implements Cloneable {
     }
 
     public Vector2i getVector2i() {
-        return new Vector2i((int) this.getX(), (int) this.getY());
+        return new Vector2i((int) Math.floor(this.getX()), (int) Math.floor(this.getY()));
     }
 
     public Terrain getTerrain() {
-        return Main.WORLD.getTerrain((int) this.getX(), (int) this.getY());
+        return Main.WORLD.getTerrain((int) Math.floor(this.getX()), (int) Math.floor(this.getY()));
     }
 
     public Feature getFeature() {
-        return Main.WORLD.getFeature((int) this.getX(), (int) this.getY());
+        return Main.WORLD.getFeature((int) Math.floor(this.getX()), (int) Math.floor(this.getY()));
     }
 
     @Override
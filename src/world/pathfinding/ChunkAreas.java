@@ -0,0 +1,191 @@
+package world.pathfinding;
+
+import world.chunk.Chunk;
+import world.terrain.Terrain;
+
+import java.util.Arrays;
+
+/**
+ * Áreas de un chunk: los grupos de casillas transitables conectadas entre sí dentro del chunk. Son los nodos de las
+ * rutas entre chunks del <code>PathfindingService</code>, de forma que un río o un muro que parte un chunk en dos no se
+ * trata como si se pudiera atravesar.
+ * <br>Las casillas están conectadas si son vecinas en línea recta, ya que las entidades se mueven eje a eje. No se
+ * modifica después de crearse.
+ */
+final class ChunkAreas {
+    /**
+     * Área de las casillas que no son transitables.
+     */
+    static final short NO_AREA = -1;
+
+    /**
+     * Coste de atravesar un área en las rutas entre chunks, multiplicado por el coste medio de sus casillas.
+     */
+    private static final int AREA_COST = 10;
+
+    private final int CHUNK_X, CHUNK_Y;
+
+    /**
+     * Área y coste de cada casilla del chunk, fila a fila empezando por abajo.
+     */
+    private final short[] AREAS;
+    private final byte[] TILE_COSTS;
+
+    /**
+     * Coste medio de las casillas de cada área, multiplicado por <code>AREA_COST</code>.
+     */
+    private final int[] COSTS;
+
+    /**
+     * Un bit por cada tipo de terreno, por ordinal, que hay en cada área o en las casillas vecinas a ella.
+     */
+    private final int[] TERRAIN_TYPES;
+
+    private ChunkAreas(int chunkX, int chunkY, short[] areas, byte[] tileCosts, int[] costs, int[] terrainTypes) {
+        this.CHUNK_X = chunkX;
+        this.CHUNK_Y = chunkY;
+        this.AREAS = areas;
+        this.TILE_COSTS = tileCosts;
+        this.COSTS = costs;
+        this.TERRAIN_TYPES = terrainTypes;
+    }
+
+    /**
+     * Separa las casillas transitables del chunk en áreas.
+     * @return Las áreas del chunk, o <code>null</code> si alguna de sus casillas todavía no está generada.
+     */
+    static ChunkAreas calculate(PathfindingService.TileSource tiles, int chunkX, int chunkY) {
+        int originX = chunkX * Chunk.SIZE, originY = chunkY * Chunk.SIZE, areasCount = 0;
+        Terrain.TerrainType[] terrainTypes = new Terrain.TerrainType[Chunk.SIZE * Chunk.SIZE];
+        short[] areas = new short[terrainTypes.length];
+        byte[] tileCosts = new byte[terrainTypes.length];
+        int[] pending = new int[terrainTypes.length], costs, areaTerrainTypes, tilesCount;
+
+        for (int tile = 0; tile < terrainTypes.length; tile++) {
+            int x = originX + tile % Chunk.SIZE, y = originY + tile / Chunk.SIZE;
+
+            terrainTypes[tile] = tiles.getTerrainType(x, y);
+            if (terrainTypes[tile] == null) {
+                return null;
+            }
+            tileCosts[tile] = (byte) ChunkAreas.getMovementCost(tiles, x, y);
+        }
+
+        //Rellenamos cada área desde la primera casilla que todavía no tiene.
+        Arrays.fill(areas, ChunkAreas.NO_AREA);
+        for (int first = 0; first < areas.length; first++) {
+            int pendingCount = 0;
+
+            if (tileCosts[first] == 0 || areas[first] != ChunkAreas.NO_AREA) {
+                continue;
+            }
+            areas[first] = (short) areasCount;
+            pending[pendingCount++] = first;
+            while (pendingCount > 0) {
+                int tile = pending[--pendingCount], tileX = tile % Chunk.SIZE, tileY = tile / Chunk.SIZE;
+
+                for (int direction = 0; direction < FlowField.DIRECTIONS_COUNT; direction += 2) {
+                    int neighbourX = tileX + FlowField.getDirectionX(direction), neighbourY = tileY + FlowField.getDirectionY(direction),
+                            neighbour = neighbourY * Chunk.SIZE + neighbourX;
+
+                    if (neighbourX >= 0 && neighbourX < Chunk.SIZE && neighbourY >= 0 && neighbourY < Chunk.SIZE
+                            && tileCosts[neighbour] != 0 && areas[neighbour] == ChunkAreas.NO_AREA) {
+                        areas[neighbour] = (short) areasCount;
+                        pending[pendingCount++] = neighbour;
+                    }
+                }
+            }
+            areasCount++;
+        }
+
+        costs = new int[areasCount];
+        areaTerrainTypes = new int[areasCount];
+        tilesCount = new int[areasCount];
+        for (int tile = 0; tile < areas.length; tile++) {
+            int area = areas[tile], tileX = tile % Chunk.SIZE, tileY = tile / Chunk.SIZE;
+
+            if (area == ChunkAreas.NO_AREA) {
+                continue;
+            }
+            costs[area] += tileCosts[tile];
+            tilesCount[area]++;
+            areaTerrainTypes[area] |= 1 << terrainTypes[tile].ordinal();
+
+            //Los objetivos que no son transitables, como el agua, se alcanzan desde las casillas vecinas.
+            for (int direction = 0; direction < FlowField.DIRECTIONS_COUNT; direction += 2) {
+                int neighbourX = tileX + FlowField.getDirectionX(direction), neighbourY = tileY + FlowField.getDirectionY(direction);
+                Terrain.TerrainType terrainType = neighbourX >= 0 && neighbourX < Chunk.SIZE && neighbourY >= 0 && neighbourY < Chunk.SIZE
+                        ? terrainTypes[neighbourY * Chunk.SIZE + neighbourX] : tiles.getTerrainType(originX + neighbourX, originY + neighbourY);
+
+                if (terrainType != null) {
+                    areaTerrainTypes[area] |= 1 << terrainType.ordinal();
+                }
+            }
+        }
+        for (int area = 0; area < areasCount; area++) {
+            costs[area] = Math.max(1, Math.round((float) ChunkAreas.AREA_COST * costs[area] / tilesCount[area]));
+        }
+
+        return new ChunkAreas(chunkX, chunkY, areas, tileCosts, costs, areaTerrainTypes);
+    }
+
+    /**
+     * @return Coste de entrar en la casilla, o <code>0</code> si no está generada, no es transitable o tiene una feature.
+     * @see Terrain.TerrainType#getMovementCost()
+     */
+    static int getMovementCost(PathfindingService.TileSource tiles, int x, int y) {
+        Terrain.TerrainType terrainType = tiles.getTerrainType(x, y);
+        return terrainType == null || tiles.isOccupied(x, y) ? 0 : terrainType.getMovementCost();
+    }
+
+    /**
+     * @param x Posición de la casilla en el eje X, en coordenadas del mundo. Tiene que estar dentro del chunk.
+     * @param y Posición de la casilla en el eje Y, en coordenadas del mundo.
+     * @return Área de la casilla, o <code>NO_AREA</code> si no es transitable.
+     */
+    int getArea(int x, int y) {
+        return this.AREAS[this.getTile(x, y)];
+    }
+
+    /**
+     * @return Coste de entrar en la casilla, o <code>0</code> si no es transitable.
+     */
+    int getTileCost(int x, int y) {
+        return this.TILE_COSTS[this.getTile(x, y)];
+    }
+
+    int getAreasCount() {
+        return this.COSTS.length;
+    }
+
+    /**
+     * @return Coste de atravesar el área en las rutas entre chunks.
+     */
+    int getCost(int area) {
+        return this.COSTS[area];
+    }
+
+    /**
+     * @return Si hay alguna casilla de ese tipo en el área o al lado de ella.
+     */
+    boolean contains(int area, Terrain.TerrainType terrainType) {
+        return (this.TERRAIN_TYPES[area] & 1 << terrainType.ordinal()) != 0;
+    }
+
+    int getChunkX() {
+        return this.CHUNK_X;
+    }
+
+    int getChunkY() {
+        return this.CHUNK_Y;
+    }
+
+    private int getTile(int x, int y) {
+        return (y - this.CHUNK_Y * Chunk.SIZE) * Chunk.SIZE + x - this.CHUNK_X * Chunk.SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ChunkAreas(chunkX=%d,chunkY=%d,areas=%d)", this.CHUNK_X, this.CHUNK_Y, this.COSTS.length);
+    }
+}
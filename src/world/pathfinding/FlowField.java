@@ -0,0 +1,74 @@
+package world.pathfinding;
+
+import world.chunk.Chunk;
+
+/**
+ * Campo de flujo de un chunk hacia un objetivo: la dirección en la que se tiene que mover una entidad desde cada casilla
+ * del chunk. Lo comparten todas las entidades del chunk que se dirigen al mismo objetivo.
+ * <br>Las direcciones apuntan al chunk vecino por el que pasa el camino hacia el objetivo, o a los objetivos si están en
+ * el propio chunk o en su borde. No se modifica después de crearse.
+ * @see PathfindingService
+ */
+public final class FlowField {
+    /**
+     * Dirección de las casillas que son objetivo o desde las que no se puede llegar a ninguno.
+     */
+    public static final byte NO_DIRECTION = -1;
+
+    static final int DIRECTIONS_COUNT = 8;
+
+    /**
+     * Desplazamiento en cada eje de cada dirección: las pares son rectas y las impares diagonales, en sentido
+     * antihorario empezando por la derecha.
+     */
+    private static final int[] DIRECTIONS_X = {1, 1, 0, -1, -1, -1, 0, 1}, DIRECTIONS_Y = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final int CHUNK_X, CHUNK_Y;
+
+    /**
+     * Dirección de cada casilla del chunk, fila a fila empezando por abajo.
+     */
+    private final byte[] DIRECTIONS;
+
+    FlowField(int chunkX, int chunkY, byte[] directions) {
+        this.CHUNK_X = chunkX;
+        this.CHUNK_Y = chunkY;
+        this.DIRECTIONS = directions;
+    }
+
+    /**
+     * @param x Posición de la casilla en el eje X, en coordenadas del mundo. Tiene que estar dentro del chunk.
+     * @param y Posición de la casilla en el eje Y, en coordenadas del mundo.
+     * @return Dirección en la que hay que moverse desde la casilla, o <code>NO_DIRECTION</code>.
+     */
+    public byte getDirection(int x, int y) {
+        return this.DIRECTIONS[(y - this.CHUNK_Y * Chunk.SIZE) * Chunk.SIZE + x - this.CHUNK_X * Chunk.SIZE];
+    }
+
+    public int getChunkX() {
+        return this.CHUNK_X;
+    }
+
+    public int getChunkY() {
+        return this.CHUNK_Y;
+    }
+
+    /**
+     * @return Desplazamiento en el eje X de la dirección: -1, 0 o 1. Es 0 para <code>NO_DIRECTION</code>.
+     */
+    public static int getDirectionX(int direction) {
+        return direction == FlowField.NO_DIRECTION ? 0 : FlowField.DIRECTIONS_X[direction];
+    }
+
+    /**
+     * @return Desplazamiento en el eje Y de la dirección: -1, 0 o 1. Es 0 para <code>NO_DIRECTION</code>.
+     */
+    public static int getDirectionY(int direction) {
+        return direction == FlowField.NO_DIRECTION ? 0 : FlowField.DIRECTIONS_Y[direction];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlowField(chunkX=%d,chunkY=%d)", this.CHUNK_X, this.CHUNK_Y);
+    }
+}
@@ -0,0 +1,102 @@
+package world.pathfinding;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Búsqueda de caminos sobre una rejilla, compartida por los dos niveles del <code>PathfindingService</code>: los chunks
+ * y las casillas de cada chunk.
+ * <br>En vez de buscar un camino desde cada origen, calcula con Dijkstra la distancia de todas las celdas a los objetivos
+ * y, a partir de ella, la dirección en la que hay que moverse desde cada celda.
+ */
+final class GridSearch {
+    /**
+     * Coste de moverse a una celda vecina en línea recta y en diagonal, multiplicado por el coste de la celda.
+     */
+    private static final int STRAIGHT_COST = 10, DIAGONAL_COST = 14;
+
+    private GridSearch() {
+    }
+
+    /**
+     * @param costs Coste de entrar en cada celda, o <code>0</code> si no se puede entrar.
+     * @param seeds Índices de las celdas objetivo. Tienen distancia 0 aunque no se pueda entrar en ellas, para que se
+     *              pueda llegar hasta el borde de, por ejemplo, el agua.
+     * @return Distancia de cada celda al objetivo más cercano, o <code>Integer.MAX_VALUE</code> si no se puede llegar.
+     */
+    static int[] getDistances(int width, int height, int[] costs, int[] seeds, int seedsCount) {
+        int[] distances = new int[width * height];
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        for (int seed = 0; seed < seedsCount; seed++) {
+            distances[seeds[seed]] = 0;
+            queue.add((long) seeds[seed]);
+        }
+
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int cell = (int) entry, distance = (int) (entry >>> 32), cellX = cell % width, cellY = cell / width;
+
+            if (distance > distances[cell]) {
+                continue;
+            }
+            for (int direction = 0; direction < FlowField.DIRECTIONS_COUNT; direction++) {
+                int neighbourX = cellX + FlowField.getDirectionX(direction), neighbourY = cellY + FlowField.getDirectionY(direction),
+                        neighbour = neighbourY * width + neighbourX, neighbourDistance;
+
+                if (!GridSearch.canMove(width, height, costs, cellX, cellY, direction) || costs[neighbour] == 0) {
+                    continue;
+                }
+                neighbourDistance = distance + costs[neighbour] * (direction % 2 == 0 ? GridSearch.STRAIGHT_COST : GridSearch.DIAGONAL_COST);
+                if (neighbourDistance < distances[neighbour]) {
+                    distances[neighbour] = neighbourDistance;
+                    queue.add(((long) neighbourDistance << 32) | neighbour);
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @param distances Distancias calculadas con <code>getDistances</code>.
+     * @return Dirección hacia la celda vecina más cercana al objetivo desde cada celda, o
+     * <code>FlowField.NO_DIRECTION</code> en los objetivos y en las celdas desde las que no se puede llegar.
+     */
+    static byte[] getDirections(int width, int height, int[] costs, int[] distances) {
+        byte[] directions = new byte[width * height];
+
+        for (int cell = 0; cell < directions.length; cell++) {
+            int cellX = cell % width, cellY = cell / width, bestDistance = distances[cell];
+
+            directions[cell] = FlowField.NO_DIRECTION;
+            if (bestDistance == 0 || bestDistance == Integer.MAX_VALUE) {
+                continue;
+            }
+            for (int direction = 0; direction < FlowField.DIRECTIONS_COUNT; direction++) {
+                int neighbour = (cellY + FlowField.getDirectionY(direction)) * width + cellX + FlowField.getDirectionX(direction);
+
+                if (GridSearch.canMove(width, height, costs, cellX, cellY, direction) && distances[neighbour] < bestDistance) {
+                    bestDistance = distances[neighbour];
+                    directions[cell] = (byte) direction;
+                }
+            }
+        }
+        return directions;
+    }
+
+    /**
+     * @return Si la celda vecina en esa dirección está dentro de la rejilla. En diagonal, además, las dos celdas por las
+     * que se pasa tienen que ser transitables, ya que las entidades se mueven eje a eje y no pueden cortar esquinas.
+     */
+    private static boolean canMove(int width, int height, int[] costs, int cellX, int cellY, int direction) {
+        int directionX = FlowField.getDirectionX(direction), directionY = FlowField.getDirectionY(direction),
+                neighbourX = cellX + directionX, neighbourY = cellY + directionY;
+
+        if (neighbourX < 0 || neighbourX >= width || neighbourY < 0 || neighbourY >= height) {
+            return false;
+        }
+        return directionX == 0 || directionY == 0
+                || (costs[cellY * width + neighbourX] != 0 && costs[neighbourY * width + cellX] != 0);
+    }
+}
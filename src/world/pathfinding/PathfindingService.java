@@ -0,0 +1,519 @@
+package world.pathfinding;
+
+import utils.Logger;
+import world.chunk.Chunk;
+import world.terrain.Terrain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Calcula hacia dónde se tienen que mover las entidades para llegar a la casilla más cercana de un tipo de terreno
+ * (por ejemplo, los patos hacia el agua), en dos niveles:
+ * <br>- Rutas entre chunks: Dijkstra sobre las áreas de los chunks de una región, desde las que tienen alguna casilla
+ * objetivo dentro o al lado. Dos áreas de chunks vecinos están conectadas si se tocan en el borde. Se comparten por
+ * objetivo y región.
+ * <br>- Campos de flujo: Dijkstra sobre las casillas de un área, hacia el área del chunk vecino que indica la ruta o
+ * hacia los objetivos si el área tiene alguno. Se comparten por objetivo, área y salida, así que todas las entidades
+ * de un área que van al mismo sitio utilizan el mismo cálculo.
+ * <br>Sólo se buscan caminos dentro de la región, así que los objetivos a más de
+ * <code>REGION_RADIUS - REGION_STEP / 2</code> chunks, o a los que sólo se llega dando un rodeo más largo, se tratan
+ * como si no se pudiera llegar.
+ * <br>Todo se calcula en segundo plano y se guarda hasta que cambia algún chunk implicado. El tick de las entidades
+ * nunca espera a un cálculo: lo pide y no lo ve hasta que <code>startTick</code> lo publica, como pronto
+ * <code>RESULT_DELAY_TICKS</code> ticks después. Los cambios de los chunks también se aplican en
+ * <code>startTick</code>, así que durante un tick todos los hilos ven lo mismo y el resultado no depende de cuántos
+ * haya ni de lo que tarde cada uno.
+ * @see ChunkAreas
+ */
+public class PathfindingService {
+    /**
+     * Radio, en chunks, de la región sobre la que se calculan las rutas entre chunks.
+     */
+    private static final int REGION_RADIUS = 8, REGION_SIZE = 2 * PathfindingService.REGION_RADIUS +1;
+
+    /**
+     * Separación, en chunks, entre los centros de las regiones. Las entidades utilizan la región cuyo centro está más
+     * cerca, así que su chunk está siempre a <code>REGION_RADIUS - REGION_STEP / 2</code> chunks o más del borde.
+     */
+    private static final int REGION_STEP = 4;
+
+    /**
+     * Ticks que pasan desde que se pide un cálculo hasta que se publica. Si en ese tiempo no ha terminado, se publica en
+     * el primer tick en el que esté terminado; sólo en ese caso el resultado depende de la velocidad del ordenador.
+     */
+    private static final int RESULT_DELAY_TICKS = 30;
+
+    /**
+     * Hilos en los que se calculan las rutas y los campos de flujo.
+     */
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "Pathfinding");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final TileSource TILES;
+
+    /**
+     * Áreas de cada chunk, por clave de chunk. Sólo se guardan los chunks que ya están generados.
+     */
+    private final Map<Long, ChunkAreas> CHUNK_AREAS = new ConcurrentHashMap<>();
+
+    /**
+     * Rutas entre chunks, por clave de la región y ordinal del objetivo.
+     */
+    private final Map<Long, Map<Integer, Result<ChunkRoutes>>> ROUTES = new ConcurrentHashMap<>();
+
+    /**
+     * Campos de flujo, por clave del chunk y por <code>getFlowFieldKey</code>.
+     */
+    private final Map<Long, Map<Integer, Result<FlowField>>> FLOW_FIELDS = new ConcurrentHashMap<>();
+
+    /**
+     * Cálculos pedidos que todavía no se han publicado.
+     */
+    private final Queue<Result<?>> PENDING_RESULTS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Claves de los chunks que han cambiado desde el último <code>startTick</code>.
+     */
+    private final Queue<Long> INVALIDATED_CHUNKS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Número de veces que se han aplicado cambios de chunks. Las áreas que se terminan de calcular con un valor
+     * anterior no se guardan, ya que pueden ser de antes del cambio.
+     */
+    private volatile int epoch = 0;
+
+    /**
+     * Tick actual de la simulación. Sólo lo modifica <code>startTick</code>.
+     */
+    private long tick = 0;
+
+    /**
+     * @param tiles De dónde se leen las casillas. Se consulta desde los hilos del servicio.
+     */
+    public PathfindingService(TileSource tiles) {
+        this.TILES = tiles;
+    }
+
+    /**
+     * Devuelve la dirección en la que hay que moverse desde la casilla para llegar al objetivo más cercano, sin esperar.
+     * Si todavía no está publicada se pide que se calcule en segundo plano y se devuelve <code>NO_DIRECTION</code>.
+     * <br>Se llama desde los hilos del tick de las entidades: hasta el siguiente <code>startTick</code> devuelve siempre
+     * lo mismo para la misma casilla.
+     * @return Dirección de <code>FlowField</code>, o <code>FlowField.NO_DIRECTION</code> si todavía no se sabe, si la
+     * casilla ya es un objetivo, si no es transitable o si no se puede llegar a ningún objetivo.
+     */
+    public byte getDirection(Terrain.TerrainType goal, int x, int y) {
+        ChunkRoutes routes = this.getRoutes(goal, Chunk.toChunkCoordinate(x), Chunk.toChunkCoordinate(y)).getPublished();
+        int node = routes == null ? -1 : routes.getNode(x, y);
+        FlowField flowField;
+
+        if (node < 0 || !routes.isReachable(node)) {
+            return FlowField.NO_DIRECTION;
+        }
+        flowField = this.getFlowField(goal, routes, node).getPublished();
+        return flowField == null ? FlowField.NO_DIRECTION : flowField.getDirection(x, y);
+    }
+
+    /**
+     * Marca el chunk como cambiado. Hay que llamarlo cada vez que cambian su terreno o sus features, después de
+     * cambiarlos. Lo que depende de él se descarta en el siguiente <code>startTick</code>.
+     */
+    public void invalidateChunk(int chunkX, int chunkY) {
+        this.INVALIDATED_CHUNKS.add(Chunk.getKey(chunkX, chunkY));
+    }
+
+    /**
+     * Empieza un tick: descarta lo que depende de los chunks que han cambiado y publica los cálculos terminados que se
+     * pidieron hace <code>RESULT_DELAY_TICKS</code> ticks o más. Se llama desde el hilo de simulación antes del tick de
+     * las entidades, nunca a la vez que <code>getDirection</code>.
+     */
+    public void startTick() {
+        Long chunkKey;
+
+        this.tick++;
+        if (!this.INVALIDATED_CHUNKS.isEmpty()) {
+            //Primero cambia la época, para que getChunkAreas no guarde áreas calculadas antes de quitar las viejas.
+            this.epoch++;
+            while ((chunkKey = this.INVALIDATED_CHUNKS.poll()) != null) {
+                this.removeChunkResults((int) (chunkKey >> 32), (int) (long) chunkKey);
+            }
+        }
+
+        for (Iterator<Result<?>> iterator = this.PENDING_RESULTS.iterator(); iterator.hasNext();) {
+            Result<?> result = iterator.next();
+
+            if (result.calculated && this.tick >= result.REQUEST_TICK + PathfindingService.RESULT_DELAY_TICKS) {
+                result.published = true;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Descarta todo lo calculado que depende del chunk: sus áreas y las de sus vecinos (que miran su borde para buscar
+     * objetivos), los campos de flujo de los chunks que utilizan alguna de esas áreas (los vecinos de los vecinos, que
+     * pueden salir hacia ellas) y las rutas de las regiones que las contienen. Los cálculos que siguen en marcha se
+     * terminan, pero ya no se guardan.
+     */
+    private void removeChunkResults(int chunkX, int chunkY) {
+        for (int neighbourX = chunkX -1; neighbourX <= chunkX +1; neighbourX++) for (int neighbourY = chunkY -1; neighbourY <= chunkY +1; neighbourY++) {
+            this.CHUNK_AREAS.remove(Chunk.getKey(neighbourX, neighbourY));
+        }
+
+        for (int regionX = Math.floorDiv(chunkX - PathfindingService.REGION_RADIUS -1, PathfindingService.REGION_STEP);
+             regionX <= Math.floorDiv(chunkX + PathfindingService.REGION_RADIUS +1, PathfindingService.REGION_STEP); regionX++)
+            for (int regionY = Math.floorDiv(chunkY - PathfindingService.REGION_RADIUS -1, PathfindingService.REGION_STEP);
+                 regionY <= Math.floorDiv(chunkY + PathfindingService.REGION_RADIUS +1, PathfindingService.REGION_STEP); regionY++) {
+                this.ROUTES.remove(Chunk.getKey(regionX, regionY));
+            }
+
+        for (int neighbourX = chunkX -2; neighbourX <= chunkX +2; neighbourX++) for (int neighbourY = chunkY -2; neighbourY <= chunkY +2; neighbourY++) {
+            this.FLOW_FIELDS.remove(Chunk.getKey(neighbourX, neighbourY));
+        }
+    }
+
+    /**
+     * @return Las rutas entre chunks de la región más cercana al chunk. Si no están pedidas se piden.
+     */
+    private Result<ChunkRoutes> getRoutes(Terrain.TerrainType goal, int chunkX, int chunkY) {
+        int regionX = Math.floorDiv(chunkX, PathfindingService.REGION_STEP), regionY = Math.floorDiv(chunkY, PathfindingService.REGION_STEP);
+        Map<Integer, Result<ChunkRoutes>> regionRoutes = this.ROUTES.get(Chunk.getKey(regionX, regionY));
+        Result<ChunkRoutes> routes = regionRoutes == null ? null : regionRoutes.get(goal.ordinal());
+
+        //Sólo se crean las lambdas de computeIfAbsent si no están, ya que casi siempre lo están.
+        if (routes == null) {
+            routes = this.ROUTES.computeIfAbsent(Chunk.getKey(regionX, regionY), key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(goal.ordinal(), key -> this.request(() -> this.calculateRoutes(goal, regionX, regionY), "las rutas hacia %s", goal));
+        }
+        return routes;
+    }
+
+    /**
+     * @return El campo de flujo del área de ese nodo de las rutas. Si no está pedido se pide.
+     */
+    private Result<FlowField> getFlowField(Terrain.TerrainType goal, ChunkRoutes routes, int node) {
+        int nextNode = routes.getNextNode(node), area = routes.getArea(node), nextArea = nextNode < 0 ? 0 : routes.getArea(nextNode);
+        byte exitDirection = nextNode < 0 ? FlowField.NO_DIRECTION : routes.getDirection(node, nextNode);
+        ChunkAreas chunkAreas = routes.getChunkAreas(node), nextChunkAreas = nextNode < 0 ? null : routes.getChunkAreas(nextNode);
+        int flowFieldKey = PathfindingService.getFlowFieldKey(goal, area, exitDirection, nextArea);
+        Map<Integer, Result<FlowField>> chunkFlowFields = this.FLOW_FIELDS.get(Chunk.getKey(chunkAreas.getChunkX(), chunkAreas.getChunkY()));
+        Result<FlowField> flowField = chunkFlowFields == null ? null : chunkFlowFields.get(flowFieldKey);
+
+        if (flowField == null) {
+            flowField = this.FLOW_FIELDS.computeIfAbsent(Chunk.getKey(chunkAreas.getChunkX(), chunkAreas.getChunkY()), key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(flowFieldKey, key -> this.request(() -> this.calculateFlowField(goal, chunkAreas, area, exitDirection,
+                            nextChunkAreas, nextArea), "el campo de flujo hacia %s", goal));
+        }
+        return flowField;
+    }
+
+    /**
+     * Pide un cálculo en un hilo del servicio, que se publicará en un <code>startTick</code> posterior.
+     */
+    private <T> Result<T> request(Supplier<T> calculation, String description, Terrain.TerrainType goal) {
+        Result<T> result = new Result<>(this.tick);
+
+        this.PENDING_RESULTS.add(result);
+        PathfindingService.EXECUTOR.execute(() -> result.complete(this.calculate(calculation, description, goal)));
+        return result;
+    }
+
+    /**
+     * Ejecuta un cálculo en un hilo del servicio. Si falla, lo avisa y devuelve <code>null</code>, que se trata como si
+     * no se pudiera llegar al objetivo hasta que se vuelva a calcular.
+     */
+    private <T> T calculate(Supplier<T> calculation, String description, Terrain.TerrainType goal) {
+        try {
+            return calculation.get();
+        } catch (RuntimeException exception) {
+            Logger.sendMessage("Error calculando " + description + ": %s", Logger.LogMessageType.WARNING, goal, exception);
+            return null;
+        }
+    }
+
+    private ChunkRoutes calculateRoutes(Terrain.TerrainType goal, int regionX, int regionY) {
+        int size = PathfindingService.REGION_SIZE, nodesCount,
+                firstChunkX = regionX * PathfindingService.REGION_STEP + PathfindingService.REGION_STEP / 2 - PathfindingService.REGION_RADIUS,
+                firstChunkY = regionY * PathfindingService.REGION_STEP + PathfindingService.REGION_STEP / 2 - PathfindingService.REGION_RADIUS;
+        ChunkAreas[] chunks = new ChunkAreas[size * size];
+        int[] firstNodes = new int[size * size +1], nodeCells, distances, nextNodes;
+        List<List<Integer>> neighbours = new ArrayList<>();
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+
+        //Cada área de cada chunk es un nodo.
+        for (int cell = 0; cell < chunks.length; cell++) {
+            chunks[cell] = this.getChunkAreas(firstChunkX + cell % size, firstChunkY + cell / size);
+            firstNodes[cell +1] = firstNodes[cell] + (chunks[cell] == null ? 0 : chunks[cell].getAreasCount());
+        }
+        nodesCount = firstNodes[chunks.length];
+        nodeCells = new int[nodesCount];
+        for (int cell = 0; cell < chunks.length; cell++) {
+            Arrays.fill(nodeCells, firstNodes[cell], firstNodes[cell +1], cell);
+        }
+        for (int node = 0; node < nodesCount; node++) {
+            neighbours.add(new ArrayList<>());
+        }
+
+        //Conectamos las áreas que se tocan en el borde con el chunk de la derecha y con el de arriba.
+        for (int cell = 0; cell < chunks.length; cell++) {
+            int cellX = cell % size, cellY = cell / size;
+
+            for (int direction = 0; direction <= 2 && chunks[cell] != null; direction += 2) {
+                int neighbourCellX = cellX + FlowField.getDirectionX(direction), neighbourCellY = cellY + FlowField.getDirectionY(direction),
+                        neighbourCell = neighbourCellY * size + neighbourCellX;
+
+                if (neighbourCellX >= size || neighbourCellY >= size || chunks[neighbourCell] == null) {
+                    continue;
+                }
+                for (int tile = 0; tile < Chunk.SIZE; tile++) {
+                    int x = (firstChunkX + cellX) * Chunk.SIZE + (direction == 0 ? Chunk.SIZE -1 : tile),
+                            y = (firstChunkY + cellY) * Chunk.SIZE + (direction == 0 ? tile : Chunk.SIZE -1),
+                            area = chunks[cell].getArea(x, y),
+                            neighbourArea = chunks[neighbourCell].getArea(x + FlowField.getDirectionX(direction), y + FlowField.getDirectionY(direction));
+
+                    if (area != ChunkAreas.NO_AREA && neighbourArea != ChunkAreas.NO_AREA) {
+                        PathfindingService.connect(neighbours, firstNodes[cell] + area, firstNodes[neighbourCell] + neighbourArea);
+                    }
+                }
+            }
+        }
+
+        //Dijkstra desde las áreas que tienen algún objetivo. Cada nodo guarda el siguiente nodo hacia el objetivo.
+        distances = new int[nodesCount];
+        nextNodes = new int[nodesCount];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        Arrays.fill(nextNodes, -1);
+        for (int node = 0; node < nodesCount; node++) {
+            if (chunks[nodeCells[node]].contains(node - firstNodes[nodeCells[node]], goal)) {
+                distances[node] = 0;
+                queue.add((long) node);
+            }
+        }
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int node = (int) entry, distance = (int) (entry >>> 32);
+
+            if (distance > distances[node]) {
+                continue;
+            }
+            for (int neighbour: neighbours.get(node)) {
+                int neighbourDistance = distance + chunks[nodeCells[neighbour]].getCost(neighbour - firstNodes[nodeCells[neighbour]]);
+
+                if (neighbourDistance < distances[neighbour]) {
+                    distances[neighbour] = neighbourDistance;
+                    nextNodes[neighbour] = node;
+                    queue.add(((long) neighbourDistance << 32) | neighbour);
+                }
+            }
+        }
+
+        return new ChunkRoutes(firstChunkX, firstChunkY, chunks, firstNodes, nodeCells, distances, nextNodes);
+    }
+
+    /**
+     * @param exitDirection Dirección del chunk vecino hacia el que hay que salir, o <code>NO_DIRECTION</code> si el área
+     *                      tiene algún objetivo.
+     * @param nextArea Área del chunk vecino a la que hay que llegar.
+     */
+    private FlowField calculateFlowField(Terrain.TerrainType goal, ChunkAreas chunkAreas, int area, byte exitDirection,
+                                         ChunkAreas nextChunkAreas, int nextArea) {
+        //Incluimos una casilla de cada chunk vecino, para poder salir del chunk y llegar a los objetivos del borde. Sólo
+        //se puede entrar en las casillas del área.
+        int size = Chunk.SIZE + 2, firstX = chunkAreas.getChunkX() * Chunk.SIZE -1, firstY = chunkAreas.getChunkY() * Chunk.SIZE -1, seedsCount = 0;
+        int[] costs = new int[size * size], seeds = new int[size * size], distances;
+        byte[] directions, areaDirections = new byte[Chunk.SIZE * Chunk.SIZE];
+
+        for (int cell = 0; cell < costs.length; cell++) {
+            int cellX = cell % size, cellY = cell / size, x = firstX + cellX, y = firstY + cellY;
+            boolean border = cellX == 0 || cellY == 0 || cellX == size -1 || cellY == size -1;
+
+            if (!border && chunkAreas.getArea(x, y) == area) {
+                costs[cell] = chunkAreas.getTileCost(x, y);
+            }
+            if (exitDirection == FlowField.NO_DIRECTION ? this.TILES.getTerrainType(x, y) == goal
+                    : border && Chunk.toChunkCoordinate(x) == nextChunkAreas.getChunkX() && Chunk.toChunkCoordinate(y) == nextChunkAreas.getChunkY()
+                    && nextChunkAreas.getArea(x, y) == nextArea) {
+                seeds[seedsCount++] = cell;
+            }
+        }
+
+        distances = GridSearch.getDistances(size, size, costs, seeds, seedsCount);
+        directions = GridSearch.getDirections(size, size, costs, distances);
+        for (int row = 0; row < Chunk.SIZE; row++) {
+            System.arraycopy(directions, (row +1) * size +1, areaDirections, row * Chunk.SIZE, Chunk.SIZE);
+        }
+        return new FlowField(chunkAreas.getChunkX(), chunkAreas.getChunkY(), areaDirections);
+    }
+
+    /**
+     * @return Las áreas del chunk, o <code>null</code> si todavía no está generado entero. Sólo se guardan si no se ha
+     * aplicado ningún cambio de chunks mientras se calculaban, y si otro hilo ya las ha guardado se devuelven las suyas.
+     */
+    private ChunkAreas getChunkAreas(int chunkX, int chunkY) {
+        long key = Chunk.getKey(chunkX, chunkY);
+        ChunkAreas chunkAreas = this.CHUNK_AREAS.get(key), cachedChunkAreas;
+        int epoch;
+
+        if (chunkAreas == null) {
+            epoch = this.epoch;
+            chunkAreas = ChunkAreas.calculate(this.TILES, chunkX, chunkY);
+            if (chunkAreas != null) {
+                ChunkAreas calculatedChunkAreas = chunkAreas;
+                cachedChunkAreas = this.CHUNK_AREAS.compute(key, (chunkKey, currentChunkAreas) -> currentChunkAreas != null ? currentChunkAreas
+                        : this.epoch == epoch ? calculatedChunkAreas : null);
+                chunkAreas = cachedChunkAreas != null ? cachedChunkAreas : chunkAreas;
+            }
+        }
+        return chunkAreas;
+    }
+
+    private static void connect(List<List<Integer>> neighbours, int node, int neighbour) {
+        if (!neighbours.get(node).contains(neighbour)) {
+            neighbours.get(node).add(neighbour);
+            neighbours.get(neighbour).add(node);
+        }
+    }
+
+    /**
+     * @return Clave de un campo de flujo dentro de su chunk: el objetivo, la salida y las áreas de origen y destino
+     * (un chunk tiene como mucho <code>Chunk.SIZE * Chunk.SIZE / 2</code> áreas).
+     */
+    private static int getFlowFieldKey(Terrain.TerrainType goal, int area, byte exitDirection, int nextArea) {
+        return (goal.ordinal() * (FlowField.DIRECTIONS_COUNT +1) + exitDirection +1) << 20 | area << 10 | nextArea;
+    }
+
+    /**
+     * De dónde lee el servicio las casillas del mundo.
+     */
+    public interface TileSource {
+        /**
+         * @return Tipo de terreno de la casilla, o <code>null</code> si está fuera del mundo o todavía no se ha generado.
+         */
+        Terrain.TerrainType getTerrainType(int x, int y);
+
+        /**
+         * @return Si hay alguna feature en la casilla.
+         */
+        boolean isOccupied(int x, int y);
+    }
+
+    /**
+     * Rutas entre las áreas de los chunks de una región hacia un objetivo: el área a la que hay que ir desde cada área.
+     * Los nodos de cada chunk son consecutivos, en el orden de sus áreas.
+     */
+    private static final class ChunkRoutes {
+        private final int FIRST_CHUNK_X, FIRST_CHUNK_Y;
+        private final ChunkAreas[] CHUNKS;
+
+        /**
+         * Primer nodo de cada chunk de la región, y chunk de cada nodo.
+         */
+        private final int[] FIRST_NODES, NODE_CELLS;
+
+        /**
+         * Distancia de cada nodo al objetivo y siguiente nodo hacia él, o <code>-1</code> si el nodo tiene algún objetivo.
+         */
+        private final int[] DISTANCES, NEXT_NODES;
+
+        private ChunkRoutes(int firstChunkX, int firstChunkY, ChunkAreas[] chunks, int[] firstNodes, int[] nodeCells,
+                            int[] distances, int[] nextNodes) {
+            this.FIRST_CHUNK_X = firstChunkX;
+            this.FIRST_CHUNK_Y = firstChunkY;
+            this.CHUNKS = chunks;
+            this.FIRST_NODES = firstNodes;
+            this.NODE_CELLS = nodeCells;
+            this.DISTANCES = distances;
+            this.NEXT_NODES = nextNodes;
+        }
+
+        /**
+         * @return Nodo del área que contiene la casilla, o <code>-1</code> si la casilla no es transitable o su chunk no
+         * está en la región o no está generado.
+         */
+        private int getNode(int x, int y) {
+            int cellX = Chunk.toChunkCoordinate(x) - this.FIRST_CHUNK_X, cellY = Chunk.toChunkCoordinate(y) - this.FIRST_CHUNK_Y,
+                    cell = cellY * PathfindingService.REGION_SIZE + cellX, area;
+
+            if (cellX < 0 || cellX >= PathfindingService.REGION_SIZE || cellY < 0 || cellY >= PathfindingService.REGION_SIZE
+                    || this.CHUNKS[cell] == null) {
+                return -1;
+            }
+            area = this.CHUNKS[cell].getArea(x, y);
+            return area == ChunkAreas.NO_AREA ? -1 : this.FIRST_NODES[cell] + area;
+        }
+
+        private boolean isReachable(int node) {
+            return this.DISTANCES[node] != Integer.MAX_VALUE;
+        }
+
+        private int getNextNode(int node) {
+            return this.NEXT_NODES[node];
+        }
+
+        private ChunkAreas getChunkAreas(int node) {
+            return this.CHUNKS[this.NODE_CELLS[node]];
+        }
+
+        private int getArea(int node) {
+            return node - this.FIRST_NODES[this.NODE_CELLS[node]];
+        }
+
+        /**
+         * @return Dirección del chunk del segundo nodo desde el chunk del primero. Los dos chunks son vecinos.
+         */
+        private byte getDirection(int node, int nextNode) {
+            int directionX = this.NODE_CELLS[nextNode] % PathfindingService.REGION_SIZE - this.NODE_CELLS[node] % PathfindingService.REGION_SIZE,
+                    directionY = this.NODE_CELLS[nextNode] / PathfindingService.REGION_SIZE - this.NODE_CELLS[node] / PathfindingService.REGION_SIZE;
+
+            for (byte direction = 0; direction < FlowField.DIRECTIONS_COUNT; direction += 2) {
+                if (FlowField.getDirectionX(direction) == directionX && FlowField.getDirectionY(direction) == directionY) {
+                    return direction;
+                }
+            }
+            return FlowField.NO_DIRECTION;
+        }
+    }
+
+    /**
+     * Cálculo pedido en un tick. Se calcula en segundo plano, pero <code>getDirection</code> no lo ve hasta que lo
+     * publica <code>startTick</code>.
+     */
+    private static final class Result<T> {
+        private final long REQUEST_TICK;
+        private volatile boolean calculated = false, published = false;
+        private T value;
+
+        private Result(long requestTick) {
+            this.REQUEST_TICK = requestTick;
+        }
+
+        private void complete(T value) {
+            this.value = value;
+            this.calculated = true;
+        }
+
+        /**
+         * @return El resultado si ya está publicado, o <code>null</code> si no lo está o si el cálculo ha fallado.
+         */
+        private T getPublished() {
+            return this.published ? this.value : null;
+        }
+    }
+}
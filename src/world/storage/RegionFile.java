@@ -0,0 +1,194 @@
+package world.storage;
+
+import world.chunk.Chunk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Fichero binario que guarda una región de <code>SIZE</code> x <code>SIZE</code> chunks.
+ * <br>El fichero empieza con una cabecera (<code>MAGIC</code>, versión del formato, semilla del mundo y posición de la
+ * región) seguida de una tabla con la posición y el tamaño de cada chunk dentro del fichero, así que cualquier chunk se
+ * puede leer sin leer el resto.
+ * <br>El resto del fichero se divide en sectores de <code>SECTOR_BYTES</code> bytes, y cada chunk ocupa sectores
+ * seguidos. Al volver a guardar un chunk se liberan sus sectores y se utiliza el primer hueco en el que quepa, que
+ * puede ser el mismo sitio, así que el fichero sólo crece cuando hay más datos y no cada vez que se guarda.
+ * <br>Para leer se proyecta el fichero en memoria con <code>FileChannel.map</code>: cargar un chunk consiste en copiar
+ * sus bytes, que el sistema operativo trae del disco sólo cuando se tocan.
+ */
+public class RegionFile {
+    /**
+     * Número de chunks que tiene una región en cada eje.
+     */
+    public static final int SIZE = 32;
+
+    /**
+     * Primeros bytes de todos los ficheros de región: <code>TFGR</code> en ASCII.
+     */
+    private static final int MAGIC = 0x54464752;
+
+    /**
+     * Tamaño de la cabecera: magic, versión, semilla, posición de la región y la tabla de chunks (posición y tamaño).
+     */
+    private static final int HEADER_BYTES = 5 * Integer.BYTES, TABLE_BYTES = RegionFile.SIZE * RegionFile.SIZE * 2 * Integer.BYTES;
+
+    /**
+     * Tamaño de los sectores en los que se guardan los chunks, y primer sector después de la cabecera y la tabla.
+     */
+    private static final int SECTOR_BYTES = 4096,
+            FIRST_SECTOR = (RegionFile.HEADER_BYTES + RegionFile.TABLE_BYTES + RegionFile.SECTOR_BYTES -1) / RegionFile.SECTOR_BYTES;
+
+    private final Path PATH;
+    private final int SEED, REGION_X, REGION_Y;
+
+    /**
+     * Proyección en memoria del fichero. Se vuelve a crear después de escribir, ya que el fichero cambia de tamaño.
+     */
+    private MappedByteBuffer mappedFile;
+
+    /**
+     * @param regionX Posición de la región en el eje X, en coordenadas de región.
+     * @param regionY Posición de la región en el eje Y, en coordenadas de región.
+     */
+    public RegionFile(Path path, int seed, int regionX, int regionY) {
+        this.PATH = path;
+        this.SEED = seed;
+        this.REGION_X = regionX;
+        this.REGION_Y = regionY;
+    }
+
+    /**
+     * @return Una vista de sólo lectura de los datos del chunk, o <code>null</code> si no se ha guardado.
+     * @throws IOException Si el fichero no se puede leer, no pertenece a este mundo o está dañado.
+     */
+    public synchronized ByteBuffer readChunk(int chunkX, int chunkY) throws IOException {
+        int tableEntry = RegionFile.getTableEntry(chunkX, chunkY), offset, length;
+
+        if (!Files.exists(this.PATH)) {
+            return null;
+        }
+        if (this.mappedFile == null) {
+            try (FileChannel channel = FileChannel.open(this.PATH, StandardOpenOption.READ)) {
+                this.mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            this.checkHeader(this.mappedFile);
+        }
+
+        if (this.mappedFile.limit() < RegionFile.HEADER_BYTES + RegionFile.TABLE_BYTES) {
+            throw new IOException(String.format("La tabla del fichero de región %s está incompleta", this.PATH));
+        }
+        offset = this.mappedFile.getInt(tableEntry);
+        length = this.mappedFile.getInt(tableEntry + Integer.BYTES);
+        if (offset == 0) {
+            return null;
+        }
+        if (offset < RegionFile.HEADER_BYTES + RegionFile.TABLE_BYTES || length < 0 || (long) offset + length > this.mappedFile.limit()) {
+            throw new IOException(String.format("El chunk (%d, %d) del fichero de región %s está fuera del fichero (posición %d, tamaño %d)",
+                    chunkX, chunkY, this.PATH, offset, length));
+        }
+        return this.mappedFile.slice(offset, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Escribe los datos del chunk en el primer hueco de sectores libres en el que caben, contando como libres los que
+     * ocupaba su versión anterior, y actualiza la tabla para que apunte a ellos. Si el fichero no existe se crea con la
+     * cabecera y la tabla vacía.
+     * @param data Datos del chunk, desde su posición hasta su límite.
+     */
+    public synchronized void writeChunk(int chunkX, int chunkY, ByteBuffer data) throws IOException {
+        ByteBuffer tableEntry = ByteBuffer.allocate(2 * Integer.BYTES), table = ByteBuffer.allocate(RegionFile.TABLE_BYTES);
+        long offset;
+
+        try (FileChannel channel = FileChannel.open(this.PATH, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(RegionFile.HEADER_BYTES + RegionFile.TABLE_BYTES);
+                header.putInt(RegionFile.MAGIC).putInt(WorldStorage.VERSION).putInt(this.SEED).putInt(this.REGION_X).putInt(this.REGION_Y);
+                header.rewind();
+                channel.write(header, 0);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(RegionFile.HEADER_BYTES);
+                channel.read(header, 0);
+                this.checkHeader(header);
+            }
+            channel.read(table, RegionFile.HEADER_BYTES);
+
+            offset = (long) RegionFile.findFreeSectors(table, RegionFile.getTableEntry(chunkX, chunkY) - RegionFile.HEADER_BYTES,
+                    data.remaining()) * RegionFile.SECTOR_BYTES;
+            if (offset + data.remaining() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("El fichero de región %s es demasiado grande", this.PATH));
+            }
+            tableEntry.putInt((int) offset).putInt(data.remaining()).flip();
+            channel.write(data, offset);
+            channel.write(tableEntry, RegionFile.getTableEntry(chunkX, chunkY));
+        }
+        this.mappedFile = null;
+    }
+
+    /**
+     * Busca, con los sectores que ocupan los chunks de la tabla, el primer hueco con sitio para los datos. Si no hay
+     * ninguno devuelve el primer sector libre del final, lo que hace crecer el fichero.
+     * @param table Tabla de chunks leída del fichero. Si está incompleta, las entradas que faltan se tratan como vacías.
+     * @param ignoredEntry Posición, dentro de la tabla, de la entrada del chunk que se va a sustituir.
+     * @param length Tamaño de los datos, en bytes.
+     * @return Primer sector del hueco.
+     */
+    private static int findFreeSectors(ByteBuffer table, int ignoredEntry, int length) {
+        int sectorsCount = Math.max(1, (length + RegionFile.SECTOR_BYTES -1) / RegionFile.SECTOR_BYTES), sector = RegionFile.FIRST_SECTOR, usedSector;
+        BitSet usedSectors = new BitSet();
+
+        for (int entry = 0; entry + 2 * Integer.BYTES <= table.position(); entry += 2 * Integer.BYTES) {
+            int entryOffset = table.getInt(entry), entryLength = table.getInt(entry + Integer.BYTES);
+
+            if (entry != ignoredEntry && entryOffset > 0 && entryLength >= 0) {
+                usedSectors.set(entryOffset / RegionFile.SECTOR_BYTES,
+                        (int) (((long) entryOffset + entryLength + RegionFile.SECTOR_BYTES -1) / RegionFile.SECTOR_BYTES));
+            }
+        }
+
+        //El hueco termina en el siguiente sector ocupado; si no hay ninguno llega hasta el final del fichero.
+        while ((usedSector = usedSectors.nextSetBit(sector = usedSectors.nextClearBit(sector))) >= 0 && usedSector - sector < sectorsCount) {
+            sector = usedSector;
+        }
+        return sector;
+    }
+
+    private void checkHeader(ByteBuffer header) throws IOException {
+        if (header.limit() < RegionFile.HEADER_BYTES || header.getInt(0) != RegionFile.MAGIC) {
+            throw new IOException(String.format("%s no es un fichero de región", this.PATH));
+        }
+        if (header.getInt(Integer.BYTES) != WorldStorage.VERSION) {
+            throw new IOException(String.format("%s tiene la versión %d, pero se esperaba la %d", this.PATH,
+                    header.getInt(Integer.BYTES), WorldStorage.VERSION));
+        }
+        if (header.getInt(2 * Integer.BYTES) != this.SEED) {
+            throw new IOException(String.format("%s pertenece a otro mundo (semilla %d)", this.PATH, header.getInt(2 * Integer.BYTES)));
+        }
+    }
+
+    /**
+     * @return Posición, dentro del fichero, de la entrada de la tabla que corresponde al chunk.
+     */
+    private static int getTableEntry(int chunkX, int chunkY) {
+        int index = Math.floorMod(chunkX, RegionFile.SIZE) * RegionFile.SIZE + Math.floorMod(chunkY, RegionFile.SIZE);
+        return RegionFile.HEADER_BYTES + index * 2 * Integer.BYTES;
+    }
+
+    /**
+     * @param chunkCoordinate Coordenada de un chunk.
+     * @return Coordenada de la región que contiene el chunk.
+     */
+    public static int toRegionCoordinate(int chunkCoordinate) {
+        return Math.floorDiv(chunkCoordinate, RegionFile.SIZE);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RegionFile(x=%d,y=%d,path=%s)", this.REGION_X, this.REGION_Y, this.PATH);
+    }
+}
@@ -0,0 +1,201 @@
+package world.storage;
+
+import world.chunk.Chunk;
+import world.entity.Entity;
+import world.feature.Feature;
+import world.location.Location;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Carpeta en la que se guarda un mundo en formato binario.
+ * <br>El fichero <code>world.dat</code> guarda los datos globales del mundo (versión del formato, semilla, tamaño, hora
+ * del día y entidades). El terreno y las features se guardan por chunks en ficheros de región, de forma que en el modo
+ * infinito se pueden cargar y guardar chunks sueltos.
+ * @see RegionFile
+ */
+public class WorldStorage {
+    /**
+     * Versión del formato. Hay que cambiarla cada vez que cambie la forma en la que se guardan los datos.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Primeros bytes de <code>world.dat</code>: <code>TFGW</code> en ASCII.
+     */
+    private static final int MAGIC = 0x54464757;
+
+    /**
+     * Bytes que ocupa cada feature y cada entidad: tipo y posición.
+     */
+    private static final int ELEMENT_BYTES = 1 + 2 * Float.BYTES;
+
+    private final Path DIRECTORY, LEVEL_PATH;
+    private final Map<Long, RegionFile> REGIONS = new ConcurrentHashMap<>();
+
+    public WorldStorage(Path directory) {
+        this.DIRECTORY = directory;
+        this.LEVEL_PATH = directory.resolve("world.dat");
+    }
+
+    /**
+     * @return Si ya hay un mundo guardado en la carpeta.
+     */
+    public boolean exists() {
+        return Files.exists(this.LEVEL_PATH);
+    }
+
+    /**
+     * @return Los datos globales del mundo guardado.
+     * @throws IOException Si no hay un mundo guardado o es de otra versión.
+     */
+    public Level readLevel() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.LEVEL_PATH));
+        Level level;
+
+        if (buffer.remaining() < 7 * Integer.BYTES || buffer.getInt() != WorldStorage.MAGIC) {
+            throw new IOException(String.format("%s no es un mundo guardado", this.LEVEL_PATH));
+        }
+        if (buffer.getInt() != WorldStorage.VERSION) {
+            throw new IOException(String.format("%s tiene la versión %d, pero se esperaba la %d", this.LEVEL_PATH,
+                    buffer.getInt(Integer.BYTES), WorldStorage.VERSION));
+        }
+
+        level = new Level(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+        level.entities = buffer.slice();
+        return level;
+    }
+
+    /**
+     * Guarda los datos globales del mundo, sustituyendo los anteriores.
+     * @param entities Entidades del mundo.
+     */
+    public void writeLevel(Level level, List<Entity> entities) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(7 * Integer.BYTES + entities.size() * WorldStorage.ELEMENT_BYTES);
+
+        buffer.putInt(WorldStorage.MAGIC).putInt(WorldStorage.VERSION)
+                .putInt(level.SEED).putInt(level.SIZE).putInt(level.LOAD_RADIUS).putInt(level.DAY_TIME)
+                .putInt(entities.size());
+        for (Entity entity: entities) {
+            buffer.put((byte) entity.getEntityType().ordinal())
+                    .putFloat(entity.getLocation().getX()).putFloat(entity.getLocation().getY());
+        }
+        buffer.flip();
+
+        Files.createDirectories(this.DIRECTORY);
+        try (FileChannel channel = FileChannel.open(this.LEVEL_PATH, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Carga el terreno de un chunk guardado. Igual que al generarlo, no lo marca como generado.
+     * @param seed Semilla del mundo, que tiene que coincidir con la del fichero de región.
+     * @return Las features cuyo origen está en el chunk, o <code>null</code> si el chunk no está guardado.
+     */
+    public List<Feature> readChunk(Chunk chunk, int seed) throws IOException {
+        ByteBuffer buffer = this.getRegion(chunk, seed).readChunk(chunk.getChunkX(), chunk.getChunkY());
+        List<Feature> features;
+
+        if (buffer == null) {
+            return null;
+        }
+
+        chunk.readTerrain(buffer);
+        features = new ArrayList<>();
+        for (int feature = buffer.getInt(); feature > 0; feature--) {
+            features.add(Feature.FeatureType.valueOf(buffer.get()).createFeature(new Location(buffer.getFloat(), buffer.getFloat()), null));
+        }
+        return features;
+    }
+
+    /**
+     * Guarda el terreno de un chunk generado junto con las features cuyo origen está en él.
+     */
+    public void writeChunk(Chunk chunk, List<Feature> features, int seed) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Chunk.TERRAIN_BYTES + Integer.BYTES + features.size() * WorldStorage.ELEMENT_BYTES);
+
+        chunk.writeTerrain(buffer);
+        buffer.putInt(features.size());
+        for (Feature feature: features) {
+            buffer.put((byte) feature.getFeatureType().ordinal())
+                    .putFloat(feature.getLocation().getX()).putFloat(feature.getLocation().getY());
+        }
+        buffer.flip();
+
+        Files.createDirectories(this.DIRECTORY);
+        this.getRegion(chunk, seed).writeChunk(chunk.getChunkX(), chunk.getChunkY(), buffer);
+    }
+
+    private RegionFile getRegion(Chunk chunk, int seed) {
+        int regionX = RegionFile.toRegionCoordinate(chunk.getChunkX()), regionY = RegionFile.toRegionCoordinate(chunk.getChunkY());
+        return this.REGIONS.computeIfAbsent(Chunk.getKey(regionX, regionY), key ->
+                new RegionFile(this.DIRECTORY.resolve(String.format("r.%d.%d.region", regionX, regionY)), seed, regionX, regionY));
+    }
+
+    /**
+     * Datos globales de un mundo guardado.
+     */
+    public static class Level {
+        private final int SEED, SIZE, LOAD_RADIUS, DAY_TIME;
+        /**
+         * Entidades guardadas, sin decodificar. Las entidades no se crean hasta que se piden, ya que sus tipos cargan
+         * recursos de renderizado.
+         */
+        private ByteBuffer entities;
+
+        /**
+         * @param size Lado del mundo, en casillas. En el modo infinito no se utiliza.
+         * @param loadRadius Radio de carga del modo infinito, o <code>0</code> si el mundo tiene un tamaño fijo.
+         */
+        public Level(int seed, int size, int loadRadius, int dayTime) {
+            this.SEED = seed;
+            this.SIZE = size;
+            this.LOAD_RADIUS = loadRadius;
+            this.DAY_TIME = dayTime;
+        }
+
+        public int getSeed() {
+            return this.SEED;
+        }
+
+        public int getSize() {
+            return this.SIZE;
+        }
+
+        public int getLoadRadius() {
+            return this.LOAD_RADIUS;
+        }
+
+        public int getDayTime() {
+            return this.DAY_TIME;
+        }
+
+        /**
+         * @return Las entidades guardadas con el mundo, creadas de nuevo en cada llamada.
+         */
+        public List<Entity> createEntities() {
+            List<Entity> entities = new ArrayList<>();
+            ByteBuffer buffer;
+
+            if (this.entities == null) {
+                return entities;
+            }
+            buffer = this.entities.duplicate();
+            for (int entity = buffer.getInt(); entity > 0; entity--) {
+                entities.add(Entity.EntityType.valueOf(buffer.get()).createEntity(new Location(buffer.getFloat(), buffer.getFloat())));
+            }
+            return entities;
+        }
+    }
+}
@@ -1,15 +1,37 @@
 package world.terrain;
 
-import main.Main;
-import utils.render.mesh.WorldMesh;
-import utils.render.texture.AnimatedTexture;
-import utils.render.texture.StaticTexture;
-import utils.render.texture.Texture;
+import utils.render.mesh.ChunkedWorldMesh;
+import utils.render.texture.TextureAtlas;
+import world.chunk.Chunk;
 import world.worldBuilder.Biome;
 
+import java.util.Arrays;
 import java.util.Random;
 
+/**
+ * Vista inmutable del terreno de una casilla. El mundo no guarda estos objetos: los datos se almacenan empaquetados en
+ * los chunks y la vista se crea cuando se consulta una casilla.
+ * @see world.chunk.Chunk
+ */
 public class Terrain {
+    /**
+     * Terreno que se devuelve para las casillas cuyo chunk todavía se está generando.
+     */
+    public static final Terrain PLACEHOLDER = new Terrain(Biome.OCEAN.getTerrainType(), Biome.OCEAN, 0, 0, 0);
+
+    /**
+     * Mesh con las casillas de todos los tipos de terreno. Cada vértice lleva, además de la posición y las coordenadas
+     * UV, el ordinal de su tipo de terreno, que el shader utiliza para elegir su región del atlas. Así todo el terreno
+     * visible se dibuja en una sola llamada por chunk.
+     * @see TerrainType#getAtlasRegions()
+     */
+    public static final ChunkedWorldMesh MESH = new ChunkedWorldMesh(Chunk.SIZE * Chunk.SIZE, 2, 2, 1);
+
+    /**
+     * Atlas con las texturas de todos los tipos de terreno, incluidos todos los frames de las animadas.
+     */
+    public static final TextureAtlas ATLAS = new TextureAtlas(TerrainType.getTexturePaths());
+
     private final TerrainType TYPE;
     private final Biome BIOME;
     private final double CONTINENTALITY_NOISE, WEIRDNESS_NOISE, RIVERS_NOISE;
@@ -43,37 +65,136 @@ public class Terrain {
     }
 
     public enum TerrainType {
-        WATER(new AnimatedTexture("assets/textures/terrain/water", 5, 8), false),
-        GRASS(new StaticTexture("assets/textures/terrain/grass.png"), true),
-        SAND(new StaticTexture("assets/textures/terrain/sand.png"), true),
-        STONE(new StaticTexture("assets/textures/terrain/stone.png"), true),
-        SNOW(new StaticTexture("assets/textures/terrain/snow.png"), true),
-        GRAVEL(new StaticTexture("assets/textures/terrain/gravel.png"), true);
-
-        private final WorldMesh MESH;
-        private final Texture TEXTURE;
-
-        TerrainType(Texture texture, boolean hasRandomUV) {
-            if (hasRandomUV) {
-                this.MESH = new WorldMesh(Main.WORLD.getSize() * Main.WORLD.getSize(), new int[]{2, 2},
-                        () -> switch (new Random().nextInt(4)) {
-                            case 0 -> new int[]{1, 1, 0, 0, 1, 0, 0, 1};
-                            case 1 -> new int[]{1, 1, 0, 0, 0, 1, 1, 0};
-                            case 2 -> new int[]{0, 0, 1, 1, 1, 0, 0, 1};
-                            default -> new int[]{0, 0, 1, 1, 0, 1, 1, 0};
-                });
-            } else {
-                this.MESH = new WorldMesh(Main.WORLD.getSize() * Main.WORLD.getSize(), 2, 2);
+        WATER("assets/textures/terrain/water", 5, 8, false),
+        GRASS("assets/textures/terrain/grass.png", true),
+        SAND("assets/textures/terrain/sand.png", true),
+        STONE("assets/textures/terrain/stone.png", true),
+        SNOW("assets/textures/terrain/snow.png", true),
+        GRAVEL("assets/textures/terrain/gravel.png", true);
+
+        private static final TerrainType[] VALUES = TerrainType.values();
+
+        /**
+         * Las 4 formas de girar la textura de una casilla, para que el terreno no se vea repetido.
+         */
+        private static final int[][] RANDOM_UV_COORDS = {
+                {1, 1, 0, 0, 1, 0, 0, 1},
+                {1, 1, 0, 0, 0, 1, 1, 0},
+                {0, 0, 1, 1, 1, 0, 0, 1},
+                {0, 0, 1, 1, 0, 1, 1, 0}
+        };
+        private static final Random RANDOM = new Random();
+
+        /**
+         * Coordenadas UV de la región de cada tipo de terreno en el frame actual, 4 posiciones por tipo.
+         */
+        private static final float[] ATLAS_REGIONS = new float[TerrainType.VALUES.length * 4];
+
+        /**
+         * Número de frames que se han dibujado, para las texturas animadas.
+         */
+        private static int frame = 0;
+
+        /**
+         * Rutas a los archivos .png de cada frame de la textura.
+         */
+        private final String[] PATHS;
+
+        /**
+         * Número de frames que tienen que pasar para pasar al siguiente sprite.
+         */
+        private final int FPS;
+        private final boolean HAS_RANDOM_UV;
+
+        /**
+         * Índice del primer frame de la textura dentro del atlas.
+         */
+        private int firstAtlasImage;
+
+        /**
+         * @param path Ruta al directorio que contiene todos los sprites. Cada sprite se llama con el índice (empezando
+         *             por el 0) seguido de la extensión .png.
+         * @param spriteCount Número de sprites que tiene la textura animada.
+         * @param fps Número de frames que tiene que pasar para que pase al siguiente sprite.
+         */
+        TerrainType(String path, int spriteCount, int fps, boolean hasRandomUV) {
+            this.PATHS = new String[spriteCount];
+            for (int sprite = 0; sprite < spriteCount; sprite++) {
+                this.PATHS[sprite] = String.format("%s/%s.png", path, sprite);
+            }
+            this.FPS = fps;
+            this.HAS_RANDOM_UV = hasRandomUV;
+        }
+
+        /**
+         * @param path Ruta al archivo .png de la textura.
+         */
+        TerrainType(String path, boolean hasRandomUV) {
+            this.PATHS = new String[]{path};
+            this.FPS = 1;
+            this.HAS_RANDOM_UV = hasRandomUV;
+        }
+
+        /**
+         * @return Si las entidades pueden caminar por este tipo de terreno.
+         */
+        public boolean isWalkable() {
+            return this != TerrainType.WATER;
+        }
+
+        /**
+         * @return Coste relativo de caminar por una casilla de este tipo, o <code>0</code> si no es transitable.
+         * @see TerrainType#isWalkable()
+         */
+        public int getMovementCost() {
+            return switch (this) {
+                case WATER -> 0;
+                case GRASS, STONE, GRAVEL -> 1;
+                case SAND, SNOW -> 2;
+            };
+        }
+
+        /**
+         * @return Las coordenadas UV de una casilla nueva de este tipo, giradas al azar si el tipo lo permite.
+         */
+        public int[] getUVCoords() {
+            return TerrainType.RANDOM_UV_COORDS[this.HAS_RANDOM_UV ? TerrainType.RANDOM.nextInt(4) : 0];
+        }
+
+        /**
+         * Avanza un frame las texturas animadas.
+         * @return Las coordenadas UV de la región del atlas de cada tipo de terreno, 4 posiciones por tipo y en el
+         * orden de los ordinales. Se sube al shader como <code>uRegions</code>.
+         */
+        public static float[] getAtlasRegions() {
+            TerrainType.frame++;
+            for (TerrainType terrainType: TerrainType.VALUES) {
+                int sprite = (TerrainType.frame / terrainType.FPS) % terrainType.PATHS.length;
+                Terrain.ATLAS.getRegion(terrainType.firstAtlasImage + sprite, TerrainType.ATLAS_REGIONS, terrainType.ordinal() * 4);
             }
-            this.TEXTURE = texture;
+            return TerrainType.ATLAS_REGIONS;
         }
 
-        public WorldMesh getMesh() {
-            return this.MESH;
+        /**
+         * @return Las rutas de todos los frames de todos los tipos de terreno, en orden, para crear el atlas.
+         */
+        private static String[] getTexturePaths() {
+            String[] paths = new String[Arrays.stream(TerrainType.VALUES).mapToInt(terrainType -> terrainType.PATHS.length).sum()];
+            int image = 0;
+
+            for (TerrainType terrainType: TerrainType.VALUES) {
+                terrainType.firstAtlasImage = image;
+                System.arraycopy(terrainType.PATHS, 0, paths, image, terrainType.PATHS.length);
+                image += terrainType.PATHS.length;
+            }
+            return paths;
         }
 
-        public Texture getTexture() {
-            return this.TEXTURE;
+        /**
+         * @return El tipo de terreno con ese ordinal, sin crear una copia de <code>values()</code>.
+         */
+        public static TerrainType valueOf(int ordinal) {
+            return TerrainType.VALUES[ordinal];
         }
     }
 }
@@ -18,6 +18,13 @@ public enum Biome {
     MOUNTAIN(new double[]{1.1, 0.7,                 2, -2,              2, -2}, Terrain.TerrainType.STONE),
     SNOWY_MOUNTAIN(new double[]{2, 1.1,             2, -2,              2, -2}, Terrain.TerrainType.SNOW);
 
+    private static final Biome[] VALUES = Biome.values();
+
+    /**
+     * Tabla que clasifica el ruido en biomas con el mismo resultado que <code>generateBiomeByRanges</code>.
+     */
+    private static final BiomeClassifier CLASSIFIER = new BiomeClassifier(Biome.VALUES, Biome.OCEAN);
+
     public final double[] NOISE;
     private final Terrain.TerrainType TERRAIN_BASE_TYPE;
 
@@ -30,8 +37,27 @@ public enum Biome {
         return this.TERRAIN_BASE_TYPE;
     }
 
+    /**
+     * @return El bioma con ese ordinal, sin crear una copia de <code>values()</code>.
+     */
+    public static Biome valueOf(int ordinal) {
+        return Biome.VALUES[ordinal];
+    }
+
+    /**
+     * @return El primer bioma cuyos rangos de <code>NOISE</code> contienen el ruido, u <code>OCEAN</code> si no hay
+     * ninguno. Se consulta en una tabla precalculada, sin recorrer los biomas.
+     * @see Biome#generateBiomeByRanges(double, double, double)
+     */
     public static Biome generateBiome(double continentality, double weirdness, double river) {
-        for (Biome biome: Biome.values()) {
+        return Biome.CLASSIFIER.classify(continentality, weirdness, river);
+    }
+
+    /**
+     * Implementación de referencia de <code>generateBiome</code>: comprueba los rangos de cada bioma en orden.
+     */
+    public static Biome generateBiomeByRanges(double continentality, double weirdness, double river) {
+        for (Biome biome: Biome.VALUES) {
             if (continentality <= biome.NOISE[0] && continentality > biome.NOISE[1] &&
             weirdness <= biome.NOISE[2] && weirdness > biome.NOISE[3] &&
             river <= biome.NOISE[4] && river > biome.NOISE[5]) return biome;
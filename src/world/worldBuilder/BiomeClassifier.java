@@ -0,0 +1,158 @@
+package world.worldBuilder;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Tabla precalculada que clasifica el ruido de una casilla en un bioma sin recorrer todos los biomas.
+ * <br>Los rangos de <code>Biome.NOISE</code> dividen cada eje en intervalos <code>(límite anterior, límite]</code>. Dentro
+ * de un mismo intervalo todas las comprobaciones de los biomas dan el mismo resultado, así que basta con calcular qué
+ * bioma gana en cada combinación de intervalos una sola vez. Clasificar una casilla consiste en buscar su intervalo en
+ * cada eje y leer la tabla, sin crear ningún objeto.
+ *
+ * @see Biome#generateBiome(double, double, double)
+ */
+final class BiomeClassifier {
+    private final Axis CONTINENTALITY, WEIRDNESS, RIVERS;
+
+    /**
+     * Bioma de cada combinación de intervalos.
+     */
+    private final Biome[] TABLE;
+
+    /**
+     * @param biomes Biomas en el orden en el que se comprueban. Gana el primero que encaje.
+     * @param defaultBiome Bioma que se devuelve si ninguno encaja.
+     */
+    BiomeClassifier(Biome[] biomes, Biome defaultBiome) {
+        this.CONTINENTALITY = new Axis(biomes, 0);
+        this.WEIRDNESS = new Axis(biomes, 2);
+        this.RIVERS = new Axis(biomes, 4);
+        this.TABLE = new Biome[this.CONTINENTALITY.getIntervalsCount() * this.WEIRDNESS.getIntervalsCount() * this.RIVERS.getIntervalsCount()];
+
+        for (int continentality = 0; continentality < this.CONTINENTALITY.getIntervalsCount(); continentality++)
+            for (int weirdness = 0; weirdness < this.WEIRDNESS.getIntervalsCount(); weirdness++)
+                for (int rivers = 0; rivers < this.RIVERS.getIntervalsCount(); rivers++) {
+                    Biome result = defaultBiome;
+                    for (Biome biome: biomes) {
+                        if (this.CONTINENTALITY.contains(continentality, biome.NOISE[1], biome.NOISE[0]) &&
+                                this.WEIRDNESS.contains(weirdness, biome.NOISE[3], biome.NOISE[2]) &&
+                                this.RIVERS.contains(rivers, biome.NOISE[5], biome.NOISE[4])) {
+                            result = biome;
+                            break;
+                        }
+                    }
+                    this.TABLE[this.getTableIndex(continentality, weirdness, rivers)] = result;
+                }
+    }
+
+    /**
+     * @return El bioma que corresponde al ruido de una casilla.
+     */
+    Biome classify(double continentality, double weirdness, double rivers) {
+        return this.TABLE[this.getTableIndex(
+                this.CONTINENTALITY.getInterval(continentality),
+                this.WEIRDNESS.getInterval(weirdness),
+                this.RIVERS.getInterval(rivers))];
+    }
+
+    private int getTableIndex(int continentality, int weirdness, int rivers) {
+        return (continentality * this.WEIRDNESS.getIntervalsCount() + weirdness) * this.RIVERS.getIntervalsCount() + rivers;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BiomeClassifier(continentality=%s, weirdness=%s, rivers=%s)", this.CONTINENTALITY, this.WEIRDNESS, this.RIVERS);
+    }
+
+    /**
+     * Uno de los tres ejes de ruido, dividido en intervalos por los límites de los biomas.
+     * <br>Para encontrar el intervalo de un valor en tiempo constante se divide el eje en celdas uniformes más pequeñas
+     * que la distancia entre dos límites, y cada celda guarda el intervalo en el que empieza. Como una celda contiene
+     * como mucho un límite, después basta con una comparación exacta para corregir el resultado.
+     */
+    private static final class Axis {
+        /**
+         * Límites de los intervalos, ordenados y sin repetir.
+         */
+        private final double[] BOUNDS;
+
+        /**
+         * Intervalo en el que empieza cada celda.
+         */
+        private final int[] CELL_INTERVALS;
+
+        private final double CELL_ORIGIN, CELLS_PER_UNIT;
+
+        /**
+         * @param axis Índice del máximo del eje dentro de <code>Biome.NOISE</code>. El mínimo está en el siguiente índice.
+         */
+        private Axis(Biome[] biomes, int axis) {
+            TreeSet<Double> bounds = new TreeSet<>();
+            double minGap = Double.POSITIVE_INFINITY;
+
+            for (Biome biome: biomes) {
+                bounds.add(biome.NOISE[axis]);
+                bounds.add(biome.NOISE[axis +1]);
+            }
+            this.BOUNDS = bounds.stream().mapToDouble(Double::doubleValue).toArray();
+            for (int bound = 1; bound < this.BOUNDS.length; bound++) {
+                minGap = Math.min(minGap, this.BOUNDS[bound] - this.BOUNDS[bound -1]);
+            }
+
+            this.CELL_ORIGIN = this.BOUNDS[0];
+            this.CELLS_PER_UNIT = this.BOUNDS.length > 1 ? 2 / minGap : 1;
+            this.CELL_INTERVALS = new int[(int) ((this.BOUNDS[this.BOUNDS.length -1] - this.CELL_ORIGIN) * this.CELLS_PER_UNIT) +2];
+            for (int cell = 0; cell < this.CELL_INTERVALS.length; cell++) {
+                this.CELL_INTERVALS[cell] = this.countBoundsBelow(this.CELL_ORIGIN + cell / this.CELLS_PER_UNIT);
+            }
+        }
+
+        /**
+         * @return Número de intervalos del eje. El intervalo <code>i</code> es <code>(BOUNDS[i -1], BOUNDS[i]]</code>, con
+         * el primero abierto hacia <code>-infinito</code> y el último hacia <code>+infinito</code>.
+         */
+        private int getIntervalsCount() {
+            return this.BOUNDS.length +1;
+        }
+
+        /**
+         * @return Intervalo al que pertenece el valor, es decir, el número de límites estrictamente menores que él.
+         */
+        private int getInterval(double value) {
+            int cell = (int) ((value - this.CELL_ORIGIN) * this.CELLS_PER_UNIT);
+            int interval = this.CELL_INTERVALS[Math.max(0, Math.min(cell, this.CELL_INTERVALS.length -1))];
+
+            //La celda puede contener un límite, así que se corrige el intervalo con comparaciones exactas.
+            if (interval < this.BOUNDS.length && this.BOUNDS[interval] < value) {
+                interval++;
+            } else if (interval > 0 && !(this.BOUNDS[interval -1] < value)) {
+                interval--;
+            }
+            return interval;
+        }
+
+        private int countBoundsBelow(double value) {
+            int count = 0;
+            while (count < this.BOUNDS.length && this.BOUNDS[count] < value) {
+                count++;
+            }
+            return count;
+        }
+
+        /**
+         * @return Si todos los valores del intervalo cumplen <code>min &lt; valor &lt;= max</code>. Como <code>min</code>
+         * y <code>max</code> son límites del eje, o se cumple para todo el intervalo o para ninguno.
+         */
+        private boolean contains(int interval, double min, double max) {
+            double intervalMin = interval == 0 ? Double.NEGATIVE_INFINITY : this.BOUNDS[interval -1];
+            double intervalMax = interval == this.BOUNDS.length ? Double.POSITIVE_INFINITY : this.BOUNDS[interval];
+            return min <= intervalMin && intervalMax <= max;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(this.BOUNDS);
+        }
+    }
+}
@@ -211,6 +211,81 @@ public class NoiseGenerator {
         }
     }
 
+    /// <summary>
+    /// Adds weighted 2D noise for every integer point of a rectangular grid to an output buffer
+    /// </summary>
+    /// <remarks>
+    /// out[(x - x0) * height + (y - y0)] += GetNoise(x * frequency, y * frequency) * weight
+    /// The result for each point is exactly the same as calling GetNoise with those coordinates, but the frequency and
+    /// skew of each column are computed once and the noise type is only resolved once per call.
+    /// </remarks>
+    public void AddNoise(float[] out, int x0, int y0, int width, int height, float frequency, float weight)
+    {
+        if (mFractalType != FractalType.None || (mNoiseType != NoiseType.OpenSimplex2 && mNoiseType != NoiseType.OpenSimplex2S))
+        {
+            for (int x = 0, index = 0; x < width; x++)
+                for (int y = 0; y < height; y++, index++)
+                    out[index] += GetNoise((x0 + x) * frequency, (y0 + y) * frequency) * weight;
+            return;
+        }
+
+        final /*FNLfloat*/ float SQRT3 = (/*FNLfloat*/ float)1.7320508075688772935274463415059;
+        final /*FNLfloat*/ float F2 = 0.5f * (SQRT3 - 1);
+        final boolean simplex = mNoiseType == NoiseType.OpenSimplex2;
+
+        for (int x = 0, index = 0; x < width; x++)
+        {
+            /*FNLfloat*/ float xf = (x0 + x) * frequency * mFrequency;
+            for (int y = 0; y < height; y++, index++)
+            {
+                /*FNLfloat*/ float yf = (y0 + y) * frequency * mFrequency;
+                /*FNLfloat*/ float t = (xf + yf) * F2;
+                out[index] += (simplex ? SingleSimplex(mSeed, xf + t, yf + t) : SingleOpenSimplex2S(mSeed, xf + t, yf + t)) * weight;
+            }
+        }
+    }
+
+    /// <summary>
+    /// Adds weighted 2D noise of several generators for every integer point of a rectangular grid in a single pass
+    /// </summary>
+    /// <remarks>
+    /// outs[c][(x - x0) * height + (y - y0)] += generators[c].GetNoise(x * frequency, y * frequency) * weight
+    /// When every generator uses OpenSimplex2 with the same frequency and no fractal, the skew, lattice lookup and
+    /// falloff of each point only depend on the coordinates, so they are computed once and only the gradient hash is
+    /// evaluated per seed. Results are bit-identical to calling AddNoise on each generator. Otherwise it falls back to
+    /// AddNoise on each generator.
+    /// </remarks>
+    public static void AddNoise(NoiseGenerator[] generators, float[][] outs, int x0, int y0, int width, int height, float frequency, float weight)
+    {
+        int[] seeds = new int[generators.length];
+        float noiseFrequency = generators[0].mFrequency;
+        for (int channel = 0; channel < generators.length; channel++)
+        {
+            NoiseGenerator generator = generators[channel];
+            if (generator.mNoiseType != NoiseType.OpenSimplex2 || generator.mFractalType != FractalType.None || generator.mFrequency != noiseFrequency)
+            {
+                for (int fallback = 0; fallback < generators.length; fallback++)
+                    generators[fallback].AddNoise(outs[fallback], x0, y0, width, height, frequency, weight);
+                return;
+            }
+            seeds[channel] = generator.mSeed;
+        }
+
+        final /*FNLfloat*/ float SQRT3 = (/*FNLfloat*/ float)1.7320508075688772935274463415059;
+        final /*FNLfloat*/ float F2 = 0.5f * (SQRT3 - 1);
+
+        for (int x = 0, index = 0; x < width; x++)
+        {
+            /*FNLfloat*/ float xf = (x0 + x) * frequency * noiseFrequency;
+            for (int y = 0; y < height; y++, index++)
+            {
+                /*FNLfloat*/ float yf = (y0 + y) * frequency * noiseFrequency;
+                /*FNLfloat*/ float t = (xf + yf) * F2;
+                AddSimplexChannels(seeds, outs, index, weight, xf + t, yf + t);
+            }
+        }
+    }
+
     /// <summary>
     /// 3D noise at given position using current settings
     /// </summary>
@@ -856,6 +931,63 @@ public class NoiseGenerator {
         return (n0 + n1 + n2) * 99.83685446303647f;
     }
 
+    // Same as SingleSimplex, but evaluates the gradients of several seeds sharing the lattice work.
+    // Every floating point operation is done in the same order as SingleSimplex, so each channel is bit-identical.
+
+    private static void AddSimplexChannels(int[] seeds, float[][] outs, int index, float weight, /*FNLfloat*/ float x, /*FNLfloat*/ float y)
+    {
+        final float SQRT3 = 1.7320508075688772935274463415059f;
+        final float G2 = (3 - SQRT3) / 6;
+
+        int i = FastFloor(x);
+        int j = FastFloor(y);
+        float xi = x - i;
+        float yi = y - j;
+
+        float t = (xi + yi) * G2;
+        float x0 = xi - t;
+        float y0 = yi - t;
+
+        i *= PrimeX;
+        j *= PrimeY;
+
+        float a = 0.5f - x0 * x0 - y0 * y0;
+        float a4 = (a * a) * (a * a);
+
+        float c = (2 * (1 - 2 * G2) * (1 / G2 - 2)) * t + ((-2 * (1 - 2 * G2) * (1 - 2 * G2)) + a);
+        float c4 = (c * c) * (c * c);
+        float x2 = x0 + (2 * G2 - 1);
+        float y2 = y0 + (2 * G2 - 1);
+
+        float x1, y1;
+        int i1, j1;
+        if (y0 > x0)
+        {
+            x1 = x0 + G2;
+            y1 = y0 + (G2 - 1);
+            i1 = i;
+            j1 = j + PrimeY;
+        }
+        else
+        {
+            x1 = x0 + (G2 - 1);
+            y1 = y0 + G2;
+            i1 = i + PrimeX;
+            j1 = j;
+        }
+        float b = 0.5f - x1 * x1 - y1 * y1;
+        float b4 = (b * b) * (b * b);
+
+        for (int channel = 0; channel < seeds.length; channel++)
+        {
+            int seed = seeds[channel];
+            float n0 = a <= 0 ? 0 : a4 * GradCoord(seed, i, j, x0, y0);
+            float n1 = b <= 0 ? 0 : b4 * GradCoord(seed, i1, j1, x1, y1);
+            float n2 = c <= 0 ? 0 : c4 * GradCoord(seed, i + PrimeX, j + PrimeY, x2, y2);
+            outs[channel][index] += ((n0 + n1 + n2) * 99.83685446303647f) * weight;
+        }
+    }
+
     private float SingleOpenSimplex2(int seed, /*FNLfloat*/ float x, /*FNLfloat*/ float y, /*FNLfloat*/ float z)
     {
         // 3D OpenSimplex2 case uses two offset rotated cube grids.
@@ -2477,4 +2609,4 @@ public class NoiseGenerator {
             this.z = z;
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
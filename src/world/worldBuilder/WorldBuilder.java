@@ -1,9 +1,12 @@
 package world.worldBuilder;
 
+import java.util.Arrays;
+
 public class WorldBuilder {
     private final int OCTAVES = 8;
     private final float ROUGHNESS = 0.5f, SCALE = 0.5f;
     private final NoiseGenerator CONTINENTALITY_NOISE, WEIRDNESS_NOISE, RIVERS_NOSISE;
+    private final NoiseGenerator[] NOISE_GENERATORS;
 
     public WorldBuilder(int seed) {
         this.CONTINENTALITY_NOISE = new NoiseGenerator(seed) {{SetNoiseType(NoiseType.OpenSimplex2);}};
@@ -11,6 +14,7 @@ public class WorldBuilder {
         this.RIVERS_NOSISE = new NoiseGenerator(seed+2) {{
             SetNoiseType(NoiseType.OpenSimplex2);
         }};
+        this.NOISE_GENERATORS = new NoiseGenerator[]{this.CONTINENTALITY_NOISE, this.WEIRDNESS_NOISE, this.RIVERS_NOSISE};
     }
 
     public double getContinentalityAt(int x, int y) {
@@ -25,16 +29,82 @@ public class WorldBuilder {
         return this.getNoiseAt(x, y, this.RIVERS_NOSISE, this.SCALE /3, this.OCTAVES, this.ROUGHNESS * 1.5);
     }
 
+    /**
+     * Calcula el ruido de una sola casilla. Da exactamente el mismo resultado que <code>fillNoise</code> con un área de
+     * 1x1, por lo que ambos métodos se pueden mezclar sin que cambie el mundo generado.
+     */
     public double getNoiseAt(int x, int y, NoiseGenerator noiseGenerator, double scale, double octaves, double roughness) {
-        double noise = 0;
-        double layerFrequency = this.SCALE;
-        double layerWeight = 1;
+        float noise = 0;
+        float layerFrequency = this.SCALE;
+        float layerWeight = 1;
 
         for (int octave = 0; octave < this.OCTAVES; octave++) {
-            noise += noiseGenerator.GetNoise((float) (x * layerFrequency), (float) (y * layerFrequency)) * layerWeight;
+            noise += noiseGenerator.GetNoise(x * layerFrequency, y * layerFrequency) * layerWeight;
             layerFrequency *= 2;
             layerWeight *= this.ROUGHNESS;
         }
         return noise;
     }
+
+    /**
+     * Calcula el ruido de un área rectangular de casillas. Recorre las octavas por fuera y las casillas por dentro, de
+     * forma que la frecuencia y el peso de cada octava se calculan una sola vez para toda el área.
+     * @param field Campo de ruido que se quiere calcular.
+     * @param x0 Posición en el eje X de la primera casilla, en coordenadas in-game.
+     * @param y0 Posición en el eje Y de la primera casilla, en coordenadas in-game.
+     * @param width Ancho del área, en casillas.
+     * @param height Alto del área, en casillas.
+     * @param out Array en el que se escribe el resultado, con al menos <code>width * height</code> posiciones. El ruido
+     *            de la casilla <code>(x, y)</code> queda en el índice <code>(x - x0) * height + (y - y0)</code>.
+     */
+    public void fillNoise(NoiseField field, int x0, int y0, int width, int height, float[] out) {
+        NoiseGenerator noiseGenerator = this.getNoiseGenerator(field);
+        float layerFrequency = this.SCALE;
+        float layerWeight = 1;
+
+        Arrays.fill(out, 0, width * height, 0);
+        for (int octave = 0; octave < this.OCTAVES; octave++) {
+            noiseGenerator.AddNoise(out, x0, y0, width, height, layerFrequency, layerWeight);
+            layerFrequency *= 2;
+            layerWeight *= this.ROUGHNESS;
+        }
+    }
+
+    /**
+     * Calcula los tres campos de ruido de un área rectangular en una sola pasada. Como los tres generadores sólo se
+     * diferencian en la semilla, la geometría de cada punto se calcula una vez para los tres. El resultado es idéntico
+     * a llamar a <code>fillNoise</code> con cada campo.
+     * @see WorldBuilder#fillNoise(NoiseField, int, int, int, int, float[])
+     */
+    public void fillNoise(int x0, int y0, int width, int height, float[] continentality, float[] weirdness, float[] rivers) {
+        float[][] outs = {continentality, weirdness, rivers};
+        float layerFrequency = this.SCALE;
+        float layerWeight = 1;
+
+        for (float[] out: outs) {
+            Arrays.fill(out, 0, width * height, 0);
+        }
+        for (int octave = 0; octave < this.OCTAVES; octave++) {
+            NoiseGenerator.AddNoise(this.NOISE_GENERATORS, outs, x0, y0, width, height, layerFrequency, layerWeight);
+            layerFrequency *= 2;
+            layerWeight *= this.ROUGHNESS;
+        }
+    }
+
+    private NoiseGenerator getNoiseGenerator(NoiseField field) {
+        return switch (field) {
+            case CONTINENTALITY -> this.CONTINENTALITY_NOISE;
+            case WEIRDNESS -> this.WEIRDNESS_NOISE;
+            case RIVERS -> this.RIVERS_NOSISE;
+        };
+    }
+
+    /**
+     * Campos de ruido que se utilizan para generar el mundo.
+     */
+    public enum NoiseField {
+        CONTINENTALITY,
+        WEIRDNESS,
+        RIVERS
+    }
 }
@@ -0,0 +1,80 @@
+package utils.render;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import world.chunk.Chunk;
+
+import java.util.Random;
+
+/**
+ * Comprueba el rectángulo de chunks visibles que se calcula a partir de las matrices de la cámara, sin ventana.
+ * <br>Para cámaras en posiciones y con zooms aleatorios, incluidas coordenadas negativas, proyecta al mundo una rejilla
+ * de puntos de la pantalla y comprueba que el chunk de cada punto está dentro del rectángulo, y que el rectángulo no
+ * tiene más chunks que los de esos puntos más el margen de las features. También comprueba que <code>update</code>, que
+ * reutiliza el objeto, da el mismo resultado que <code>fromMatrices</code>.
+ * <br>Se ejecuta con <code>java -cp &lt;clases&gt;:lib/* utils.render.VisibleChunksCheck</code>. Termina con un
+ * <code>AssertionError</code> en el primer fallo.
+ */
+public class VisibleChunksCheck {
+    private static final int CAMERAS = 20_000;
+
+    /**
+     * Puntos que se proyectan en cada eje de la pantalla, incluidas las esquinas.
+     */
+    private static final int SCREEN_SAMPLES = 17;
+
+    /**
+     * Tamaño de una casilla en coordenadas de pantalla y del área que ve la cámara sin zoom, como en <code>Camera</code>.
+     */
+    private static final float TILE_SIZE = 20, SCREEN_WIDTH = 16 * 40, SCREEN_HEIGHT = 16 * 22.5f;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        Matrix4f projection = new Matrix4f(), view = new Matrix4f(), inverseTransform = new Matrix4f();
+        Vector4f point = new Vector4f();
+        VisibleChunks reused = new VisibleChunks(0, 0, 0, 0);
+
+        for (int camera = 0; camera < VisibleChunksCheck.CAMERAS; camera++) {
+            float zoom = (float) Math.pow(1.75, random.nextInt(12) - 6),
+                    cameraX = (random.nextFloat() - 0.5f) * 2_000_000, cameraY = (random.nextFloat() - 0.5f) * 2_000_000;
+            int minChunkX = Integer.MAX_VALUE, minChunkY = Integer.MAX_VALUE, maxChunkX = Integer.MIN_VALUE, maxChunkY = Integer.MIN_VALUE;
+            VisibleChunks visibleChunks;
+
+            projection.identity().ortho(0, VisibleChunksCheck.SCREEN_WIDTH * zoom, 0, VisibleChunksCheck.SCREEN_HEIGHT * zoom, 0, 100);
+            view.setLookAt(cameraX, cameraY, 20, cameraX, cameraY, -1, 0, 1, 0);
+            visibleChunks = VisibleChunks.fromMatrices(projection, view, VisibleChunksCheck.TILE_SIZE);
+            projection.mul(view, inverseTransform).invert();
+
+            for (int sampleX = 0; sampleX < VisibleChunksCheck.SCREEN_SAMPLES; sampleX++)
+                for (int sampleY = 0; sampleY < VisibleChunksCheck.SCREEN_SAMPLES; sampleY++) {
+                    int chunkX, chunkY;
+
+                    inverseTransform.transform(point.set(-1 + 2f * sampleX / (VisibleChunksCheck.SCREEN_SAMPLES -1),
+                            -1 + 2f * sampleY / (VisibleChunksCheck.SCREEN_SAMPLES -1), -1, 1));
+                    point.div(point.w());
+                    chunkX = Chunk.toChunkCoordinate((int) Math.floor(point.x() / VisibleChunksCheck.TILE_SIZE));
+                    chunkY = Chunk.toChunkCoordinate((int) Math.floor(point.y() / VisibleChunksCheck.TILE_SIZE));
+                    if (!visibleChunks.contains(chunkX, chunkY)) {
+                        throw new AssertionError(String.format("%s no contiene el chunk (%d, %d), visible con la cámara en (%s, %s) y zoom %s",
+                                visibleChunks, chunkX, chunkY, cameraX, cameraY, zoom));
+                    }
+                    minChunkX = Math.min(minChunkX, chunkX);
+                    minChunkY = Math.min(minChunkY, chunkY);
+                    maxChunkX = Math.max(maxChunkX, chunkX);
+                    maxChunkY = Math.max(maxChunkY, chunkY);
+                }
+
+            //Sólo se añade un chunk por abajo y por la izquierda, para las features que sobresalen de su chunk.
+            if (visibleChunks.getMinChunkX() != minChunkX -1 || visibleChunks.getMinChunkY() != minChunkY -1
+                    || visibleChunks.getMaxChunkX() != maxChunkX || visibleChunks.getMaxChunkY() != maxChunkY) {
+                throw new AssertionError(String.format("%s no coincide con los chunks visibles x=%d..%d, y=%d..%d",
+                        visibleChunks, minChunkX, maxChunkX, minChunkY, maxChunkY));
+            }
+            if (!reused.update(projection, view, VisibleChunksCheck.TILE_SIZE).equals(visibleChunks)) {
+                throw new AssertionError(String.format("update da %s, pero fromMatrices da %s", reused, visibleChunks));
+            }
+        }
+
+        System.out.printf("VisibleChunksCheck: %d cámaras, todas correctas.%n", VisibleChunksCheck.CAMERAS);
+    }
+}
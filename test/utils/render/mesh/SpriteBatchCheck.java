@@ -0,0 +1,124 @@
+package utils.render.mesh;
+
+import utils.render.texture.StaticTexture;
+import utils.render.texture.Texture;
+
+import java.util.Random;
+
+/**
+ * Comprueba el contenido de un <code>SpriteBatch</code> después de <code>build</code>, sin ventana ni
+ * <code>OpenGL</code>: las texturas no se llegan a cargar.
+ * <br>Comprueba que los rectángulos se agrupan en una llamada de dibujo por textura y capa, que las capas se dibujan
+ * de menor a mayor, que dentro de cada llamada se mantiene el orden en el que se añadieron, que cada rectángulo aparece
+ * una sola vez con sus cuatro vértices bien escritos y que el número de llamadas de un inventario no depende de cuántas
+ * casillas tenga.
+ * <br>Se ejecuta con <code>java -cp &lt;clases&gt;:lib/* utils.render.mesh.SpriteBatchCheck</code>. Termina con un
+ * <code>AssertionError</code> en el primer fallo.
+ */
+public class SpriteBatchCheck {
+    private static final int RANDOM_BATCHES = 500, MAX_QUADS = 300, LAYERS = 4;
+
+    public static void main(String[] args) {
+        Texture[] textures = {new StaticTexture("a"), new StaticTexture("b"), new StaticTexture("c"), new StaticTexture("d")};
+        SpriteBatch batch = new SpriteBatch();
+        Random random = new Random(1);
+
+        //Un inventario: el fondo, las casillas con dos texturas en una capa y los objetos y el texto en la siguiente.
+        for (int slots: new int[]{3, 10, 500}) {
+            batch.clear();
+            batch.setLayer(0);
+            batch.add(textures[0], 0, 0, 100, 100);
+            for (int slot = 0; slot < slots; slot++) {
+                batch.setLayer(1);
+                batch.add(slot % 3 == 0 ? textures[1] : textures[2], slot * 10, 0, 10, 10);
+                batch.setLayer(2);
+                batch.add(textures[3], slot * 10 +1, 1, 8, 8);
+            }
+            batch.add(textures[0], 0, 0, 5, 5, 0, 0, 0.5f, 0.5f, true);
+            batch.build();
+
+            if (batch.getQuadsCount() != 2 * slots +2 || batch.getDrawCallsCount() != 5) {
+                throw new AssertionError(String.format("Inventario de %d casillas: %s, se esperaban %d rectángulos en 5 llamadas",
+                        slots, batch, 2 * slots +2));
+            }
+        }
+
+        //Los cuatro vértices de un rectángulo: posición, coordenadas UV y cobertura.
+        batch.clear();
+        batch.add(textures[0], 1, 2, 3, 4, 0.25f, 0.5f, 0.75f, 1, true);
+        batch.build();
+        SpriteBatchCheck.checkVertices(batch.getVertexArray(), 0, new float[]{
+                1, 2, 0.25f, 0.5f, 1,
+                3, 2, 0.75f, 0.5f, 1,
+                3, 4, 0.75f, 1, 1,
+                1, 4, 0.25f, 1, 1});
+
+        for (int batchIndex = 0; batchIndex < SpriteBatchCheck.RANDOM_BATCHES; batchIndex++) {
+            SpriteBatchCheck.checkRandomBatch(batch, textures, random);
+        }
+
+        batch.clear();
+        batch.build();
+        if (batch.getQuadsCount() != 0 || batch.getDrawCallsCount() != 0) {
+            throw new AssertionError(batch + ": el batch no se ha vaciado");
+        }
+
+        System.out.printf("SpriteBatchCheck: 3 inventarios y %d batches aleatorios, todos correctos.%n", SpriteBatchCheck.RANDOM_BATCHES);
+    }
+
+    /**
+     * Añade rectángulos con capas y texturas aleatorias. Cada uno tiene como posición X su orden, para poder
+     * identificarlo después de ordenar.
+     */
+    private static void checkRandomBatch(SpriteBatch batch, Texture[] textures, Random random) {
+        int quadsCount = random.nextInt(SpriteBatchCheck.MAX_QUADS), quad = 0, previousLayer = -1;
+        int[] layers = new int[quadsCount], textureIndices = new int[quadsCount];
+        boolean[] seen = new boolean[quadsCount];
+        float[] vertices;
+
+        batch.clear();
+        for (int added = 0; added < quadsCount; added++) {
+            layers[added] = random.nextInt(SpriteBatchCheck.LAYERS);
+            textureIndices[added] = random.nextInt(textures.length);
+            batch.setLayer(layers[added]);
+            batch.add(textures[textureIndices[added]], added, 0, 1, 1);
+        }
+        batch.build();
+        vertices = batch.getVertexArray();
+
+        for (int drawCall = 0; drawCall < batch.getDrawCallsCount(); drawCall++) {
+            int layer = -1, previousQuad = -1;
+
+            for (int drawCallQuad = 0; drawCallQuad < batch.getDrawCallQuads(drawCall); drawCallQuad++, quad++) {
+                int added = (int) vertices[quad * SpriteBatch.QUAD_VERTEX_VALUES];
+
+                if (seen[added] || textures[textureIndices[added]] != batch.getDrawCallTexture(drawCall)) {
+                    throw new AssertionError(String.format("%s: el rectángulo %d está repetido o en la llamada %d, con otra textura",
+                            batch, added, drawCall));
+                }
+                if ((layer != -1 && layers[added] != layer) || added < previousQuad) {
+                    throw new AssertionError(String.format("%s: la llamada %d mezcla capas o no mantiene el orden", batch, drawCall));
+                }
+                seen[added] = true;
+                layer = layers[added];
+                previousQuad = added;
+            }
+            if (layer < previousLayer) {
+                throw new AssertionError(String.format("%s: la capa %d se dibuja después de la %d", batch, layer, previousLayer));
+            }
+            previousLayer = layer;
+        }
+        if (quad != quadsCount || batch.getQuadsCount() != quadsCount) {
+            throw new AssertionError(String.format("%s: las llamadas tienen %d rectángulos, pero se añadieron %d", batch, quad, quadsCount));
+        }
+    }
+
+    private static void checkVertices(float[] vertices, int quad, float[] expected) {
+        for (int value = 0; value < expected.length; value++) {
+            if (vertices[quad * SpriteBatch.QUAD_VERTEX_VALUES + value] != expected[value]) {
+                throw new AssertionError(String.format("El valor %d del rectángulo %d es %s, pero se esperaba %s", value, quad,
+                        vertices[quad * SpriteBatch.QUAD_VERTEX_VALUES + value], expected[value]));
+            }
+        }
+    }
+}
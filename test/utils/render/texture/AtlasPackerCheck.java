@@ -0,0 +1,85 @@
+package utils.render.texture;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Comprueba <code>AtlasPacker</code> sin cargar imágenes ni utilizar <code>OpenGL</code>.
+ * <br>Para conjuntos aleatorios de imágenes, comprueba que cada imagen, con su margen, está dentro del atlas, que no se
+ * solapa con ninguna otra, que los lados del atlas son potencias de 2 y que las coordenadas UV de
+ * <code>getRegion</code> corresponden a su posición. Además comprueba algunos casos fijos con el tamaño exacto que tiene
+ * que tener el atlas.
+ * <br>Se ejecuta con <code>java -cp &lt;clases&gt;:lib/* utils.render.texture.AtlasPackerCheck</code>. Termina con un
+ * <code>AssertionError</code> en el primer fallo.
+ */
+public class AtlasPackerCheck {
+    private static final int RANDOM_ATLASES = 2000, MAX_IMAGES = 40, MAX_IMAGE_SIZE = 64;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+
+        for (int atlas = 0; atlas < AtlasPackerCheck.RANDOM_ATLASES; atlas++) {
+            int imagesCount = 1 + random.nextInt(AtlasPackerCheck.MAX_IMAGES), padding = random.nextInt(3);
+            int[] widths = new int[imagesCount], heights = new int[imagesCount];
+
+            for (int image = 0; image < imagesCount; image++) {
+                widths[image] = 1 + random.nextInt(AtlasPackerCheck.MAX_IMAGE_SIZE);
+                heights[image] = 1 + random.nextInt(AtlasPackerCheck.MAX_IMAGE_SIZE);
+            }
+            AtlasPackerCheck.check(widths, heights, padding);
+        }
+
+        //Diez imágenes de 16 x 16 con 1 píxel de margen caben de 3 en 3 en 64 píxeles de ancho: 4 filas de 18 píxeles.
+        AtlasPackerCheck.checkSize(AtlasPackerCheck.repeat(16, 10), AtlasPackerCheck.repeat(16, 10), 1, 64, 128);
+        AtlasPackerCheck.checkSize(new int[]{1}, new int[]{1}, 0, 1, 1);
+        AtlasPackerCheck.checkSize(new int[]{100, 3}, new int[]{5, 5}, 0, 128, 8);
+
+        System.out.printf("AtlasPackerCheck: %d atlas aleatorios y 3 fijos, todos correctos.%n", AtlasPackerCheck.RANDOM_ATLASES);
+    }
+
+    private static AtlasPacker check(int[] widths, int[] heights, int padding) {
+        AtlasPacker packer = AtlasPacker.pack(widths, heights, padding);
+        float[] region = new float[4];
+
+        if (Integer.bitCount(packer.getWidth()) != 1 || Integer.bitCount(packer.getHeight()) != 1) {
+            throw new AssertionError(packer + ": los lados del atlas no son potencias de 2");
+        }
+        for (int image = 0; image < widths.length; image++) {
+            if (packer.getX(image) - padding < 0 || packer.getY(image) - padding < 0
+                    || packer.getX(image) + widths[image] + padding > packer.getWidth()
+                    || packer.getY(image) + heights[image] + padding > packer.getHeight()) {
+                throw new AssertionError(String.format("%s: la imagen %d se sale del atlas", packer, image));
+            }
+            for (int other = 0; other < image; other++) {
+                if (packer.getX(image) - padding < packer.getX(other) + widths[other] + padding
+                        && packer.getX(other) - padding < packer.getX(image) + widths[image] + padding
+                        && packer.getY(image) - padding < packer.getY(other) + heights[other] + padding
+                        && packer.getY(other) - padding < packer.getY(image) + heights[image] + padding) {
+                    throw new AssertionError(String.format("%s: las imágenes %d y %d se solapan", packer, other, image));
+                }
+            }
+
+            packer.getRegion(image, region, 0);
+            if (region[0] * packer.getWidth() != packer.getX(image) || region[1] * packer.getHeight() != packer.getY(image)
+                    || region[2] * packer.getWidth() != packer.getX(image) + widths[image]
+                    || region[3] * packer.getHeight() != packer.getY(image) + heights[image]) {
+                throw new AssertionError(String.format("%s: las coordenadas UV de la imagen %d no coinciden con su posición", packer, image));
+            }
+        }
+        return packer;
+    }
+
+    private static void checkSize(int[] widths, int[] heights, int padding, int width, int height) {
+        AtlasPacker packer = AtlasPackerCheck.check(widths, heights, padding);
+
+        if (packer.getWidth() != width || packer.getHeight() != height) {
+            throw new AssertionError(String.format("%s: se esperaba un atlas de %d x %d", packer, width, height));
+        }
+    }
+
+    private static int[] repeat(int value, int count) {
+        int[] values = new int[count];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
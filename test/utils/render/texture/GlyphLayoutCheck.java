@@ -0,0 +1,129 @@
+package utils.render.texture;
+
+/**
+ * Comprueba la colocación de los glifos de un <code>GlyphLayout</code> con una fuente inventada, sin ventana ni
+ * <code>OpenGL</code>: no hace falta hornear ninguna fuente.
+ * <br>Comprueba la posición y las coordenadas UV de los cuatro vértices de cada rectángulo, los índices de sus dos
+ * triángulos, el redondeo de los desplazamientos, los espacios que avanzan sin dibujar, los saltos de línea, que los
+ * caracteres que no tiene la fuente se dibujen como <code>?</code> (o se salten si tampoco lo tiene) y el ancho y el alto
+ * del texto.
+ * <br>Se ejecuta con <code>java -cp &lt;clases&gt;:lib/* utils.render.texture.GlyphLayoutCheck</code>. Termina con un
+ * <code>AssertionError</code> en el primer fallo.
+ */
+public class GlyphLayoutCheck {
+    private static final int ATLAS_WIDTH = 512, ATLAS_HEIGHT = 256, GLYPH_WIDTH = 8, GLYPH_HEIGHT = 12;
+    private static final float ASCENT = 12, LINE_HEIGHT = 16;
+    private static final float EPSILON = 1e-6f;
+
+    private static int checks = 0;
+
+    public static void main(String[] args) {
+        //Fuente desde el espacio hasta la 'G': el espacio no tiene píxeles, la 'B' tiene desplazamientos con decimales.
+        GlyphLayout layout = GlyphLayoutCheck.createLayout(' ', 'G' - ' ' +1);
+        String text = "A B\nA\u00e9";
+        int quadsCount = layout.getQuadsCount(text);
+        float[] vertices = new float[quadsCount * GlyphLayout.QUAD_VERTEX_VALUES];
+        int[] elements = new int[quadsCount * GlyphLayout.QUAD_ELEMENTS];
+
+        GlyphLayoutCheck.check(quadsCount == 4, "\"%s\" genera %d rectángulos, se esperaban 4", text, quadsCount);
+        GlyphLayoutCheck.check(layout.layout(text, vertices, elements) == 4, "layout no ha escrito 4 rectángulos");
+        GlyphLayoutCheck.checkQuad(vertices, elements, 0, 1, 2, 'A' - ' ');
+        //La 'B' empieza después del avance de la 'A' y del espacio: 9 + 5 + 0,4 se redondea a 14 y 12 - 9,6 a 2.
+        GlyphLayoutCheck.checkQuad(vertices, elements, 1, 14, 2, 'B' - ' ');
+        //Segunda línea, una altura de línea más abajo. La 'é' no está en la fuente y se dibuja como '?'.
+        GlyphLayoutCheck.checkQuad(vertices, elements, 2, 1, 18, 'A' - ' ');
+        GlyphLayoutCheck.checkQuad(vertices, elements, 3, 10, 18, '?' - ' ');
+
+        GlyphLayoutCheck.checkValue(layout.getWidth(text), 21.5f, "ancho de \"" + text + "\"");
+        GlyphLayoutCheck.checkValue(layout.getHeight(text), 2 * GlyphLayoutCheck.LINE_HEIGHT, "alto de \"" + text + "\"");
+        GlyphLayoutCheck.checkValue(layout.getWidth(""), 0, "ancho del texto vacío");
+        GlyphLayoutCheck.checkValue(layout.getHeight(""), GlyphLayoutCheck.LINE_HEIGHT, "alto del texto vacío");
+        GlyphLayoutCheck.checkValue(layout.getHeight("A\n"), 2 * GlyphLayoutCheck.LINE_HEIGHT, "alto de \"A\\n\"");
+        GlyphLayoutCheck.checkValue(layout.getWidth("\nAA"), 18, "ancho de \"\\nAA\"");
+
+        //Sin índices sólo se escriben los vértices, y tienen que ser los mismos.
+        float[] verticesOnly = new float[vertices.length];
+        GlyphLayoutCheck.check(layout.layout(text, verticesOnly, null) == 4, "layout sin índices no ha escrito 4 rectángulos");
+        for (int value = 0; value < vertices.length; value++) {
+            GlyphLayoutCheck.checkValue(verticesOnly[value], vertices[value], "vértice " + value + " sin índices");
+        }
+
+        //Una fuente sin '?': los caracteres que no tiene no se dibujan ni avanzan.
+        layout = GlyphLayoutCheck.createLayout('A', 2);
+        text = "A?C\nB";
+        quadsCount = layout.getQuadsCount(text);
+        vertices = new float[quadsCount * GlyphLayout.QUAD_VERTEX_VALUES];
+        elements = new int[quadsCount * GlyphLayout.QUAD_ELEMENTS];
+        GlyphLayoutCheck.check(quadsCount == 2, "\"%s\" sin '?' genera %d rectángulos, se esperaban 2", text, quadsCount);
+        GlyphLayoutCheck.check(layout.layout(text, vertices, elements) == 2, "layout sin '?' no ha escrito 2 rectángulos");
+        GlyphLayoutCheck.checkQuad(vertices, elements, 0, 1, 2, 0);
+        GlyphLayoutCheck.checkQuad(vertices, elements, 1, 0, 18, 1);
+        GlyphLayoutCheck.checkValue(layout.getWidth(text), 9, "ancho de \"" + text + "\" sin '?'");
+
+        System.out.printf("GlyphLayoutCheck: %d comprobaciones, todas correctas.%n", GlyphLayoutCheck.checks);
+    }
+
+    /**
+     * Crea una fuente en la que cada glifo ocupa su propia columna del atlas. Todos los glifos se desplazan 1 píxel en
+     * X y 10 hacia arriba y avanzan 9, salvo el espacio, que no tiene píxeles y avanza 5, y la 'B', que se desplaza 0,4
+     * en X y 9,6 hacia arriba y avanza 7,5.
+     */
+    private static GlyphLayout createLayout(char firstChar, int glyphsCount) {
+        int[] bounds = new int[glyphsCount * 4];
+        float[] metrics = new float[glyphsCount * 3];
+
+        for (int glyph = 0; glyph < glyphsCount; glyph++) {
+            char character = (char) (firstChar + glyph);
+            if (character != ' ') {
+                bounds[glyph * 4] = glyph * 10;
+                bounds[glyph * 4 +2] = glyph * 10 + GlyphLayoutCheck.GLYPH_WIDTH;
+                bounds[glyph * 4 +3] = GlyphLayoutCheck.GLYPH_HEIGHT;
+            }
+            metrics[glyph * 3] = character == 'B' ? 0.4f : character == ' ' ? 0 : 1;
+            metrics[glyph * 3 +1] = character == 'B' ? -9.6f : character == ' ' ? 0 : -10;
+            metrics[glyph * 3 +2] = character == 'B' ? 7.5f : character == ' ' ? 5 : 9;
+        }
+        return new GlyphLayout(firstChar, GlyphLayoutCheck.ATLAS_WIDTH, GlyphLayoutCheck.ATLAS_HEIGHT,
+                GlyphLayoutCheck.ASCENT, GlyphLayoutCheck.LINE_HEIGHT, bounds, metrics);
+    }
+
+    /**
+     * Comprueba los cuatro vértices y los seis índices de un rectángulo de <code>createLayout</code>.
+     * @param posX Posición esperada de la esquina superior izquierda en el eje X.
+     * @param posY Posición esperada de la esquina superior izquierda en el eje Y.
+     * @param glyph Glifo que se tiene que haber dibujado.
+     */
+    private static void checkQuad(float[] vertices, int[] elements, int quad, float posX, float posY, int glyph) {
+        float x1 = posX + GlyphLayoutCheck.GLYPH_WIDTH, y1 = posY + GlyphLayoutCheck.GLYPH_HEIGHT;
+        float u0 = glyph * 10f / GlyphLayoutCheck.ATLAS_WIDTH, u1 = (glyph * 10f + GlyphLayoutCheck.GLYPH_WIDTH) / GlyphLayoutCheck.ATLAS_WIDTH,
+                v1 = (float) GlyphLayoutCheck.GLYPH_HEIGHT / GlyphLayoutCheck.ATLAS_HEIGHT;
+        float[] expected = {
+                posX, posY, u0, 0,
+                x1, posY, u1, 0,
+                x1, y1, u1, v1,
+                posX, y1, u0, v1};
+        int offset = quad * GlyphLayout.QUAD_VERTEX_VALUES, firstVertex = quad * 4;
+        int[] expectedElements = {firstVertex, firstVertex +1, firstVertex +2, firstVertex +2, firstVertex +3, firstVertex};
+
+        for (int value = 0; value < expected.length; value++) {
+            GlyphLayoutCheck.checkValue(vertices[offset + value], expected[value],
+                    String.format("rectángulo %d, vértice %d, valor %d", quad, value / GlyphLayout.VERTEX_SIZE, value % GlyphLayout.VERTEX_SIZE));
+        }
+        for (int element = 0; element < expectedElements.length; element++) {
+            GlyphLayoutCheck.check(elements[quad * GlyphLayout.QUAD_ELEMENTS + element] == expectedElements[element],
+                    "rectángulo %d, índice %d: %d, se esperaba %d", quad, element,
+                    elements[quad * GlyphLayout.QUAD_ELEMENTS + element], expectedElements[element]);
+        }
+    }
+
+    private static void checkValue(float actual, float expected, String name) {
+        GlyphLayoutCheck.check(Math.abs(actual - expected) <= GlyphLayoutCheck.EPSILON, "%s: %s, se esperaba %s", name, actual, expected);
+    }
+
+    private static void check(boolean condition, String message, Object... args) {
+        GlyphLayoutCheck.checks++;
+        if (!condition) {
+            throw new AssertionError(String.format(message, args));
+        }
+    }
+}
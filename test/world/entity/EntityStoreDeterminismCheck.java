@@ -0,0 +1,111 @@
+package world.entity;
+
+import world.pathfinding.FlowField;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Comprueba que el tick de las entidades da el mismo resultado sea cual sea el número de hilos del pool, sin ventana
+ * ni <code>OpenGL</code>.
+ * <br>Crea las mismas entidades con la misma semilla en almacenes con pools de distinto tamaño, los avanza los mismos
+ * ticks, quitando algunas entidades por el camino, y compara las posiciones, las del tick anterior y los
+ * identificadores. Hay entidades suficientes para que el tick se reparta en varias particiones, y el mapa tiene un muro
+ * con huecos y una zona de agua hacia la que los patos saben ir.
+ * <br>Se ejecuta con <code>java -cp &lt;clases&gt;:lib/* world.entity.EntityStoreDeterminismCheck</code>. Termina con
+ * un <code>AssertionError</code> en el primer fallo.
+ */
+public class EntityStoreDeterminismCheck {
+    private static final long SEED = 42;
+    private static final int ENTITIES = 40_000, TICKS = 200, REMOVE_EVERY_TICKS = 50, MAP_SIZE = 256, WATER = 200;
+    private static final int[] POOL_SIZES = {1, 2, 3, 8};
+
+    public static void main(String[] args) {
+        EntityStore expected = EntityStoreDeterminismCheck.run(EntityStoreDeterminismCheck.POOL_SIZES[0]), store;
+
+        for (int poolIndex = 1; poolIndex < EntityStoreDeterminismCheck.POOL_SIZES.length; poolIndex++) {
+            store = EntityStoreDeterminismCheck.run(EntityStoreDeterminismCheck.POOL_SIZES[poolIndex]);
+            EntityStoreDeterminismCheck.compare(expected, store, EntityStoreDeterminismCheck.POOL_SIZES[poolIndex]);
+        }
+
+        System.out.printf("EntityStoreDeterminismCheck: %d entidades durante %d ticks con pools de %s hilos, todas iguales.%n",
+                expected.size(), EntityStoreDeterminismCheck.TICKS, Arrays.toString(EntityStoreDeterminismCheck.POOL_SIZES));
+    }
+
+    /**
+     * @return Un almacén con las entidades de la semilla después de todos los ticks, con un pool de ese tamaño.
+     */
+    private static EntityStore run(int poolSize) {
+        ForkJoinPool pool = new ForkJoinPool(poolSize);
+        EntityStore store = new EntityStore(EntityStoreDeterminismCheck.SEED, EntityStoreDeterminismCheck::isWalkable,
+                (goal, x, y) -> EntityStoreDeterminismCheck.getDirection(x, y), pool);
+
+        try {
+            for (int entity = 0; entity < EntityStoreDeterminismCheck.ENTITIES; entity++) {
+                store.spawn(Entity.EntityType.DUCK, entity % 99 + 0.5f, (entity / 99) % 190 + 0.5f);
+            }
+            for (int tick = 1; tick <= EntityStoreDeterminismCheck.TICKS; tick++) {
+                store.tick();
+                //Quitar entidades mueve otras de sitio en los arrays, que también tiene que ser igual en todos los pools.
+                if (tick % EntityStoreDeterminismCheck.REMOVE_EVERY_TICKS == 0) {
+                    for (int id = tick; id < EntityStoreDeterminismCheck.ENTITIES; id += 97) {
+                        store.remove(id);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return store;
+    }
+
+    private static void compare(EntityStore expected, EntityStore store, int poolSize) {
+        float[] expectedPositions = new float[2 * expected.size()], expectedPreviousPositions = new float[2 * expected.size()];
+        float[] positions = new float[2 * store.size()], previousPositions = new float[2 * store.size()];
+
+        if (store.size() != expected.size()) {
+            throw new AssertionError(String.format("Pool de %d hilos: %d entidades, se esperaban %d", poolSize,
+                    store.size(), expected.size()));
+        }
+        for (int index = 0; index < expected.size(); index++) {
+            if (store.getId(index) != expected.getId(index)) {
+                throw new AssertionError(String.format("Pool de %d hilos: la entidad %d es la %d, se esperaba la %d",
+                        poolSize, index, store.getId(index), expected.getId(index)));
+            }
+        }
+
+        expected.copyPositions(Entity.EntityType.DUCK, expectedPositions, expectedPreviousPositions);
+        store.copyPositions(Entity.EntityType.DUCK, positions, previousPositions);
+        EntityStoreDeterminismCheck.compare(expectedPositions, positions, "posición", poolSize);
+        EntityStoreDeterminismCheck.compare(expectedPreviousPositions, previousPositions, "posición anterior", poolSize);
+    }
+
+    private static void compare(float[] expected, float[] actual, String name, int poolSize) {
+        for (int position = 0; position < expected.length; position++) {
+            //Se comparan los bits, no sólo los valores: el tick tiene que ser exactamente el mismo.
+            if (Float.floatToRawIntBits(actual[position]) != Float.floatToRawIntBits(expected[position])) {
+                throw new AssertionError(String.format("Pool de %d hilos: %s %d de la entidad %d es %s, se esperaba %s",
+                        poolSize, name, position % 2, position / 2, actual[position], expected[position]));
+            }
+        }
+    }
+
+    /**
+     * Mapa del mundo: un muro vertical con un hueco cada 50 casillas, rodeado de casillas fuera del mundo.
+     */
+    private static boolean isWalkable(int x, int y) {
+        return x >= 0 && y >= 0 && x < EntityStoreDeterminismCheck.MAP_SIZE && y < EntityStoreDeterminismCheck.MAP_SIZE
+                && (x != 100 || y % 50 == 0);
+    }
+
+    /**
+     * Dirección hacia la zona de agua de la esquina, que no depende de nada más que de la casilla.
+     */
+    private static byte getDirection(int x, int y) {
+        if (x >= EntityStoreDeterminismCheck.WATER && y >= EntityStoreDeterminismCheck.WATER) {
+            return FlowField.NO_DIRECTION;
+        }
+        //Direcciones de FlowField: 0 es +X, 1 es +X+Y y 2 es +Y.
+        return (byte) (x >= EntityStoreDeterminismCheck.WATER ? 2 : y >= EntityStoreDeterminismCheck.WATER ? 0 : 1);
+    }
+}
@@ -0,0 +1,74 @@
+package world.worldBuilder;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Comprueba que <code>Biome.generateBiome</code>, que consulta la tabla de <code>BiomeClassifier</code>, da el mismo
+ * bioma que <code>Biome.generateBiomeByRanges</code>, que recorre los biomas en orden.
+ * <br>Prueba millones de valores aleatorios y, en cada eje, todos los límites de los biomas y los valores
+ * inmediatamente anterior y posterior a cada uno, que es donde la tabla se puede equivocar.
+ * <br>Se ejecuta sin ventana: <code>java -cp &lt;clases&gt;:lib/* world.worldBuilder.BiomeClassifierCheck</code>.
+ * Termina con un <code>AssertionError</code> en el primer valor que no coincide.
+ */
+public class BiomeClassifierCheck {
+    private static final int RANDOM_SAMPLES = 5_000_000;
+
+    /**
+     * Rango de los valores aleatorios en cada eje, algo más amplio que el de los límites de los biomas.
+     */
+    private static final double MIN_NOISE = -2.5, MAX_NOISE = 2.5;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        double[][] boundaryValues = new double[3][];
+        long checked = 0;
+
+        for (int sample = 0; sample < BiomeClassifierCheck.RANDOM_SAMPLES; sample++) {
+            BiomeClassifierCheck.check(BiomeClassifierCheck.getRandomNoise(random), BiomeClassifierCheck.getRandomNoise(random),
+                    BiomeClassifierCheck.getRandomNoise(random));
+            checked++;
+        }
+
+        for (int axis = 0; axis < boundaryValues.length; axis++) {
+            boundaryValues[axis] = BiomeClassifierCheck.getBoundaryValues(axis);
+        }
+        for (double continentality: boundaryValues[0]) for (double weirdness: boundaryValues[1]) for (double rivers: boundaryValues[2]) {
+            BiomeClassifierCheck.check(continentality, weirdness, rivers);
+            checked++;
+        }
+
+        System.out.printf("BiomeClassifierCheck: %d valores, todos coinciden.%n", checked);
+    }
+
+    private static void check(double continentality, double weirdness, double rivers) {
+        Biome expected = Biome.generateBiomeByRanges(continentality, weirdness, rivers),
+                actual = Biome.generateBiome(continentality, weirdness, rivers);
+
+        if (expected != actual) {
+            throw new AssertionError(String.format("(%s, %s, %s): la tabla da %s, pero se esperaba %s",
+                    continentality, weirdness, rivers, actual, expected));
+        }
+    }
+
+    private static double getRandomNoise(Random random) {
+        return BiomeClassifierCheck.MIN_NOISE + random.nextDouble() * (BiomeClassifierCheck.MAX_NOISE - BiomeClassifierCheck.MIN_NOISE);
+    }
+
+    /**
+     * @param axis Eje de ruido: 0 continentalidad, 1 rareza y 2 ríos.
+     * @return Los límites de todos los biomas en ese eje, con el valor anterior y el posterior a cada uno.
+     */
+    private static double[] getBoundaryValues(int axis) {
+        TreeSet<Double> values = new TreeSet<>();
+
+        for (Biome biome: Biome.values()) {
+            for (double bound: new double[]{biome.NOISE[2 * axis], biome.NOISE[2 * axis +1]}) {
+                values.add(bound);
+                values.add(Math.nextDown(bound));
+                values.add(Math.nextUp(bound));
+            }
+        }
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+}